@@ -0,0 +1,10 @@
+package com.jbs.framework.collision;
+
+import com.jbs.framework.rendering.Graphic;
+
+/*
+ * Notified of every pair of overlapping Graphics when a CollisionWorld is updated.
+ */
+public interface CollisionListener {
+	public void onCollision(Graphic a, Graphic b);
+}
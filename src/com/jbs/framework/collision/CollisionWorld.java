@@ -0,0 +1,344 @@
+package com.jbs.framework.collision;
+
+import java.util.ArrayList;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongMap;
+import com.jbs.framework.io.InputProxy;
+import com.jbs.framework.rendering.Graphic;
+import com.jbs.framework.rendering.TransformListener;
+import com.jbs.framework.util.Updatable;
+
+/*
+ * Finds overlapping Graphics once per fixed update. The broad phase is a spatial
+ * hash of the Graphics' bounding boxes, only Graphics whose transform changed since
+ * the last update are rehashed. Candidate pairs are then tested as rotated boxes
+ * (the same centered boxes Graphic renders) and reported to the CollisionListener.
+ * Graphics may be added or removed from within the listener, the change is applied
+ * once the update finishes.
+ */
+public class CollisionWorld implements Updatable {
+	
+	/* The size of one cell of the spatial hash, roughly the size of a typical Graphic. */
+	private final float cellSize;
+	
+	/* The IDs of the bodies touching each cell, keyed by the cell's packed coordinates. */
+	private final LongMap<IntArray> cells = new LongMap<IntArray>();
+	
+	private final ArrayList<Body>
+		/* The bodies indexed by ID, destroyed bodies leave a null. */
+		bodies = new ArrayList<Body>(),
+		/* Bodies added while updating, registered once the update finishes. */
+		pendingAdds = new ArrayList<Body>(),
+		/* Bodies removed while updating, unregistered once the update finishes. */
+		pendingRemoves = new ArrayList<Body>();
+	
+	private final IntArray
+		/* The IDs of destroyed bodies, reused before new IDs are issued. */
+		freeIds = new IntArray(),
+		/* The IDs of the bodies whose transform changed since the last update. */
+		dirty = new IntArray();
+	
+	/* Scratch corners used by the narrow phase. */
+	private final float[] cornersA = new float[8], cornersB = new float[8];
+	
+	private CollisionListener listener;
+	
+	/* True while the pairs are being reported. */
+	private boolean updating;
+	
+	public CollisionWorld(float cellSize, CollisionListener listener) {
+		if (cellSize <= 0)
+			throw new RuntimeException("Cannot create a CollisionWorld with a cell size of " + cellSize);
+		this.cellSize = cellSize;
+		this.listener = listener;
+	}
+	
+	/* Set the listener to report overlapping pairs to. */
+	public void setListener(CollisionListener listener) {
+		this.listener = listener;
+	}
+	
+	/*
+	 * Start detecting collisions of the Graphic. The CollisionWorld adds itself to the
+	 * Graphic's TransformListeners, alongside any listeners it already has.
+	 */
+	public void add(Graphic graphic) {
+		if (bodyOf(graphic) != null)
+			throw new RuntimeException("Graphic " + graphic + " already belongs to a CollisionWorld.");
+		Body body = new Body(graphic);
+		graphic.addTransformListener(body);
+		if (updating)
+			pendingAdds.add(body);
+		else
+			register(body);
+	}
+	
+	/* Stop detecting collisions of the Graphic. */
+	public void remove(Graphic graphic) {
+		Body body = bodyOf(graphic);
+		if (body == null || body.world() != this)
+			throw new RuntimeException("Graphic " + graphic + " does not belong to this CollisionWorld.");
+		graphic.removeTransformListener(body);
+		if (updating)
+			pendingRemoves.add(body);
+		else
+			unregister(body);
+	}
+	
+	/* @return the Body the Graphic has in any CollisionWorld, or null. */
+	private static Body bodyOf(Graphic graphic) {
+		for (int i = 0; i != graphic.transformListenerCount(); i ++)
+			if (graphic.transformListener(i) instanceof Body)
+				return (Body) graphic.transformListener(i);
+		return null;
+	}
+	
+	/* @return the number of Graphics in the CollisionWorld. */
+	public final int size() {
+		return bodies.size() - freeIds.size;
+	}
+	
+	/*
+	 * Rehash the Graphics that moved and report every overlapping pair.
+	 */
+	@Override
+	public void updateWith(InputProxy input) {
+		update();
+	}
+	
+	/*
+	 * Rehash the Graphics that moved and report every overlapping pair.
+	 */
+	public void update() {
+		// Bring the broad phase up to date with the bodies that changed.
+		for (int i = 0; i != dirty.size; i ++) {
+			Body body = bodies.get(dirty.get(i));
+			if (body != null)
+				rehash(body);
+		}
+		dirty.clear();
+		
+		updating = true;
+		try {
+			for (int i = 0; i != bodies.size(); i ++) {
+				Body body = bodies.get(i);
+				if (body != null)
+					reportPairs(body);
+			}
+		} finally {
+			updating = false;
+		}
+		
+		// Apply the changes made by the listener.
+		for (int i = 0; i != pendingRemoves.size(); i ++)
+			unregister(pendingRemoves.get(i));
+		pendingRemoves.clear();
+		for (int i = 0; i != pendingAdds.size(); i ++)
+			register(pendingAdds.get(i));
+		pendingAdds.clear();
+	}
+	
+	/* Report every body with a higher ID that overlaps 'a'. */
+	private void reportPairs(Body a) {
+		for (int cx = a.cellX0; cx <= a.cellX1; cx ++)
+			for (int cy = a.cellY0; cy <= a.cellY1; cy ++) {
+				IntArray cell = cells.get(key(cx, cy));
+				for (int i = 0; i != cell.size; i ++) {
+					int other = cell.get(i);
+					if (other <= a.id)
+						continue;
+					Body b = bodies.get(other);
+					if (b == null || !b.registered)
+						continue;
+					// Only test the pair in the first cell both bodies share, so it is reported once.
+					if (Math.max(a.cellX0, b.cellX0) != cx || Math.max(a.cellY0, b.cellY0) != cy)
+						continue;
+					if (a.overlapsBounds(b) && overlaps(a.graphic, b.graphic) && listener != null)
+						listener.onCollision(a.graphic, b.graphic);
+				}
+			}
+	}
+	
+	/*
+	 * @return true if the two Graphics' rotated boxes overlap, using the
+	 * separating axis test on the boxes' edge normals.
+	 */
+	private boolean overlaps(Graphic a, Graphic b) {
+		// Boxes that are both axis aligned already overlap if their bounds do.
+		if (a.rotation() % 90 == 0 && b.rotation() % 90 == 0)
+			return true;
+		
+		corners(a, cornersA);
+		corners(b, cornersB);
+		return !separated(cornersA, cornersB, a.rotation()) && !separated(cornersA, cornersB, b.rotation());
+	}
+	
+	/* @return true if the boxes are separated along either edge normal of a box rotated by 'degrees'. */
+	private static boolean separated(float[] a, float[] b, float degrees) {
+		float cos = MathUtils.cosDeg(degrees), sin = MathUtils.sinDeg(degrees);
+		return separatedOnAxis(a, b, cos, sin) || separatedOnAxis(a, b, -sin, cos);
+	}
+	
+	private static boolean separatedOnAxis(float[] a, float[] b, float axisX, float axisY) {
+		float minA = Float.MAX_VALUE, maxA = -Float.MAX_VALUE;
+		float minB = Float.MAX_VALUE, maxB = -Float.MAX_VALUE;
+		for (int i = 0; i != 8; i += 2) {
+			float projectedA = a[i] * axisX + a[i + 1] * axisY;
+			float projectedB = b[i] * axisX + b[i + 1] * axisY;
+			minA = Math.min(minA, projectedA);
+			maxA = Math.max(maxA, projectedA);
+			minB = Math.min(minB, projectedB);
+			maxB = Math.max(maxB, projectedB);
+		}
+		return maxA < minB || maxB < minA;
+	}
+	
+	/* Write the four corners of the Graphic's rotated box into 'out'. */
+	private static void corners(Graphic graphic, float[] out) {
+		float cos = MathUtils.cosDeg(graphic.rotation()), sin = MathUtils.sinDeg(graphic.rotation());
+		float halfWidth = graphic.width()/2, halfHeight = graphic.height()/2;
+		float ux = cos * halfWidth, uy = sin * halfWidth;
+		float vx = -sin * halfHeight, vy = cos * halfHeight;
+		
+		out[0] = graphic.x() - ux - vx; out[1] = graphic.y() - uy - vy;
+		out[2] = graphic.x() + ux - vx; out[3] = graphic.y() + uy - vy;
+		out[4] = graphic.x() + ux + vx; out[5] = graphic.y() + uy + vy;
+		out[6] = graphic.x() - ux + vx; out[7] = graphic.y() - uy + vy;
+	}
+	
+	/* Give the body an ID and insert it into the spatial hash. */
+	private void register(Body body) {
+		if (freeIds.size != 0) {
+			body.id = freeIds.pop();
+			bodies.set(body.id, body);
+		} else {
+			body.id = bodies.size();
+			bodies.add(body);
+		}
+		body.registered = true;
+		body.updateBounds();
+		insert(body);
+	}
+	
+	/* Remove the body from the spatial hash and free its ID. */
+	private void unregister(Body body) {
+		// A body added and removed within the same update was never registered.
+		if (!body.registered) {
+			pendingAdds.remove(body);
+			return;
+		}
+		erase(body);
+		bodies.set(body.id, null);
+		freeIds.add(body.id);
+		body.registered = false;
+	}
+	
+	/* Move the body to the cells its current bounds touch. */
+	private void rehash(Body body) {
+		body.dirty = false;
+		int oldX0 = body.cellX0, oldY0 = body.cellY0, oldX1 = body.cellX1, oldY1 = body.cellY1;
+		body.updateBounds();
+		// If the body still touches the same cells there is nothing to move.
+		if (oldX0 == body.cellX0 && oldY0 == body.cellY0 && oldX1 == body.cellX1 && oldY1 == body.cellY1)
+			return;
+		
+		int newX0 = body.cellX0, newY0 = body.cellY0, newX1 = body.cellX1, newY1 = body.cellY1;
+		body.setCells(oldX0, oldY0, oldX1, oldY1);
+		erase(body);
+		body.setCells(newX0, newY0, newX1, newY1);
+		insert(body);
+	}
+	
+	private void insert(Body body) {
+		for (int cx = body.cellX0; cx <= body.cellX1; cx ++)
+			for (int cy = body.cellY0; cy <= body.cellY1; cy ++) {
+				long key = key(cx, cy);
+				IntArray cell = cells.get(key);
+				if (cell == null) {
+					cell = new IntArray(4);
+					cells.put(key, cell);
+				}
+				cell.add(body.id);
+			}
+	}
+	
+	private void erase(Body body) {
+		for (int cx = body.cellX0; cx <= body.cellX1; cx ++)
+			for (int cy = body.cellY0; cy <= body.cellY1; cy ++)
+				cells.get(key(cx, cy)).removeValue(body.id);
+	}
+	
+	/* @return the packed coordinates of the cell. */
+	private static long key(int cellX, int cellY) {
+		return ((long) cellX << 32) | (cellY & 0xffffffffL);
+	}
+	
+	/* A Graphic in the CollisionWorld, with its cached bounds. */
+	private final class Body implements TransformListener {
+		
+		private final Graphic graphic;
+		
+		private int
+			/* The body's index in 'bodies'. */
+			id = -1,
+			/* The range of cells the body's bounds touch. */
+			cellX0, cellY0, cellX1, cellY1;
+		
+		private float
+			/* The body's axis-aligned bounds. */
+			minX, minY, maxX, maxY;
+		
+		private boolean
+			/* True once the body is in the spatial hash. */
+			registered,
+			/* True if the body is waiting to be rehashed. */
+			dirty;
+		
+		private Body(Graphic graphic) {
+			this.graphic = graphic;
+		}
+		
+		@Override
+		public void transformChanged(Graphic graphic) {
+			// Queue the body to be rehashed once, however many times it moves.
+			if (registered && !dirty) {
+				dirty = true;
+				CollisionWorld.this.dirty.add(id);
+			}
+		}
+		
+		/* Recompute the bounds of the Graphic's rotated box and the cells they touch. */
+		private void updateBounds() {
+			float cos = Math.abs(MathUtils.cosDeg(graphic.rotation()));
+			float sin = Math.abs(MathUtils.sinDeg(graphic.rotation()));
+			float halfWidth = graphic.width()/2, halfHeight = graphic.height()/2;
+			float extentX = halfWidth * cos + halfHeight * sin;
+			float extentY = halfWidth * sin + halfHeight * cos;
+			
+			minX = graphic.x() - extentX;
+			maxX = graphic.x() + extentX;
+			minY = graphic.y() - extentY;
+			maxY = graphic.y() + extentY;
+			
+			setCells((int) Math.floor(minX / cellSize), (int) Math.floor(minY / cellSize),
+					(int) Math.floor(maxX / cellSize), (int) Math.floor(maxY / cellSize));
+		}
+		
+		private void setCells(int x0, int y0, int x1, int y1) {
+			cellX0 = x0;
+			cellY0 = y0;
+			cellX1 = x1;
+			cellY1 = y1;
+		}
+		
+		private boolean overlapsBounds(Body other) {
+			return minX <= other.maxX && other.minX <= maxX && minY <= other.maxY && other.minY <= maxY;
+		}
+		
+		private CollisionWorld world() {
+			return CollisionWorld.this;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.jbs.framework.control;
+
+import java.lang.management.ManagementFactory;
+
+/*
+ * Measures the number of bytes allocated by the thread that ticks the GameLoop.
+ * Only loaded when allocation tracking is enabled, because it relies on the
+ * HotSpot management extensions which are not available on every platform.
+ */
+final class AllocationTracker {
+
+	private final com.sun.management.ThreadMXBean threads;
+
+	private final int
+		/* The number of ticks to ignore before frames are considered steady-state. */
+		warmupTicks;
+
+	private final long
+		/* The number of bytes a steady-state tick is allowed to allocate. */
+		allowedBytes;
+
+	private int
+		/* The number of ticks measured so far. */
+		ticks;
+
+	private long
+		/* The thread's allocated byte count when the current tick began. */
+		bytesAtTickStart,
+		/* The number of bytes the measurement itself allocates. */
+		measurementOverhead;
+
+	AllocationTracker(int warmupTicks, long allowedBytes) {
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+			throw new RuntimeException("Allocation tracking is not supported on this platform.");
+		this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported())
+			throw new RuntimeException("Allocation tracking is not supported on this platform.");
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		this.warmupTicks = warmupTicks;
+		this.allowedBytes = allowedBytes;
+		
+		// Some VMs allocate while reporting the allocated byte count, measure it once so
+		// that it is not blamed on the tick.
+		long before = allocatedBytes();
+		this.measurementOverhead = allocatedBytes() - before;
+	}
+
+	/* Mark the beginning of a tick. */
+	void beginTick() {
+		bytesAtTickStart = allocatedBytes();
+	}
+
+	/* Mark the end of a tick, throws if a steady-state tick allocated too much. */
+	void endTick() {
+		long allocated = allocatedBytes() - bytesAtTickStart - measurementOverhead;
+		ticks ++;
+
+		// If we are past the warm up and the tick allocated more than allowed, fail.
+		if (ticks > warmupTicks && allocated > allowedBytes)
+			throw new RuntimeException("Steady-state tick " + ticks + " allocated " + allocated
+					+ " bytes, only " + allowedBytes + " are allowed.");
+	}
+
+	/* @return the number of bytes the current thread has allocated in its lifetime. */
+	private long allocatedBytes() {
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
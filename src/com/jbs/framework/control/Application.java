@@ -1,5 +1,7 @@
 package com.jbs.framework.control;
 
+import java.util.ArrayList;
+
 import com.badlogic.gdx.ApplicationListener;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Camera;
@@ -10,27 +12,78 @@ import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Pixmap.Format;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.utils.IntArray;
+import com.jbs.framework.io.AssetResidency;
 import com.jbs.framework.io.InputProxy;
+import com.jbs.framework.io.Snapshot;
+import com.jbs.framework.io.Snapshottable;
 import com.jbs.framework.rendering.Screen;
+import com.jbs.framework.util.Trace;
 
 public class Application implements ApplicationListener {
 	
 	/* The amount of time to simulate per update call. */
 	private final long timeStep = 20L;
 	
+	/* The number of ticks to ignore when tracking allocations. */
+	private static final int ALLOCATION_WARMUP_TICKS = 120;
+	
+	/* The number of commands that may wait to run on the update thread. */
+	private static final int COMMAND_CAPACITY = 1024;
+	
+	public static final int
+		/* The states below a pushed state keep updating. */
+		UPDATE_BELOW = 1,
+		/* The states below a pushed state keep rendering every frame. */
+		RENDER_BELOW = 2,
+		/* The states below a pushed state are rendered once and shown from that cached frame. */
+		CACHE_BELOW = 4;
+	
 	public final InputProxy input;
 	private Screen screen;
 	
-	private ApplicationState applicationState;
+	/* The stack of states, the current state on top. */
+	private final ArrayList<ApplicationState> states = new ArrayList<ApplicationState>();
+	
+	/* The flags each state was pushed with, the bottom state's are 0. */
+	private final IntArray stateFlags = new IntArray();
+	
+	/* Holds the frame of the states below the topmost CACHE_BELOW state, created when first needed. */
+	private FrameBuffer underlayFrame;
+	
+	/* The index of the state whose lower states underlayFrame holds, -1 if it must be rendered again. */
+	private int cachedUnderlay = -1;
+	
 	private GameLoop gameLoop;
 	private SpriteBatch batch;
 	private Camera camera;
 	
+	/* Keeps the Application's assets within their memory budgets, may be null. */
+	private AssetResidency assetResidency;
+	
+	/* Runs the registered UpdateTasks every update, created when the first task is added. */
+	private UpdateScheduler updateScheduler;
+	
+	/* The commands posted from other threads, run at the start of every tick. */
+	private final CommandQueue commands = new CommandQueue(COMMAND_CAPACITY);
+	
+	/* The longest time in nanoseconds the commands may run for in one tick. */
+	private long commandBudget = 2000000L;
+	
+	/* Runs Jobs in the background, created when the first job is submitted. */
+	private JobScheduler jobScheduler;
+	
+	/* Stepped by the game loop in place of updating the state while set, may be null. */
+	private RollbackSession rollback;
+	
 	private boolean
 		/* True when the application has been initialized with the create() method */
 		created = false,
 		/* True when the Application should render the touches every render. */
-		debugTouches = false;
+		debugTouches = false,
+		/* True when steady-state frames should be asserted to be allocation free. */
+		trackAllocations = false;
 	
 	private Texture dot;
 	
@@ -43,17 +96,8 @@ public class Application implements ApplicationListener {
 	 * @param virtualHeight The virtual coordinate system's height.
 	 */
 	public Application(int virtualWidth, int virtualHeight) {
-		this.screen = new Screen(0, 0, virtualWidth, virtualHeight) {
-			@Override
-			public int actualWidth() {
-				return Gdx.graphics.getWidth();
-			}
-			
-			@Override
-			public int actualHeight() {
-				return Gdx.graphics.getHeight();
-			}
-		};
+		// The actual size is not known until the Application is resized.
+		this.screen = new Screen(0, 0, virtualWidth, virtualHeight);
 		this.input = new InputProxy(this.screen());
 	}
 	
@@ -77,12 +121,25 @@ public class Application implements ApplicationListener {
 	 * Exit the current ApplicationState and enter the new one.
 	 * The ApplicationState will automatically update the Application and
 	 * render to the SpriteBatch.
+	 * Every state pushed on top of the current one is exited as well, from the top down.
 	 * @param newState The new state of the Application.
 	 */
 	public void setState(ApplicationState newState) {
-		ApplicationState oldState = applicationState;
+		long start = Trace.begin();
+		// Exit the pushed states first, the new state replaces the whole stack.
+		while (states.size() > 1)
+			removeTopState(newState);
+		ApplicationState oldState = applicationState();
 		// Bind the application state.
-		applicationState = newState;
+		states.clear();
+		stateFlags.clear();
+		states.add(newState);
+		stateFlags.add(0);
+		cachedUnderlay = -1;
+		
+		// The jobs of the old state are of no use once it is left.
+		if (oldState != null && oldState != newState && jobScheduler != null)
+			jobScheduler.cancel(oldState);
 		
 		// We may not enter or exit states until the application is created.
 		if (created) {
@@ -93,6 +150,75 @@ public class Application implements ApplicationListener {
 			// Enter our new state immediately.
 			newState.enterState();
 		}
+		Trace.end(Trace.SET_STATE, start);
+	}
+	
+	/**
+	 * Push a state on top of the current one, such as a pause menu or an overlay. The
+	 * current state is not exited, so popping the pushed state returns to it without
+	 * entering it again.
+	 * @param state The state to push, which becomes the current state.
+	 * @param flags What the states below keep doing, a combination of UPDATE_BELOW and
+	 * RENDER_BELOW, or CACHE_BELOW to show them paused from a single rendered frame.
+	 */
+	public void pushState(ApplicationState state, int flags) {
+		if (states.isEmpty())
+			throw new RuntimeException("Cannot push a state before the Application has one, use setState().");
+		if ((flags & CACHE_BELOW) != 0 && (flags & (UPDATE_BELOW | RENDER_BELOW)) != 0)
+			throw new RuntimeException("The states below a pushed state cannot be both cached and updated or rendered.");
+		long start = Trace.begin();
+		states.add(state);
+		stateFlags.add(flags);
+		cachedUnderlay = -1;
+		
+		if (created)
+			state.enterState();
+		Trace.end(Trace.SET_STATE, start);
+	}
+	
+	/**
+	 * Exit the current state and return to the state below it, which is not entered again.
+	 * @return the popped state.
+	 */
+	public ApplicationState popState() {
+		if (states.size() < 2)
+			throw new RuntimeException("Cannot pop the Application's only state, use setState().");
+		long start = Trace.begin();
+		ApplicationState state = removeTopState(null);
+		Trace.end(Trace.SET_STATE, start);
+		return state;
+	}
+	
+	/** @return the number of states on the stack. */
+	public final int stateCount() {
+		return states.size();
+	}
+	
+	/*
+	 * Remove the top state, cancel its jobs and exit it.
+	 * @param next The state taking its place, whose jobs are kept if it is the same state.
+	 */
+	private ApplicationState removeTopState(ApplicationState next) {
+		ApplicationState state = states.remove(states.size() - 1);
+		stateFlags.pop();
+		cachedUnderlay = -1;
+		
+		if (state != next && jobScheduler != null)
+			jobScheduler.cancel(state);
+		if (created)
+			state.exitState();
+		return state;
+	}
+	
+	/*
+	 * @return the index of the lowest state that takes part when looking down from 'top'.
+	 * @param flag The flag that lets the walk continue below a state.
+	 */
+	private int lowestState(int top, int flag) {
+		int lowest = top;
+		while (lowest > 0 && (stateFlags.get(lowest) & flag) != 0)
+			lowest --;
+		return lowest;
 	}
 	
 	@Override
@@ -109,16 +235,24 @@ public class Application implements ApplicationListener {
 		
 		createDot();
 		
-		final Application activeApplication = this;
 		// Create our 'game loop', a control structure for
 		//	controlling the rendering and updating of our application.
 		gameLoop = new GameLoop(timeStep) {
 			@Override
 			void update() {
-				// If we have a bound application state.
-				if (applicationState() != null)
-					// Update our application with the currently bound application state.
-					applicationState().updateApplication(activeApplication);
+				// Deliver the outcomes of the finished jobs before the state updates.
+				deliverFinishedJobs();
+				updateStates(null);
+				runUpdateTasks();
+			}
+			
+			@Override
+			void updateWithRollback(RollbackSession session) {
+				// The session replaces the simulation of its game, everything else still runs.
+				deliverFinishedJobs();
+				session.step();
+				updateStates(session.game());
+				runUpdateTasks();
 			}
 			
 			@Override
@@ -129,29 +263,72 @@ public class Application implements ApplicationListener {
 			}
 		};
 		
+		if (trackAllocations)
+			gameLoop.trackAllocations(ALLOCATION_WARMUP_TICKS, 0);
+		gameLoop.drainCommands(commands, commandBudget);
+		gameLoop.setRollback(rollback);
+		
 		// Initialize our batch of to which we will render to.
 		batch = new SpriteBatch();
 		
 		// Mark the application as created.
 		created = true;
 		
-		// If we have a bound application state, enter it.
-		if (applicationState() != null)
-			applicationState().enterState();
+		// Enter the bound application states, from the bottom up.
+		for (int i = 0; i != states.size(); i ++)
+			states.get(i).enterState();
 	}
 
+	/* Deliver the outcomes of the finished jobs on the update thread. */
+	private void deliverFinishedJobs() {
+		if (jobScheduler != null)
+			jobScheduler.deliverFinished();
+	}
+	
+	/*
+	 * Update the current state and every state below it that keeps updating, from the
+	 * bottom up, except 'skipped', which is simulated by the rollback session.
+	 */
+	private void updateStates(Object skipped) {
+		// If we have a bound application state.
+		if (applicationState() == null)
+			return;
+		// The bound is checked every time as states may push or pop.
+		for (int i = lowestState(states.size() - 1, UPDATE_BELOW); i < states.size(); i ++) {
+			ApplicationState state = states.get(i);
+			if (state != skipped)
+				state.updateApplication(this);
+		}
+	}
+	
+	/* Run the registered update tasks, in parallel where they do not conflict. */
+	private void runUpdateTasks() {
+		if (updateScheduler != null)
+			updateScheduler.update(timeStep);
+	}
+	
 	@Override
 	public void resize(int width, int height) {
+		// Refresh the Screen's cached scale factors for the new size.
+		screen().resize(width, height);
+		
 		final float FOV = 67;
 		PerspectiveCamera cam = new PerspectiveCamera(FOV, screen().virtualWidth(), screen().virtualHeight());
 		cam.near = 0.1f;
 		cam.far = 10000f;
 		cam.translate(screen().virtualWidth()/2, screen.virtualHeight()/2, 581);
 		this.camera = cam;
+		
+		// The cached frame no longer matches the viewport.
+		cachedUnderlay = -1;
 	}
 
 	@Override
 	public void render() {
+		// Advance background loads and evict released assets that no longer fit.
+		if (assetResidency != null)
+			assetResidency.update();
+		
 		// Defer the control of simulating and updating
 		//	of the application to the game loop.
 		gameLoop.tick(batch);
@@ -164,12 +341,18 @@ public class Application implements ApplicationListener {
 
 	@Override
 	public void resume() {
-		
+		// The cached frame is lost with the OpenGL context.
+		cachedUnderlay = -1;
 	}
 
 	@Override
 	public void dispose() {
-		
+		if (updateScheduler != null)
+			updateScheduler.dispose();
+		if (jobScheduler != null)
+			jobScheduler.dispose();
+		if (underlayFrame != null)
+			underlayFrame.dispose();
 	}
 	
 	/**
@@ -180,8 +363,15 @@ public class Application implements ApplicationListener {
 	}
 	
 	public void beginRenderingState(Camera camera, SpriteBatch batch) {
+		// Render the paused states below the current one into their cached frame if it is stale.
+		int lowest = lowestRenderedState();
+		if ((stateFlags.get(lowest) & CACHE_BELOW) != 0 && cachedUnderlay != lowest)
+			cacheUnderlay(camera, batch, lowest);
+		
 		Gdx.gl.glClearColor(0, 0, 0.2f, 1);
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+		// Restrict rendering to the Screen's viewport, leaving any bars cleared.
+		Gdx.gl.glViewport(screen().viewportX(), screen().viewportY(), screen().viewportWidth(), screen().viewportHeight());
 		finishRenderingState(camera, batch);
 	}
 	
@@ -191,8 +381,20 @@ public class Application implements ApplicationListener {
 		batch.setProjectionMatrix(camera.combined);
 		batch.begin();
 		
-		// Render the application's state to our sprite batch.
-		applicationState().renderTo(batch);
+		// Draw the cached frame of the paused states, then render the states above it
+		// to our sprite batch from the bottom up.
+		int lowest = lowestRenderedState();
+		if ((stateFlags.get(lowest) & CACHE_BELOW) != 0 && cachedUnderlay == lowest) {
+			// The frame replaces what is below it, its alpha is not meaningful.
+			boolean blending = batch.isBlendingEnabled();
+			batch.disableBlending();
+			batch.draw(underlayFrame.getColorBufferTexture(),
+					0, 0, screen().virtualWidth(), screen().virtualHeight(), 0, 0, 1, 1);
+			if (blending)
+				batch.enableBlending();
+		}
+		for (int i = lowest; i != states.size(); i ++)
+			states.get(i).renderTo(batch);
 		
 		if (debugTouches)
 			batch.draw(dot, input.getX(), input.getY());
@@ -200,11 +402,177 @@ public class Application implements ApplicationListener {
 		batch.end();
 	}
 	
+	/* @return the index of the lowest state rendered every frame. */
+	private int lowestRenderedState() {
+		return lowestState(states.size() - 1, RENDER_BELOW);
+	}
+	
+	/*
+	 * Render the states below 'layer' into the cached frame, where they are shown
+	 * from until a state is pushed or popped.
+	 */
+	private void cacheUnderlay(Camera camera, SpriteBatch batch, int layer) {
+		int width = screen().viewportWidth(), height = screen().viewportHeight();
+		// Nothing can be cached until the Screen has a size.
+		if (width <= 0 || height <= 0)
+			return;
+		if (underlayFrame == null || underlayFrame.getWidth() != width || underlayFrame.getHeight() != height) {
+			if (underlayFrame != null)
+				underlayFrame.dispose();
+			underlayFrame = new FrameBuffer(Format.RGBA8888, width, height, false);
+		}
+		
+		// The FrameBuffer covers the viewport, so the camera maps the virtual screen onto all of it.
+		underlayFrame.begin();
+		Gdx.gl.glClearColor(0, 0, 0.2f, 1);
+		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+		camera.update();
+		batch.setProjectionMatrix(camera.combined);
+		batch.begin();
+		// A deeper CACHE_BELOW state is rendered live into this frame instead of from its own.
+		for (int i = lowestState(layer - 1, RENDER_BELOW | CACHE_BELOW); i != layer; i ++)
+			states.get(i).renderTo(batch);
+		batch.end();
+		underlayFrame.end();
+		cachedUnderlay = layer;
+	}
+	
 	/** Set whether the Application should automatically draw touches. */
 	protected final void setDebugTouches(boolean flag) {
 		this.debugTouches = flag;
 	}
 	
+	/**
+	 * Set the AssetResidency that manages the Application's assets. It is updated
+	 * once per frame, before the game loop ticks.
+	 */
+	protected final void setAssetResidency(AssetResidency residency) {
+		this.assetResidency = residency;
+	}
+	
+	/** @return the AssetResidency that manages the Application's assets, or null. */
+	public final AssetResidency assetResidency() {
+		return assetResidency;
+	}
+	
+	/**
+	 * Register an UpdateTask to run every update after the ApplicationState has updated.
+	 * Tasks that do not conflict with each other run in parallel.
+	 */
+	public void addUpdateTask(UpdateTask task) {
+		if (updateScheduler == null)
+			updateScheduler = new UpdateScheduler();
+		updateScheduler.add(task);
+	}
+	
+	/**
+	 * Unregister an UpdateTask.
+	 */
+	public void removeUpdateTask(UpdateTask task) {
+		if (updateScheduler != null)
+			updateScheduler.remove(task);
+	}
+	
+	/**
+	 * Enable the rollback mode. Every fixed step advances the session's RollbackGame,
+	 * which rolls back and resimulates when a late input contradicts a prediction.
+	 * Finished jobs are still delivered, update tasks still run and the states still
+	 * update, except a state that is itself the session's RollbackGame, which only
+	 * the session advances. A null session disables it.
+	 */
+	protected final void setRollback(RollbackSession session) {
+		this.rollback = session;
+		if (gameLoop != null)
+			gameLoop.setRollback(session);
+	}
+	
+	/** @return the session stepped in the rollback mode, or null. */
+	public final RollbackSession rollback() {
+		return rollback;
+	}
+	
+	/**
+	 * Capture the current ApplicationState into 'snapshot', the state must implement
+	 * Snapshottable.
+	 */
+	public final void captureState(Snapshot snapshot) {
+		snapshot.capture(snapshottableState());
+	}
+	
+	/**
+	 * Restore the current ApplicationState from 'snapshot', it must have been captured
+	 * from a state of the same structure.
+	 */
+	public final void restoreState(Snapshot snapshot) {
+		snapshot.restore(snapshottableState());
+	}
+	
+	/** @return the current ApplicationState as a Snapshottable, throws if it is not. */
+	private Snapshottable snapshottableState() {
+		if (!(applicationState() instanceof Snapshottable))
+			throw new RuntimeException("The current ApplicationState does not implement Snapshottable.");
+		return (Snapshottable) applicationState();
+	}
+	
+	/**
+	 * Run 'job' on a background thread. Its outcome is delivered at the start of an update,
+	 * before the ApplicationState updates, and the job is cancelled if the Application
+	 * leaves the current ApplicationState first.
+	 */
+	public final void submitJob(Job<?> job, JobScheduler.Priority priority) {
+		if (jobScheduler == null)
+			jobScheduler = new JobScheduler();
+		jobScheduler.submit(job, priority, applicationState());
+	}
+	
+	/**
+	 * Run 'job' on a background thread with normal priority.
+	 */
+	public final void submitJob(Job<?> job) {
+		submitJob(job, JobScheduler.Priority.NORMAL);
+	}
+	
+	/**
+	 * Post a command to run on the thread that updates and renders the Application,
+	 * at the start of the next tick. Safe to call from any thread, this is the way for
+	 * loaders, network callbacks and audio threads to change the ApplicationState or
+	 * create textures.
+	 * @return false if too many commands are waiting and the command was refused.
+	 */
+	public final boolean post(Runnable command) {
+		return commands.post(command);
+	}
+	
+	/** @return the queue of posted commands, for its backpressure statistics. */
+	public final CommandQueue commandQueue() {
+		return commands;
+	}
+	
+	/**
+	 * Set the longest time in nanoseconds the posted commands may run for in one tick,
+	 * the rest wait for the next tick.
+	 */
+	protected final void setCommandBudget(long budgetNanos) {
+		this.commandBudget = budgetNanos;
+		if (gameLoop != null)
+			gameLoop.drainCommands(commands, budgetNanos);
+	}
+	
+	/**
+	 * Set whether every steady-state frame should be asserted to be allocation free.
+	 * When enabled, a frame that allocates after the warm up throws a RuntimeException.
+	 */
+	protected final void setAllocationTracking(boolean flag) {
+		this.trackAllocations = flag;
+		// If the game loop already exists, apply the change immediately.
+		if (gameLoop != null) {
+			if (flag)
+				gameLoop.trackAllocations(ALLOCATION_WARMUP_TICKS, 0);
+			else
+				gameLoop.stopTrackingAllocations();
+		}
+	}
+	
 	/**
 	 * @return the Application's camera.
 	 */
@@ -212,9 +580,9 @@ public class Application implements ApplicationListener {
 		return camera;
 	}
 	
-	/** @return the currently bound ApplicationState. */
+	/** @return the currently bound ApplicationState, the top of the stack. */
 	protected ApplicationState applicationState() {
-		return applicationState;
+		return states.isEmpty() ? null : states.get(states.size() - 1);
 	}
 	
 	/** @return the Application's Screen. */
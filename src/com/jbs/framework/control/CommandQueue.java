@@ -0,0 +1,175 @@
+package com.jbs.framework.control;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * A bounded queue of commands posted from any thread and run by the thread that ticks
+ * the GameLoop. Posting never blocks or takes a lock: every slot of the ring carries a
+ * sequence number that tells producers whether it is free and the consumer whether it
+ * has been published. When the queue is full the command is refused and counted, so
+ * producers can see the backpressure and decide whether to retry, drop or coalesce.
+ * Only one thread may drain the queue.
+ */
+public final class CommandQueue {
+	
+	private final int
+		/* The number of slots, a power of two. */
+		capacity,
+		/* capacity - 1, maps a position to its slot. */
+		mask;
+	
+	/* The commands in the ring, null where a slot is free. */
+	private final AtomicReferenceArray<Runnable> commands;
+	
+	/* The sequence number of every slot. A slot at position p is free for the producer
+	 * when its sequence is p, and published for the consumer when it is p + 1. */
+	private final AtomicLongArray sequences;
+	
+	/* The next position a producer claims. */
+	private final AtomicLong tail = new AtomicLong();
+	
+	/* The next position the consumer runs, only touched by the draining thread. */
+	private long head;
+	
+	private final AtomicLong
+		/* The number of commands accepted. */
+		posted = new AtomicLong(),
+		/* The number of commands refused because the queue was full. */
+		rejected = new AtomicLong();
+	
+	private long
+		/* The number of commands run. */
+		executed,
+		/* The number of drains that ran out of time before the queue was empty. */
+		overBudgetDrains,
+		/* The most commands found waiting at the beginning of a drain. */
+		highWaterMark;
+	
+	/*
+	 * Create a queue holding at most 'capacity' commands, rounded up to a power of two.
+	 */
+	public CommandQueue(int capacity) {
+		if (capacity <= 0 || capacity > 1 << 30)
+			throw new RuntimeException("Cannot create a CommandQueue with a capacity of " + capacity + ".");
+		int size = 1;
+		while (size < capacity)
+			size <<= 1;
+		this.capacity = size;
+		this.mask = this.capacity - 1;
+		this.commands = new AtomicReferenceArray<Runnable>(this.capacity);
+		this.sequences = new AtomicLongArray(this.capacity);
+		for (int i = 0; i != this.capacity; i ++)
+			sequences.set(i, i);
+	}
+	
+	/*
+	 * Post 'command' to be run on the thread that ticks the GameLoop. Safe to call
+	 * from any thread.
+	 * @return false if the queue was full and the command was refused.
+	 */
+	public boolean post(Runnable command) {
+		if (command == null)
+			throw new RuntimeException("Cannot post a null command.");
+		
+		long position;
+		while (true) {
+			position = tail.get();
+			long sequence = sequences.get((int) position & mask);
+			long difference = sequence - position;
+			if (difference == 0) {
+				// The slot is free, claim it unless another producer did first.
+				if (tail.compareAndSet(position, position + 1))
+					break;
+			} else if (difference < 0) {
+				// The consumer has not freed the slot yet, the queue is full.
+				rejected.incrementAndGet();
+				return false;
+			}
+			// Another producer claimed the slot, try the next position.
+		}
+		
+		// Store the command, then publish it to the consumer.
+		int slot = (int) position & mask;
+		commands.lazySet(slot, command);
+		sequences.lazySet(slot, position + 1);
+		posted.incrementAndGet();
+		return true;
+	}
+	
+	/*
+	 * Run the queued commands in the order they were posted until the queue is empty
+	 * or 'budgetNanos' nanoseconds have passed. At least one command is run if there is
+	 * one, so the queue always makes progress. Commands left over run in the next drain.
+	 * @return the number of commands run.
+	 */
+	int drain(long budgetNanos) {
+		long waiting = tail.get() - head;
+		if (waiting == 0)
+			return 0;
+		if (waiting > highWaterMark)
+			highWaterMark = waiting;
+		
+		final long deadline = System.nanoTime() + budgetNanos;
+		int ran = 0;
+		while (true) {
+			int slot = (int) head & mask;
+			// Stop at a slot that is empty or claimed but not yet published.
+			if (sequences.get(slot) != head + 1)
+				break;
+			
+			Runnable command = commands.get(slot);
+			commands.lazySet(slot, null);
+			// Free the slot for the producers one lap ahead before running the command,
+			// so a command that throws is not run again.
+			sequences.lazySet(slot, head + capacity);
+			head ++;
+			executed ++;
+			ran ++;
+			command.run();
+			
+			if (System.nanoTime() >= deadline) {
+				if (sequences.get((int) head & mask) == head + 1)
+					overBudgetDrains ++;
+				break;
+			}
+		}
+		return ran;
+	}
+	
+	/* @return the maximum number of commands the queue holds. */
+	public int capacity() {
+		return capacity;
+	}
+	
+	/* @return an estimate of the number of commands waiting to run. */
+	public int size() {
+		return (int) Math.max(0, Math.min(capacity, tail.get() - head));
+	}
+	
+	/* @return the number of commands accepted since the queue was created. */
+	public long posted() {
+		return posted.get();
+	}
+	
+	/* @return the number of commands refused because the queue was full. */
+	public long rejected() {
+		return rejected.get();
+	}
+	
+	/* @return the number of commands run, only exact on the draining thread. */
+	public long executed() {
+		return executed;
+	}
+	
+	/* @return the number of drains that ran out of time with commands left, only exact on the draining thread. */
+	public long overBudgetDrains() {
+		return overBudgetDrains;
+	}
+	
+	/* @return the most commands found waiting at the start of a drain, only exact on the draining thread. */
+	public long highWaterMark() {
+		return highWaterMark;
+	}
+}
@@ -1,6 +1,7 @@
 package com.jbs.framework.control;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.jbs.framework.util.Trace;
 
 public abstract class GameLoop {
 	
@@ -12,6 +13,18 @@ public abstract class GameLoop {
 		/* The last time that the tick() method was called. */
 		lastTickTime;
 	
+	/* Non-null while the allocation-tracking mode is enabled. */
+	private AllocationTracker allocationTracker;
+	
+	/* The commands posted from other threads, drained at the start of every tick, may be null. */
+	private CommandQueue commands;
+	
+	/* The longest time in nanoseconds the commands may run for in one tick. */
+	private long commandBudget;
+	
+	/* Non-null while the rollback mode is enabled, stepped in place of update(). */
+	private RollbackSession rollback;
+	
 	/*
 	 * timeStep is measured in milliseconds and represents
 	 * the amount of time to simulate in one update call.
@@ -27,6 +40,14 @@ public abstract class GameLoop {
 	 */
 	abstract void update();
 	
+	/*
+	 * Simulate 'timeStep' in the rollback mode. By default only the session is stepped,
+	 * override to also run the parts of update() that are not simulated by the session.
+	 */
+	void updateWithRollback(RollbackSession session) {
+		session.step();
+	}
+	
 	/*
 	 * Render the game to the specified SpriteBatch.
 	 */
@@ -40,20 +61,72 @@ public abstract class GameLoop {
 	public final void tick(SpriteBatch batch) {
 		assert lag >= 0 && timeStep > 0;
 		
+		if (allocationTracker != null)
+			allocationTracker.beginTick();
+		
+		// Run the commands posted from other threads before anything is updated.
+		if (commands != null) {
+			long commandsStart = Trace.begin();
+			commands.drain(commandBudget);
+			Trace.end(Trace.COMMANDS, commandsStart);
+		}
+		
 		// Add (the amount of time that has passed since the last tick) to (the lag)
 		lag += getTime() - lastTickTime;
 		lastTickTime = getTime();
 		
 		// While we can simulate more time
 		while (lag >= timeStep) {
-			// Simulate (timeStep) amount of time
-			update();
+			// Simulate (timeStep) amount of time, rolling back and resimulating
+			// within this step if the rollback mode is enabled.
+			long updateStart = Trace.begin();
+			if (rollback != null)
+				updateWithRollback(rollback);
+			else
+				update();
+			Trace.end(Trace.UPDATE, updateStart);
 			// Subtract the amount of time simulated from our remaining lag
 			lag -= timeStep;
 		}
 		
 		// Finally, after updating the game as much as possible, render.
+		long renderStart = Trace.begin();
 		renderTo(batch);
+		Trace.end(Trace.RENDER, renderStart);
+		
+		if (allocationTracker != null)
+			allocationTracker.endTick();
+	}
+	
+	/*
+	 * Enable the allocation-tracking mode. After 'warmupTicks' ticks every tick
+	 * that allocates more than 'allowedBytes' on the ticking thread throws a
+	 * RuntimeException. Intended for tests and debug builds on desktop VMs.
+	 */
+	public final void trackAllocations(int warmupTicks, long allowedBytes) {
+		allocationTracker = new AllocationTracker(warmupTicks, allowedBytes);
+	}
+	
+	/* Disable the allocation-tracking mode. */
+	public final void stopTrackingAllocations() {
+		allocationTracker = null;
+	}
+	
+	/*
+	 * Drain 'queue' at the start of every tick, running its commands for at most
+	 * 'budgetNanos' nanoseconds per tick. A null queue stops draining.
+	 */
+	public final void drainCommands(CommandQueue queue, long budgetNanos) {
+		this.commands = queue;
+		this.commandBudget = budgetNanos;
+	}
+	
+	/*
+	 * Enable the rollback mode, every fixed step calls updateWithRollback() in place
+	 * of update(). A null session disables the rollback mode.
+	 */
+	public final void setRollback(RollbackSession session) {
+		this.rollback = session;
 	}
 	
 	/* @return the amount of time to simulate per update call. */
@@ -0,0 +1,78 @@
+package com.jbs.framework.control;
+
+/*
+ * Work run on a background thread by the JobScheduler, whose outcome is delivered
+ * back on the update thread. execute() must not touch the ApplicationState, textures
+ * or anything else owned by the update thread, completed() and failed() may.
+ * Long jobs should check isCancelled() now and then and return early once it is set.
+ */
+public abstract class Job<Result> {
+	
+	/* Set once the job is cancelled, read by the worker running it. */
+	private volatile boolean cancelled;
+	
+	/* The value execute() returned, handed to the update thread by the scheduler. */
+	Result result;
+	
+	/* The exception or error execute() threw, null if it did not. */
+	Throwable failure;
+	
+	/*
+	 * Do the job's work, called on a worker thread.
+	 * @return the value passed to completed().
+	 */
+	protected abstract Result execute();
+	
+	/*
+	 * React to the job finishing, called on the update thread unless the job was cancelled.
+	 */
+	protected void completed(Result result) { }
+	
+	/*
+	 * React to execute() throwing, called on the update thread unless the job was
+	 * cancelled. Anything other than a RuntimeException, such as an Error, arrives
+	 * wrapped in a RuntimeException. Rethrows the exception unless overridden.
+	 */
+	protected void failed(RuntimeException exception) {
+		throw exception;
+	}
+	
+	/*
+	 * Cancel the job. A job that has not started never runs, a running job is expected
+	 * to notice isCancelled() and neither completed() nor failed() is called afterwards.
+	 */
+	public final void cancel() {
+		cancelled = true;
+	}
+	
+	/* @return true if the job was cancelled. */
+	public final boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/*
+	 * Run execute() on the worker and keep its outcome.
+	 */
+	final void runOnWorker() {
+		try {
+			result = execute();
+		} catch (Throwable throwable) {
+			// Keep errors too, otherwise the job would be delivered as if it had completed.
+			failure = throwable;
+		}
+	}
+	
+	/*
+	 * Deliver the job's outcome on the update thread.
+	 */
+	final void deliver() {
+		if (cancelled)
+			return;
+		if (failure instanceof RuntimeException)
+			failed((RuntimeException) failure);
+		else if (failure != null)
+			failed(new RuntimeException("Job " + this + " failed on its worker.", failure));
+		else
+			completed(result);
+	}
+}
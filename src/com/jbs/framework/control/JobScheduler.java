@@ -0,0 +1,167 @@
+package com.jbs.framework.control;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Runs Jobs on a pool of background threads and delivers their outcomes on the update
+ * thread. Waiting jobs start in order of priority, and in the order they were submitted
+ * within a priority. Every job may belong to an ApplicationState, so that the jobs of a
+ * state can be cancelled when the Application leaves it.
+ */
+public class JobScheduler {
+	
+	/*
+	 * The order in which waiting jobs start.
+	 */
+	public enum Priority {
+		/* Jobs the player is waiting for. */
+		HIGH,
+		NORMAL,
+		/* Jobs that may wait for everything else, like prefetching. */
+		LOW
+	}
+	
+	/*
+	 * A submitted job with the information needed to order and cancel it.
+	 */
+	private final class Entry implements Runnable, Comparable<Entry> {
+		
+		final Job<?> job;
+		
+		final Priority priority;
+		
+		/* The ApplicationState the job belongs to, may be null. */
+		final ApplicationState owner;
+		
+		/* Breaks ties between jobs of the same priority in submission order. */
+		final long sequence;
+		
+		Entry(Job<?> job, Priority priority, ApplicationState owner, long sequence) {
+			this.job = job;
+			this.priority = priority;
+			this.owner = owner;
+			this.sequence = sequence;
+		}
+		
+		@Override
+		public void run() {
+			// The entry must reach the update thread whatever happens, or it stays pending forever.
+			try {
+				if (!job.isCancelled())
+					job.runOnWorker();
+			} finally {
+				finished.add(this);
+			}
+		}
+		
+		@Override
+		public int compareTo(Entry other) {
+			if (priority != other.priority)
+				return priority.compareTo(other.priority);
+			return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+		}
+	}
+	
+	private final ThreadPoolExecutor workers;
+	
+	/* The jobs submitted and not yet delivered, only touched by the update thread. */
+	private final ArrayList<Entry> pending = new ArrayList<Entry>();
+	
+	/* The jobs the workers finished, waiting to be delivered on the update thread. */
+	private final ConcurrentLinkedQueue<Entry> finished = new ConcurrentLinkedQueue<Entry>();
+	
+	/* The number of jobs submitted so far. */
+	private long submitted;
+	
+	/*
+	 * Create a scheduler with 'threads' worker threads.
+	 */
+	public JobScheduler(int threads) {
+		threads = Math.max(threads, 1);
+		this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+			private int created;
+			
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "job-worker-" + (created ++));
+				thread.setDaemon(true);
+				// Jobs should not take time from the update and render thread.
+				thread.setPriority(Thread.NORM_PRIORITY - 1);
+				return thread;
+			}
+		});
+	}
+	
+	/*
+	 * Create a scheduler with one worker per core, minus the core running the update thread.
+	 */
+	public JobScheduler() {
+		this(Runtime.getRuntime().availableProcessors() - 1);
+	}
+	
+	/*
+	 * Submit 'job' to run on a worker, it is cancelled when 'owner' is cancelled.
+	 * Must be called from the update thread.
+	 */
+	public void submit(Job<?> job, Priority priority, ApplicationState owner) {
+		if (job.isCancelled())
+			throw new RuntimeException("Cannot submit a Job that was cancelled.");
+		Entry entry = new Entry(job, priority, owner, submitted ++);
+		pending.add(entry);
+		workers.execute(entry);
+	}
+	
+	/*
+	 * Cancel every job belonging to 'owner'. Jobs that have not started are removed from
+	 * the workers' queue, running jobs are flagged and their outcomes are dropped.
+	 */
+	public void cancel(ApplicationState owner) {
+		for (int i = pending.size() - 1; i >= 0; i --) {
+			Entry entry = pending.get(i);
+			if (entry.owner != owner)
+				continue;
+			entry.job.cancel();
+			// A job that was still waiting will never reach 'finished'.
+			if (workers.remove(entry))
+				pending.remove(i);
+		}
+	}
+	
+	/*
+	 * Deliver the outcome of every job that finished since the last call. Must be called
+	 * from the update thread.
+	 */
+	public void deliverFinished() {
+		Entry entry;
+		while ((entry = finished.poll()) != null) {
+			pending.remove(entry);
+			entry.job.deliver();
+		}
+	}
+	
+	/* @return the number of jobs submitted and not yet delivered. */
+	public final int pendingCount() {
+		return pending.size();
+	}
+	
+	/* @return the number of worker threads. */
+	public final int workerCount() {
+		return workers.getCorePoolSize();
+	}
+	
+	/*
+	 * Stop the workers, jobs that have not started never run.
+	 */
+	public void dispose() {
+		for (int i = 0; i != pending.size(); i ++)
+			pending.get(i).job.cancel();
+		pending.clear();
+		workers.shutdownNow();
+	}
+}
@@ -0,0 +1,93 @@
+package com.jbs.framework.control;
+
+import java.util.Random;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/*
+ * A RollbackTransport between peers in the same process, with artificial latency and
+ * jitter, for testing rollback without a network. Create the peers with connect().
+ * Jitter can reorder inputs, like a real network.
+ */
+public final class LoopbackTransport implements RollbackTransport {
+	
+	/*
+	 * An input on its way to a peer.
+	 */
+	private static final class Packet implements Comparable<Packet> {
+		
+		final int player, frame, input;
+		
+		/* The time in milliseconds when the input arrives. */
+		final long arrival;
+		
+		Packet(int player, int frame, int input, long arrival) {
+			this.player = player;
+			this.frame = frame;
+			this.input = input;
+			this.arrival = arrival;
+		}
+		
+		@Override
+		public int compareTo(Packet other) {
+			return arrival < other.arrival ? -1 : (arrival == other.arrival ? 0 : 1);
+		}
+	}
+	
+	/* The player sending through this end. */
+	private final int player;
+	
+	/* The inputs on their way to this end. */
+	private final PriorityBlockingQueue<Packet> incoming = new PriorityBlockingQueue<Packet>();
+	
+	/* The other ends of the connection. */
+	private LoopbackTransport[] peers;
+	
+	private final long
+		/* The time in milliseconds every input takes to arrive. */
+		latency,
+		/* The most time in milliseconds randomly added to the latency. */
+		jitter;
+	
+	private final Random random;
+	
+	private LoopbackTransport(int player, long latency, long jitter, long seed) {
+		this.player = player;
+		this.latency = latency;
+		this.jitter = jitter;
+		this.random = new Random(seed);
+	}
+	
+	/*
+	 * Create one connected transport per player, every input takes 'latency' and up to
+	 * 'jitter' more milliseconds to arrive. The transport at index p belongs to player p.
+	 */
+	public static LoopbackTransport[] connect(int players, long latency, long jitter) {
+		LoopbackTransport[] transports = new LoopbackTransport[players];
+		for (int i = 0; i != players; i ++)
+			transports[i] = new LoopbackTransport(i, latency, jitter, i);
+		for (int i = 0; i != players; i ++)
+			transports[i].peers = transports;
+		return transports;
+	}
+	
+	@Override
+	public void send(int frame, int input) {
+		for (int i = 0; i != peers.length; i ++) {
+			if (i == player)
+				continue;
+			long delay = latency + (jitter > 0 ? (long) (random.nextDouble() * jitter) : 0);
+			peers[i].incoming.add(new Packet(player, frame, input, GameLoop.getTime() + delay));
+		}
+	}
+	
+	@Override
+	public void receive(RollbackSession session) {
+		long now = GameLoop.getTime();
+		Packet packet;
+		while ((packet = incoming.peek()) != null && packet.arrival <= now) {
+			// A packet added since the peek can only arrive earlier, so the head is due either way.
+			packet = incoming.poll();
+			session.receiveInput(packet.player, packet.frame, packet.input);
+		}
+	}
+}
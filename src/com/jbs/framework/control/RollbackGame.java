@@ -0,0 +1,17 @@
+package com.jbs.framework.control;
+
+import com.jbs.framework.io.Snapshottable;
+
+/*
+ * A simulation run by a RollbackSession. Advancing must be deterministic: the same
+ * state and inputs must always produce the same next state, on every peer. The state
+ * written to a snapshot must be everything advance() depends on.
+ */
+public interface RollbackGame extends Snapshottable {
+	
+	/* @return the local player's input, sampled once for every new frame. */
+	public int sampleInput();
+	
+	/* Simulate one fixed step with the input of every player, indexed by player. */
+	public void advance(int[] inputs);
+}
@@ -0,0 +1,298 @@
+package com.jbs.framework.control;
+
+import com.jbs.framework.io.Snapshot;
+import com.jbs.framework.util.Trace;
+
+/*
+ * Runs a RollbackGame in step with other peers without waiting for their inputs.
+ * Every frame the local input is sent to the peers and the inputs that have not arrived
+ * yet are predicted to repeat the player's previous input. The state at the start of
+ * every recent frame is kept in a ring of snapshots, so when an input arrives that differs
+ * from its prediction the game is restored to that frame and resimulated up to the present
+ * within the same tick.
+ * A session stalls instead of advancing when a peer falls so far behind that rolling back
+ * to its oldest missing input would need more frames than the session keeps.
+ * Every peer must use the same number of players and the same input delay.
+ */
+public class RollbackSession {
+	
+	private final RollbackGame game;
+	
+	private final RollbackTransport transport;
+	
+	private final int
+		/* The number of players, one of which is local. */
+		players,
+		localPlayer,
+		/* The most frames the session may roll back. */
+		maxRollback,
+		/* The number of frames between sampling the local input and using it. */
+		inputDelay,
+		/* The number of frames of input kept in the ring. */
+		inputRingSize;
+	
+	/* The state at the start of each of the latest frames, indexed by frame % the length. */
+	private final Snapshot[] snapshots;
+	
+	/* The input of every player for each frame of the ring, at (frame % ring) * players + player. */
+	private final int[] inputs;
+	
+	/* True where an input in 'inputs' was received rather than predicted. */
+	private final boolean[] confirmed;
+	
+	/* The frame each slot of the input ring currently holds. */
+	private final int[] inputFrames;
+	
+	/* The first frame of every player whose input has not been received. */
+	private final int[] nextUnconfirmed;
+	
+	/* The inputs passed to the game, reused every frame. */
+	private final int[] frameInputs;
+	
+	/* The frame about to be simulated. */
+	private int currentFrame;
+	
+	/* The earliest frame simulated with a wrong prediction, NO_ROLLBACK if none. */
+	private int rollbackFrame = NO_ROLLBACK;
+	
+	private static final int NO_ROLLBACK = Integer.MAX_VALUE;
+	
+	private int
+		/* The number of rollbacks so far. */
+		rollbacks,
+		/* The number of frames resimulated by the last rollback. */
+		lastRollbackDepth,
+		/* The most frames resimulated by one rollback. */
+		maxRollbackDepth,
+		/* The number of steps the session did not advance because a peer was too far behind. */
+		stalls;
+	
+	private long
+		/* The number of frames resimulated so far. */
+		resimulatedFrames,
+		/* The time in nanoseconds the last rollback took. */
+		lastResimulationTime,
+		/* The longest time in nanoseconds a rollback took. */
+		maxResimulationTime;
+	
+	/*
+	 * Create a session for 'players' players, the local one being 'localPlayer'.
+	 * The session rolls back at most 'maxRollback' frames and uses the local input
+	 * 'inputDelay' frames after it was sampled, which hides that much latency entirely.
+	 */
+	public RollbackSession(RollbackGame game, RollbackTransport transport, int players, int localPlayer,
+			int maxRollback, int inputDelay) {
+		if (players <= 0 || localPlayer < 0 || localPlayer >= players)
+			throw new RuntimeException("Cannot create a RollbackSession for player " + localPlayer + " of " + players + ".");
+		if (maxRollback <= 0 || inputDelay < 0)
+			throw new RuntimeException("A RollbackSession needs a positive rollback window and an input delay >= 0.");
+		this.game = game;
+		this.transport = transport;
+		this.players = players;
+		this.localPlayer = localPlayer;
+		this.maxRollback = maxRollback;
+		this.inputDelay = inputDelay;
+		
+		// A peer can be ahead of the oldest unconfirmed frame by the rollback window and
+		// the input delay on both sides.
+		this.inputRingSize = 2 * (maxRollback + inputDelay) + 2;
+		this.inputs = new int[inputRingSize * players];
+		this.confirmed = new boolean[inputRingSize * players];
+		this.inputFrames = new int[inputRingSize];
+		for (int i = 0; i != inputRingSize; i ++)
+			inputFrames[i] = -1;
+		this.nextUnconfirmed = new int[players];
+		this.frameInputs = new int[players];
+		
+		this.snapshots = new Snapshot[maxRollback + 1];
+		for (int i = 0; i != snapshots.length; i ++)
+			snapshots[i] = new Snapshot(1024);
+		
+		// Nobody has input for the frames hidden by the input delay.
+		for (int frame = 0; frame != inputDelay; frame ++)
+			for (int player = 0; player != players; player ++)
+				confirmInput(player, frame, 0);
+	}
+	
+	/*
+	 * Advance the session by one frame, first rolling back if an input that arrived
+	 * contradicts a prediction.
+	 * @return false if the session stalled, waiting for a peer that is too far behind.
+	 */
+	public boolean step() {
+		transport.receive(this);
+		if (rollbackFrame != NO_ROLLBACK)
+			resimulate();
+		
+		// Rolling back to the oldest missing input must stay within the snapshots kept.
+		if (currentFrame - confirmedFrame() >= maxRollback) {
+			stalls ++;
+			return false;
+		}
+		
+		// Sample the local input for a later frame and share it.
+		int inputFrame = currentFrame + inputDelay;
+		int input = game.sampleInput();
+		confirmInput(localPlayer, inputFrame, input);
+		transport.send(inputFrame, input);
+		
+		snapshots[currentFrame % snapshots.length].capture(game);
+		simulate(currentFrame);
+		currentFrame ++;
+		return true;
+	}
+	
+	/*
+	 * Accept a peer's input for 'frame', called by the transport.
+	 */
+	public void receiveInput(int player, int frame, int input) {
+		if (player < 0 || player >= players || player == localPlayer)
+			throw new RuntimeException("Received an input for player " + player + ", which is not a peer.");
+		// Inputs already received are ignored.
+		if (frame < nextUnconfirmed[player] || isConfirmed(player, frame))
+			return;
+		
+		// An input for a simulated frame that differs from its prediction needs a rollback.
+		if (frame < currentFrame && inputs[inputIndex(player, frame)] != input)
+			rollbackFrame = Math.min(rollbackFrame, frame);
+		confirmInput(player, frame, input);
+	}
+	
+	/*
+	 * Restore the state at the start of the earliest mispredicted frame and simulate
+	 * every frame since again with the corrected inputs.
+	 */
+	private void resimulate() {
+		final long traceStart = Trace.begin();
+		final long startTime = System.nanoTime();
+		final int from = rollbackFrame;
+		rollbackFrame = NO_ROLLBACK;
+		
+		snapshots[from % snapshots.length].restore(game);
+		for (int frame = from; frame != currentFrame; frame ++) {
+			if (frame != from)
+				snapshots[frame % snapshots.length].capture(game);
+			simulate(frame);
+		}
+		
+		// Keep the metrics.
+		int depth = currentFrame - from;
+		long time = System.nanoTime() - startTime;
+		rollbacks ++;
+		lastRollbackDepth = depth;
+		maxRollbackDepth = Math.max(maxRollbackDepth, depth);
+		resimulatedFrames += depth;
+		lastResimulationTime = time;
+		maxResimulationTime = Math.max(maxResimulationTime, time);
+		Trace.end(Trace.ROLLBACK, traceStart);
+	}
+	
+	/*
+	 * Gather every player's input for 'frame', predicting the missing ones, and advance the game.
+	 */
+	private void simulate(int frame) {
+		claimFrame(frame);
+		for (int player = 0; player != players; player ++) {
+			int index = inputIndex(player, frame);
+			if (!confirmed[index])
+				// Predict that the player still does what they did in the previous frame.
+				inputs[index] = frame == 0 ? 0 : inputs[inputIndex(player, frame - 1)];
+			frameInputs[player] = inputs[index];
+		}
+		game.advance(frameInputs);
+	}
+	
+	/*
+	 * Store a received or local input and move the player's first unconfirmed frame past it.
+	 */
+	private void confirmInput(int player, int frame, int input) {
+		if (frame - confirmedFrame() >= inputRingSize - 1)
+			throw new RuntimeException("Received an input for frame " + frame + ", too far ahead of frame "
+					+ confirmedFrame() + " for the RollbackSession's input ring.");
+		claimFrame(frame);
+		int index = inputIndex(player, frame);
+		inputs[index] = input;
+		confirmed[index] = true;
+		
+		while (isConfirmed(player, nextUnconfirmed[player]))
+			nextUnconfirmed[player] ++;
+	}
+	
+	/*
+	 * Make the slot of the input ring for 'frame' hold that frame, clearing what it held before.
+	 */
+	private void claimFrame(int frame) {
+		int slot = frame % inputRingSize;
+		if (inputFrames[slot] == frame)
+			return;
+		inputFrames[slot] = frame;
+		for (int player = 0; player != players; player ++) {
+			inputs[slot * players + player] = 0;
+			confirmed[slot * players + player] = false;
+		}
+	}
+	
+	/* @return true if the player's input for 'frame' has been received. */
+	private boolean isConfirmed(int player, int frame) {
+		int slot = frame % inputRingSize;
+		return inputFrames[slot] == frame && confirmed[slot * players + player];
+	}
+	
+	/* @return the index of the player's input for 'frame' in the ring. */
+	private int inputIndex(int player, int frame) {
+		return (frame % inputRingSize) * players + player;
+	}
+	
+	/* @return the game the session advances. */
+	public final RollbackGame game() {
+		return game;
+	}
+	
+	/* @return the first frame for which some player's input has not been received. */
+	public final int confirmedFrame() {
+		int oldest = Integer.MAX_VALUE;
+		for (int player = 0; player != players; player ++)
+			oldest = Math.min(oldest, nextUnconfirmed[player]);
+		return oldest;
+	}
+	
+	/* @return the frame about to be simulated. */
+	public final int currentFrame() {
+		return currentFrame;
+	}
+	
+	/* @return the number of rollbacks so far. */
+	public final int rollbacks() {
+		return rollbacks;
+	}
+	
+	/* @return the number of frames resimulated by the last rollback. */
+	public final int lastRollbackDepth() {
+		return lastRollbackDepth;
+	}
+	
+	/* @return the most frames resimulated by one rollback. */
+	public final int maxRollbackDepth() {
+		return maxRollbackDepth;
+	}
+	
+	/* @return the number of frames resimulated so far. */
+	public final long resimulatedFrames() {
+		return resimulatedFrames;
+	}
+	
+	/* @return the time in nanoseconds the last rollback took. */
+	public final long lastResimulationTime() {
+		return lastResimulationTime;
+	}
+	
+	/* @return the longest time in nanoseconds a rollback took. */
+	public final long maxResimulationTime() {
+		return maxResimulationTime;
+	}
+	
+	/* @return the number of steps the session waited for a peer that was too far behind. */
+	public final int stalls() {
+		return stalls;
+	}
+}
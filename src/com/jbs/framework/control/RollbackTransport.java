@@ -0,0 +1,14 @@
+package com.jbs.framework.control;
+
+/*
+ * Carries the local player's inputs to the other peers of a RollbackSession and
+ * hands theirs back. Inputs must arrive eventually, but may arrive late and out of order.
+ */
+public interface RollbackTransport {
+	
+	/* Send the local player's input for 'frame' to every other peer. */
+	public void send(int frame, int input);
+	
+	/* Pass every input that has arrived to session.receiveInput(). */
+	public void receive(RollbackSession session);
+}
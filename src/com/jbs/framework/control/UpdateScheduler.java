@@ -0,0 +1,190 @@
+package com.jbs.framework.control;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * Runs registered UpdateTasks once per fixed update. Tasks are grouped into stages
+ * in registration order: a task is placed in the stage after the last stage holding
+ * a task it conflicts with. Stages run one after another and the tasks within a
+ * stage run in parallel, so conflicting tasks always run in registration order and
+ * the result does not depend on thread timing.
+ */
+public class UpdateScheduler {
+	
+	private final ExecutorService workers;
+	
+	private final ArrayList<UpdateTask>
+		/* Every task in registration order. */
+		tasks = new ArrayList<UpdateTask>();
+	
+	/* The tasks of every stage, rebuilt when tasks are added or removed. */
+	private UpdateTask[][] stages = new UpdateTask[0][];
+	
+	/* One reusable Runnable per task of the widest stage. */
+	private final ArrayList<StageRunner> runners = new ArrayList<StageRunner>();
+	
+	/* Guards 'remaining' and 'failure' while a stage runs. */
+	private final Object stageLock = new Object();
+	
+	/* The number of tasks of the current stage still running on workers. */
+	private int remaining;
+	
+	/* The first failure of the current stage, rethrown on the update thread. */
+	private Throwable failure;
+	
+	/*
+	 * Create a scheduler with 'threads' worker threads. The update thread also runs
+	 * tasks, so one less than the number of cores is usually right.
+	 */
+	public UpdateScheduler(int threads) {
+		this.workers = Executors.newFixedThreadPool(Math.max(threads, 1), new ThreadFactory() {
+			private int created;
+			
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "update-worker-" + (created ++));
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	public UpdateScheduler() {
+		this(Runtime.getRuntime().availableProcessors() - 1);
+	}
+	
+	/* Register the task, it runs every update after the tasks registered before it that it conflicts with. */
+	public void add(UpdateTask task) {
+		tasks.add(task);
+		rebuildStages();
+	}
+	
+	/* Unregister the task. */
+	public void remove(UpdateTask task) {
+		tasks.remove(task);
+		rebuildStages();
+	}
+	
+	/* @return the number of stages the tasks are split into. */
+	public final int stageCount() {
+		return stages.length;
+	}
+	
+	/*
+	 * Run every task once, blocking until they have all finished. Must be called
+	 * from the update thread.
+	 */
+	public void update(long timeStep) {
+		for (UpdateTask[] stage : stages)
+			runStage(stage, timeStep);
+	}
+	
+	/* Stop the worker threads, the scheduler cannot be used afterwards. */
+	public void dispose() {
+		workers.shutdownNow();
+	}
+	
+	private void runStage(UpdateTask[] stage, long timeStep) {
+		// A single task gains nothing from a worker.
+		if (stage.length == 1) {
+			stage[0].update(timeStep);
+			return;
+		}
+		
+		synchronized (stageLock) {
+			remaining = stage.length - 1;
+			failure = null;
+		}
+		
+		// Hand every task but the first to the workers, and run the first here.
+		for (int i = 1; i != stage.length; i ++) {
+			StageRunner runner = runners.get(i);
+			runner.task = stage[i];
+			runner.timeStep = timeStep;
+			workers.execute(runner);
+		}
+		Throwable localFailure = null;
+		try {
+			stage[0].update(timeStep);
+		} catch (Throwable t) {
+			localFailure = t;
+		}
+		
+		// Wait for the workers to finish the stage.
+		synchronized (stageLock) {
+			while (remaining != 0) {
+				try {
+					stageLock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while waiting for update tasks.", e);
+				}
+			}
+			if (localFailure == null)
+				localFailure = failure;
+		}
+		
+		if (localFailure instanceof RuntimeException)
+			throw (RuntimeException) localFailure;
+		if (localFailure instanceof Error)
+			throw (Error) localFailure;
+		if (localFailure != null)
+			throw new RuntimeException(localFailure);
+	}
+	
+	/* Group the tasks into stages so that no stage holds two conflicting tasks. */
+	private void rebuildStages() {
+		ArrayList<ArrayList<UpdateTask>> grouped = new ArrayList<ArrayList<UpdateTask>>();
+		for (int i = 0; i != tasks.size(); i ++) {
+			UpdateTask task = tasks.get(i);
+			
+			// Find the last stage holding a task this one conflicts with.
+			int stage = 0;
+			for (int s = grouped.size() - 1; s >= 0 && stage == 0; s --)
+				for (UpdateTask other : grouped.get(s))
+					if (task.conflictsWith(other)) {
+						stage = s + 1;
+						break;
+					}
+			
+			if (stage == grouped.size())
+				grouped.add(new ArrayList<UpdateTask>());
+			grouped.get(stage).add(task);
+		}
+		
+		stages = new UpdateTask[grouped.size()][];
+		for (int s = 0; s != stages.length; s ++) {
+			stages[s] = grouped.get(s).toArray(new UpdateTask[grouped.get(s).size()]);
+			// Make sure there is a runner for every task of the widest stage.
+			while (runners.size() < stages[s].length)
+				runners.add(new StageRunner());
+		}
+	}
+	
+	/* Runs one task of a stage on a worker and reports back when it is done. */
+	private final class StageRunner implements Runnable {
+		
+		private UpdateTask task;
+		private long timeStep;
+		
+		@Override
+		public void run() {
+			Throwable thrown = null;
+			try {
+				task.update(timeStep);
+			} catch (Throwable t) {
+				thrown = t;
+			}
+			
+			synchronized (stageLock) {
+				if (thrown != null && failure == null)
+					failure = thrown;
+				remaining --;
+				stageLock.notifyAll();
+			}
+		}
+	}
+}
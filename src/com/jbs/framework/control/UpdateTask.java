@@ -0,0 +1,69 @@
+package com.jbs.framework.control;
+
+import java.util.ArrayList;
+
+/*
+ * A unit of work run once per fixed update by an UpdateScheduler, such as physics,
+ * AI or animation stepping. A task declares the resources it reads and writes,
+ * any Objects that identify shared data, so that the scheduler can run tasks
+ * that do not conflict in parallel.
+ */
+public abstract class UpdateTask {
+	
+	private final String name;
+	
+	private final ArrayList<Object>
+		/* The resources the task reads. */
+		reads = new ArrayList<Object>(),
+		/* The resources the task writes. */
+		writes = new ArrayList<Object>();
+	
+	public UpdateTask(String name) {
+		this.name = name;
+	}
+	
+	/*
+	 * Simulate one time step. Called from a worker thread, or from the
+	 * update thread, at the same point of every fixed update.
+	 */
+	public abstract void update(long timeStep);
+	
+	/* Declare resources the task reads. @return the task. */
+	public final UpdateTask reads(Object... resources) {
+		for (Object resource : resources)
+			reads.add(resource);
+		return this;
+	}
+	
+	/* Declare resources the task writes. @return the task. */
+	public final UpdateTask writes(Object... resources) {
+		for (Object resource : resources)
+			writes.add(resource);
+		return this;
+	}
+	
+	/* @return the task's name. */
+	public final String name() {
+		return name;
+	}
+	
+	/*
+	 * @return true if the two tasks may not run at the same time, because one
+	 * writes a resource the other reads or writes.
+	 */
+	final boolean conflictsWith(UpdateTask other) {
+		return intersects(writes, other.writes) || intersects(writes, other.reads) || intersects(reads, other.writes);
+	}
+	
+	private static boolean intersects(ArrayList<Object> a, ArrayList<Object> b) {
+		for (int i = 0; i != a.size(); i ++)
+			if (b.contains(a.get(i)))
+				return true;
+		return false;
+	}
+	
+	@Override
+	public String toString() {
+		return name;
+	}
+}
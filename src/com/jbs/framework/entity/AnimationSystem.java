@@ -0,0 +1,65 @@
+package com.jbs.framework.entity;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.jbs.framework.io.InputProxy;
+import com.jbs.framework.rendering.Animation;
+import com.jbs.framework.rendering.Graphic;
+
+/*
+ * Bridges existing Animations into a World by setting each entity's Graphic to the
+ * Animation's current sprite. The Graphic is sized to the sprite's region in texture
+ * pixels and offset by its trim offset, so trimmed frames of different sizes keep their
+ * place in the untrimmed sprite; the Graphic's scale sizes it in the world. The texture
+ * is only replaced when the frame changes.
+ */
+public class AnimationSystem extends EntitySystem {
+	
+	private final ObjectComponents<? extends Animation> animations;
+	private final ObjectComponents<? extends Graphic> graphics;
+	
+	/* The frame last shown by each entity, plus one so that 0 means none. */
+	private int[] shownFrames = new int[0];
+	
+	public AnimationSystem(ObjectComponents<? extends Animation> animations, ObjectComponents<? extends Graphic> graphics) {
+		super(animations, graphics);
+		this.animations = animations;
+		this.graphics = graphics;
+	}
+	
+	@Override
+	protected void update(InputProxy input, int[] entities, int count) {
+		for (int i = 0; i != count; i ++) {
+			int entity = entities[i];
+			if (entity >= shownFrames.length)
+				growShownFrames(entity + 1);
+			
+			Animation animation = animations.get(entity);
+			int frame = animation.currentSpriteID() + 1;
+			// Only replace the region when the animation has moved to another frame, the
+			// regions come from the Animation's shared table so nothing is allocated.
+			if (frame != shownFrames[entity]) {
+				shownFrames[entity] = frame;
+				Graphic graphic = graphics.get(entity);
+				TextureRegion region = animation.spriteTable()[frame - 1];
+				graphic.setTexture(region);
+				// Each trimmed frame has its own size, only resize when it differs.
+				if (graphic.srcWidth() != region.getRegionWidth() || graphic.srcHeigt() != region.getRegionHeight())
+					graphic.setSize(region.getRegionWidth(), region.getRegionHeight());
+				graphic.setTextureOffset(animation.frameOffsetX(frame - 1), animation.frameOffsetY(frame - 1));
+			}
+		}
+	}
+	
+	@Override
+	protected void entityAdded(int entity) {
+		// A reused entity ID has not shown any frame yet.
+		if (entity < shownFrames.length)
+			shownFrames[entity] = 0;
+	}
+	
+	private void growShownFrames(int capacity) {
+		int[] newFrames = new int[Math.max(capacity, shownFrames.length * 2)];
+		System.arraycopy(shownFrames, 0, newFrames, 0, shownFrames.length);
+		shownFrames = newFrames;
+	}
+}
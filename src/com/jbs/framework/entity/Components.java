@@ -0,0 +1,58 @@
+package com.jbs.framework.entity;
+
+/*
+ * Storage for one type of component, indexed by entity ID. Subclasses keep their
+ * data in primitive arrays so that EntitySystems can process it in tight loops.
+ */
+public abstract class Components {
+	
+	private World world;
+	
+	/* The index of the Components in the World, and its bit in an entity's mask. */
+	private int type = -1;
+	
+	/* Bind the Components to the World, called once when they are registered. */
+	final void bind(World world, int type) {
+		if (this.world != null)
+			throw new RuntimeException("Components may only be registered with one World.");
+		this.world = world;
+		this.type = type;
+	}
+	
+	/* Make room for entity IDs up to 'capacity'. */
+	protected abstract void ensureCapacity(int capacity);
+	
+	/* Reset the entity's data when the component is removed from it. */
+	protected void clear(int entity) { }
+	
+	/* @return true if the entity has this component. */
+	public final boolean has(int entity) {
+		return world().hasComponent(entity, type);
+	}
+	
+	/*
+	 * Remove this component from the entity. During a system pass the entity's data is
+	 * kept until the pass ends, so the running system can still read it.
+	 */
+	public final void remove(int entity) {
+		world().removeComponent(entity, type);
+	}
+	
+	/* Mark this component as attached to the entity, called by subclasses when data is added. */
+	protected final void attach(int entity) {
+		world().attach(entity, type);
+	}
+	
+	/* @return the bit of this component in an entity's mask. */
+	final long mask() {
+		if (world == null)
+			throw new RuntimeException("Components must be registered with a World before use.");
+		return 1L << type;
+	}
+	
+	private World world() {
+		if (world == null)
+			throw new RuntimeException("Components must be registered with a World before use.");
+		return world;
+	}
+}
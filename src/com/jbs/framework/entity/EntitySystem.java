@@ -0,0 +1,101 @@
+package com.jbs.framework.entity;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.jbs.framework.io.InputProxy;
+
+/*
+ * Processes every entity that has all of the required Components. The World keeps
+ * the matching entities packed in one array, so update and renderTo can iterate
+ * them linearly without virtual dispatch per entity.
+ */
+public abstract class EntitySystem {
+	
+	/* The Components an entity must have to be processed. */
+	private final Components[] required;
+	
+	/* The combined mask of the required Components. */
+	private long mask;
+	
+	private int[]
+		/* The packed IDs of the matching entities. */
+		entities = new int[16],
+		/* The index of each entity in 'entities', or -1 if it does not match. */
+		indices = new int[0];
+	
+	/* The number of matching entities. */
+	private int count;
+	
+	public EntitySystem(Components... required) {
+		this.required = required;
+	}
+	
+	/*
+	 * Update the matching entities. 'entities' holds 'count' entity IDs.
+	 */
+	protected abstract void update(InputProxy input, int[] entities, int count);
+	
+	/*
+	 * Render the matching entities. 'entities' holds 'count' entity IDs.
+	 */
+	protected void renderTo(SpriteBatch batch, int[] entities, int count) { }
+	
+	/* React to the entity starting to match the system. */
+	protected void entityAdded(int entity) { }
+	
+	/* React to the entity no longer matching the system. */
+	protected void entityRemoved(int entity) { }
+	
+	/* @return the number of entities the system processes. */
+	public final int entityCount() {
+		return count;
+	}
+	
+	/* @return the packed IDs of the entities the system processes. */
+	final int[] entities() {
+		return entities;
+	}
+	
+	/* Bind the system to its World, the required Components must be registered by now. */
+	final void bind(World world, int capacity) {
+		mask = 0;
+		for (Components components : required)
+			mask |= components.mask();
+		ensureCapacity(capacity);
+	}
+	
+	/* Add or remove the entity depending on whether its mask matches. */
+	final void refresh(int entity, long entityMask) {
+		boolean matches = entityMask != 0 && (entityMask & mask) == mask;
+		int index = indices[entity];
+		
+		if (matches && index == -1) {
+			// Append the entity to the packed list.
+			if (count == entities.length) {
+				int[] newEntities = new int[count * 2];
+				System.arraycopy(entities, 0, newEntities, 0, count);
+				entities = newEntities;
+			}
+			indices[entity] = count;
+			entities[count ++] = entity;
+			entityAdded(entity);
+		} else if (!matches && index != -1) {
+			// Move the last entity into the removed entity's slot.
+			int last = entities[-- count];
+			entities[index] = last;
+			indices[last] = index;
+			indices[entity] = -1;
+			entityRemoved(entity);
+		}
+	}
+	
+	/* Make room for entity IDs up to 'capacity'. */
+	final void ensureCapacity(int capacity) {
+		if (indices.length >= capacity)
+			return;
+		int[] newIndices = new int[capacity];
+		System.arraycopy(indices, 0, newIndices, 0, indices.length);
+		for (int i = indices.length; i != capacity; i ++)
+			newIndices[i] = -1;
+		indices = newIndices;
+	}
+}
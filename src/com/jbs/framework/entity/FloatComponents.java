@@ -0,0 +1,64 @@
+package com.jbs.framework.entity;
+
+/*
+ * Components made of a fixed number of float fields, packed into one array
+ * with 'stride' floats per entity.
+ */
+public class FloatComponents extends Components {
+	
+	/* The number of floats per entity. */
+	private final int stride;
+	
+	/* The packed field values, the fields of entity e begin at e * stride. */
+	private float[] data = new float[0];
+	
+	public FloatComponents(int stride) {
+		if (stride <= 0)
+			throw new RuntimeException("Cannot create FloatComponents with a stride of " + stride);
+		this.stride = stride;
+	}
+	
+	/* Add the component to the entity with every field set to 0. */
+	public void add(int entity) {
+		clear(entity);
+		attach(entity);
+	}
+	
+	/* @return the value of the entity's field. */
+	public final float get(int entity, int field) {
+		return data[entity * stride + field];
+	}
+	
+	/* Set the value of the entity's field. */
+	public final void set(int entity, int field, float value) {
+		data[entity * stride + field] = value;
+	}
+	
+	/*
+	 * @return the packed field values, for EntitySystems that process many
+	 * entities at once. The array is replaced when the World grows.
+	 */
+	public final float[] data() {
+		return data;
+	}
+	
+	/* @return the number of floats per entity. */
+	public final int stride() {
+		return stride;
+	}
+	
+	@Override
+	protected void ensureCapacity(int capacity) {
+		if (data.length >= capacity * stride)
+			return;
+		float[] newData = new float[capacity * stride];
+		System.arraycopy(data, 0, newData, 0, data.length);
+		data = newData;
+	}
+	
+	@Override
+	protected void clear(int entity) {
+		for (int i = entity * stride, end = i + stride; i != end; i ++)
+			data[i] = 0;
+	}
+}
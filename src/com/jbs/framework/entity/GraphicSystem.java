@@ -0,0 +1,40 @@
+package com.jbs.framework.entity;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.jbs.framework.io.InputProxy;
+import com.jbs.framework.rendering.Graphic;
+
+/*
+ * Bridges existing Graphics (and Buttons) into a World. Every update the entity's
+ * transform is copied into its Graphic, and the Graphics are rendered in entity order.
+ */
+public class GraphicSystem extends EntitySystem {
+	
+	private final TransformComponents transforms;
+	private final ObjectComponents<? extends Graphic> graphics;
+	
+	public GraphicSystem(TransformComponents transforms, ObjectComponents<? extends Graphic> graphics) {
+		super(transforms, graphics);
+		this.transforms = transforms;
+		this.graphics = graphics;
+	}
+	
+	@Override
+	protected void update(InputProxy input, int[] entities, int count) {
+		final float[] transform = transforms.data();
+		final int stride = transforms.stride();
+		
+		for (int i = 0; i != count; i ++) {
+			int entity = entities[i], base = entity * stride;
+			Graphic graphic = graphics.get(entity);
+			graphic.setPosition(transform[base + TransformComponents.X], transform[base + TransformComponents.Y]);
+			graphic.setRotation(transform[base + TransformComponents.ROTATION]);
+		}
+	}
+	
+	@Override
+	protected void renderTo(SpriteBatch batch, int[] entities, int count) {
+		for (int i = 0; i != count; i ++)
+			graphics.get(entities[i]).renderTo(batch);
+	}
+}
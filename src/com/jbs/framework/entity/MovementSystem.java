@@ -0,0 +1,34 @@
+package com.jbs.framework.entity;
+
+import com.jbs.framework.io.InputProxy;
+
+/*
+ * Moves every entity with a transform and a velocity by its velocity once per update.
+ * Velocities are (x, y, rotation) in units per update.
+ */
+public class MovementSystem extends EntitySystem {
+	
+	private final TransformComponents transforms;
+	private final FloatComponents velocities;
+	
+	public MovementSystem(TransformComponents transforms, FloatComponents velocities) {
+		super(transforms, velocities);
+		if (velocities.stride() != transforms.stride())
+			throw new RuntimeException("Velocities must have the same stride as the transforms they move.");
+		this.transforms = transforms;
+		this.velocities = velocities;
+	}
+	
+	@Override
+	protected void update(InputProxy input, int[] entities, int count) {
+		final float[] transform = transforms.data(), velocity = velocities.data();
+		final int stride = transforms.stride();
+		
+		for (int i = 0; i != count; i ++) {
+			int base = entities[i] * stride;
+			transform[base + TransformComponents.X] += velocity[base + TransformComponents.X];
+			transform[base + TransformComponents.Y] += velocity[base + TransformComponents.Y];
+			transform[base + TransformComponents.ROTATION] += velocity[base + TransformComponents.ROTATION];
+		}
+	}
+}
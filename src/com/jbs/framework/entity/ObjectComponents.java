@@ -0,0 +1,38 @@
+package com.jbs.framework.entity;
+
+/*
+ * Components that reference existing Objects, used to bridge framework objects
+ * such as Graphics, Buttons and Animations into a World.
+ */
+public class ObjectComponents<Type> extends Components {
+	
+	private Object[] objects = new Object[0];
+	
+	/* Attach 'object' to the entity. */
+	public void add(int entity, Type object) {
+		if (object == null)
+			throw new RuntimeException("Cannot add a null component to entity " + entity);
+		objects[entity] = object;
+		attach(entity);
+	}
+	
+	/* @return the Object attached to the entity, or null if there is none. */
+	@SuppressWarnings("unchecked")
+	public final Type get(int entity) {
+		return (Type) objects[entity];
+	}
+	
+	@Override
+	protected void ensureCapacity(int capacity) {
+		if (objects.length >= capacity)
+			return;
+		Object[] newObjects = new Object[capacity];
+		System.arraycopy(objects, 0, newObjects, 0, objects.length);
+		objects = newObjects;
+	}
+	
+	@Override
+	protected void clear(int entity) {
+		objects[entity] = null;
+	}
+}
@@ -0,0 +1,24 @@
+package com.jbs.framework.entity;
+
+/*
+ * The position and rotation of entities, (x, y, rotation in degrees) per entity.
+ */
+public class TransformComponents extends FloatComponents {
+	
+	public static final int
+		X = 0,
+		Y = 1,
+		ROTATION = 2;
+	
+	public TransformComponents() {
+		super(3);
+	}
+	
+	/* Add the transform to the entity with its center at (x, y). */
+	public void add(int entity, float x, float y, float rotation) {
+		add(entity);
+		set(entity, X, x);
+		set(entity, Y, y);
+		set(entity, ROTATION, rotation);
+	}
+}
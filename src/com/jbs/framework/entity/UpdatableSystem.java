@@ -0,0 +1,24 @@
+package com.jbs.framework.entity;
+
+import com.jbs.framework.io.InputProxy;
+import com.jbs.framework.util.Updatable;
+
+/*
+ * Bridges existing Updatables, such as Buttons, into a World by updating them
+ * with the World's input in entity order.
+ */
+public class UpdatableSystem extends EntitySystem {
+	
+	private final ObjectComponents<? extends Updatable> updatables;
+	
+	public UpdatableSystem(ObjectComponents<? extends Updatable> updatables) {
+		super(updatables);
+		this.updatables = updatables;
+	}
+	
+	@Override
+	protected void update(InputProxy input, int[] entities, int count) {
+		for (int i = 0; i != count; i ++)
+			updatables.get(entities[i]).updateWith(input);
+	}
+}
@@ -0,0 +1,330 @@
+package com.jbs.framework.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.jbs.framework.io.InputProxy;
+import com.jbs.framework.util.RenderableUpdatable;
+
+/*
+ * A collection of entities, the Components attached to them and the EntitySystems
+ * that process them. Entities are plain integer IDs, their data lives in the
+ * primitive arrays of the registered Components, and every EntitySystem keeps a
+ * packed list of the entities it matches so it can iterate them linearly.
+ * A World is itself a RenderableUpdatable, so it can be updated and rendered by
+ * an ApplicationState like any other object.
+ * While a system is updated or rendered, destroying entities and attaching or
+ * detaching Components does not change the systems' lists of entities, the changes
+ * are applied once the system is done so that it never skips an entity. The data of
+ * removed Components is likewise kept until then, so the system never reads cleared data.
+ */
+public class World extends RenderableUpdatable {
+	
+	/* The maximum number of Components that may be registered, one bit each in an entity's mask. */
+	public static final int MAX_COMPONENT_TYPES = 64;
+	
+	private final ArrayList<Components>
+		/* The registered Components, indexed by their type. */
+		components = new ArrayList<Components>();
+	
+	private final ArrayList<EntitySystem>
+		/* The systems, updated and rendered in the order they were added. */
+		systems = new ArrayList<EntitySystem>();
+	
+	private long[]
+		/* The mask of Components attached to each entity. */
+		masks;
+	
+	private boolean[]
+		/* True for every entity ID that is currently alive. */
+		alive,
+		/* True for every entity destroyed during a system pass, which is destroyed after it. */
+		dying,
+		/* True for every entity whose system membership is refreshed after the system pass. */
+		refreshPending;
+	
+	private int[]
+		/* The IDs of destroyed entities, reused before new IDs are issued. */
+		freeIds,
+		/* The entities destroyed during the current system pass. */
+		pendingDestroys = new int[16],
+		/* The entities whose system membership changed during the current system pass. */
+		pendingRefreshes = new int[16],
+		/* The (entity, type) pairs of the Components removed during the current system pass. */
+		pendingClears = new int[32];
+	
+	private int
+		/* The number of entities the World has room for without growing. */
+		capacity,
+		/* The number of IDs in 'freeIds'. */
+		freeCount,
+		/* The lowest ID that has never been issued. */
+		nextId,
+		/* The number of living entities. */
+		entityCount,
+		/* The number of entities in 'pendingDestroys'. */
+		pendingDestroyCount,
+		/* The number of entities in 'pendingRefreshes'. */
+		pendingRefreshCount,
+		/* The number of ints in 'pendingClears', two per removed Component. */
+		pendingClearCount;
+	
+	/* True while a system is iterating its entities. */
+	private boolean iterating;
+	
+	public World(int initialCapacity) {
+		this.capacity = Math.max(initialCapacity, 1);
+		this.masks = new long[capacity];
+		this.alive = new boolean[capacity];
+		this.dying = new boolean[capacity];
+		this.refreshPending = new boolean[capacity];
+		this.freeIds = new int[capacity];
+	}
+	
+	public World() {
+		this(1024);
+	}
+	
+	/*
+	 * Register the Components with the World. Components must be registered
+	 * before any EntitySystem that requires them is added.
+	 * @return the Components.
+	 */
+	public <T extends Components> T register(T store) {
+		if (components.size() == MAX_COMPONENT_TYPES)
+			throw new RuntimeException("Cannot register more than " + MAX_COMPONENT_TYPES + " Components.");
+		store.bind(this, components.size());
+		store.ensureCapacity(capacity);
+		components.add(store);
+		return store;
+	}
+	
+	/*
+	 * Add the EntitySystem to the World, it immediately matches the living entities.
+	 * @return the EntitySystem.
+	 */
+	public <T extends EntitySystem> T addSystem(T system) {
+		system.bind(this, capacity);
+		systems.add(system);
+		// Let the system pick up the entities that already exist.
+		for (int entity = 0; entity != nextId; entity ++)
+			if (alive[entity])
+				system.refresh(entity, masks[entity]);
+		return system;
+	}
+	
+	/*
+	 * Create a new entity without any Components.
+	 * @return the ID of the new entity.
+	 */
+	public int create() {
+		int entity;
+		// Reuse a destroyed entity's ID if there is one.
+		if (freeCount != 0)
+			entity = freeIds[-- freeCount];
+		else {
+			if (nextId == capacity)
+				grow(capacity * 2);
+			entity = nextId ++;
+		}
+		alive[entity] = true;
+		masks[entity] = 0;
+		entityCount ++;
+		return entity;
+	}
+	
+	/*
+	 * Destroy the entity, removing all of its Components. During a system pass the
+	 * entity is no longer alive immediately, but keeps its Components until the pass ends.
+	 */
+	public void destroy(int entity) {
+		assertAlive(entity);
+		if (iterating) {
+			dying[entity] = true;
+			if (pendingDestroyCount == pendingDestroys.length)
+				pendingDestroys = Arrays.copyOf(pendingDestroys, pendingDestroyCount * 2);
+			pendingDestroys[pendingDestroyCount ++] = entity;
+			return;
+		}
+		
+		// Clear the entity's data from every Component it has.
+		long mask = masks[entity];
+		for (int type = 0; type != components.size(); type ++)
+			if ((mask & (1L << type)) != 0)
+				components.get(type).clear(entity);
+		
+		// The entity no longer matches any system.
+		masks[entity] = 0;
+		alive[entity] = false;
+		refresh(entity);
+		
+		freeIds[freeCount ++] = entity;
+		entityCount --;
+	}
+	
+	/*
+	 * @return true if the entity is alive.
+	 */
+	public final boolean isAlive(int entity) {
+		return entity >= 0 && entity < nextId && alive[entity] && !dying[entity];
+	}
+	
+	/*
+	 * @return the number of living entities.
+	 */
+	public final int entityCount() {
+		return entityCount;
+	}
+	
+	/*
+	 * Update every EntitySystem in the order they were added.
+	 */
+	@Override
+	public void updateWith(InputProxy input) {
+		for (int i = 0; i != systems.size(); i ++) {
+			EntitySystem system = systems.get(i);
+			iterating = true;
+			try {
+				system.update(input, system.entities(), system.entityCount());
+			} finally {
+				applyPendingChanges();
+			}
+		}
+	}
+	
+	/*
+	 * Render every EntitySystem in the order they were added.
+	 */
+	@Override
+	public void renderTo(SpriteBatch batch) {
+		for (int i = 0; i != systems.size(); i ++) {
+			EntitySystem system = systems.get(i);
+			iterating = true;
+			try {
+				system.renderTo(batch, system.entities(), system.entityCount());
+			} finally {
+				applyPendingChanges();
+			}
+		}
+	}
+	
+	/* @return true if the entity has the Component of the specified type. */
+	final boolean hasComponent(int entity, int type) {
+		return isAlive(entity) && (masks[entity] & (1L << type)) != 0;
+	}
+	
+	/* Mark the Component of the specified type as attached to the entity. */
+	final void attach(int entity, int type) {
+		assertAlive(entity);
+		long mask = masks[entity] | (1L << type);
+		if (mask != masks[entity]) {
+			masks[entity] = mask;
+			refresh(entity);
+		}
+	}
+	
+	/*
+	 * Detach the Component of the specified type from the entity and clear its data,
+	 * once the system pass ends if one is running.
+	 */
+	final void removeComponent(int entity, int type) {
+		assertAlive(entity);
+		if (!iterating)
+			components.get(type).clear(entity);
+		else if ((masks[entity] & (1L << type)) != 0) {
+			// The running system may still read the data, clear it once the pass ends.
+			if (pendingClearCount == pendingClears.length)
+				pendingClears = Arrays.copyOf(pendingClears, pendingClearCount * 2);
+			pendingClears[pendingClearCount ++] = entity;
+			pendingClears[pendingClearCount ++] = type;
+		}
+		detach(entity, type);
+	}
+	
+	/* Mark the Component of the specified type as detached from the entity. */
+	final void detach(int entity, int type) {
+		assertAlive(entity);
+		long mask = masks[entity] & ~(1L << type);
+		if (mask != masks[entity]) {
+			masks[entity] = mask;
+			refresh(entity);
+		}
+	}
+	
+	/* Update the entity's membership in every system, after the system pass if one is running. */
+	private void refresh(int entity) {
+		if (iterating) {
+			if (!refreshPending[entity]) {
+				refreshPending[entity] = true;
+				if (pendingRefreshCount == pendingRefreshes.length)
+					pendingRefreshes = Arrays.copyOf(pendingRefreshes, pendingRefreshCount * 2);
+				pendingRefreshes[pendingRefreshCount ++] = entity;
+			}
+			return;
+		}
+		for (int i = 0; i != systems.size(); i ++)
+			systems.get(i).refresh(entity, alive[entity] ? masks[entity] : 0);
+	}
+	
+	/* End the system pass and apply the destroys and membership changes made during it. */
+	private void applyPendingChanges() {
+		iterating = false;
+		// Clear the removed Components first, before a destroyed entity's ID can be reused.
+		for (int i = 0; i != pendingClearCount; i += 2) {
+			int entity = pendingClears[i], type = pendingClears[i + 1];
+			// The Component may have been added again later in the pass, its new data stays.
+			if ((masks[entity] & (1L << type)) == 0)
+				components.get(type).clear(entity);
+		}
+		pendingClearCount = 0;
+		// Destroying an entity refreshes it, so destroys are applied first.
+		for (int i = 0; i != pendingDestroyCount; i ++) {
+			int entity = pendingDestroys[i];
+			dying[entity] = false;
+			destroy(entity);
+		}
+		pendingDestroyCount = 0;
+		for (int i = 0; i != pendingRefreshCount; i ++) {
+			int entity = pendingRefreshes[i];
+			refreshPending[entity] = false;
+			refresh(entity);
+		}
+		pendingRefreshCount = 0;
+	}
+	
+	/* Grow every per-entity array to the new capacity. */
+	private void grow(int newCapacity) {
+		long[] newMasks = new long[newCapacity];
+		System.arraycopy(masks, 0, newMasks, 0, capacity);
+		masks = newMasks;
+		
+		boolean[] newAlive = new boolean[newCapacity];
+		System.arraycopy(alive, 0, newAlive, 0, capacity);
+		alive = newAlive;
+		
+		boolean[] newDying = new boolean[newCapacity];
+		System.arraycopy(dying, 0, newDying, 0, capacity);
+		dying = newDying;
+		
+		boolean[] newRefreshPending = new boolean[newCapacity];
+		System.arraycopy(refreshPending, 0, newRefreshPending, 0, capacity);
+		refreshPending = newRefreshPending;
+		
+		int[] newFreeIds = new int[newCapacity];
+		System.arraycopy(freeIds, 0, newFreeIds, 0, capacity);
+		freeIds = newFreeIds;
+		
+		for (int i = 0; i != components.size(); i ++)
+			components.get(i).ensureCapacity(newCapacity);
+		for (int i = 0; i != systems.size(); i ++)
+			systems.get(i).ensureCapacity(newCapacity);
+		
+		capacity = newCapacity;
+	}
+	
+	private void assertAlive(int entity) {
+		if (!isAlive(entity))
+			throw new RuntimeException("Entity " + entity + " is not alive.");
+	}
+}
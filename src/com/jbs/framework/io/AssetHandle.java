@@ -0,0 +1,97 @@
+package com.jbs.framework.io;
+
+/*
+ * A reference-counted handle to an asset managed by an AssetResidency. While the
+ * handle is retained the asset is never evicted. Once every reference is released
+ * the asset stays resident until the AssetResidency needs its memory for something
+ * else, and is reloaded in the background the next time it is asked for.
+ */
+public final class AssetHandle<Type> {
+	
+	/* The kind of memory an asset is charged to. */
+	enum Budget { TEXTURE, AUDIO, NONE }
+	
+	private final AssetResidency residency;
+	private final String path;
+	private final Class<Type> type;
+	private final Budget budget;
+	
+	/* The number of times the handle has been retained. */
+	int references;
+	
+	/* The estimated memory the asset uses while resident, 0 until it is loaded. */
+	long bytes;
+	
+	/* True while the asset is loaded and charged to its budget. */
+	boolean resident;
+	
+	/* True while the asset is queued in the AssetManager but not yet loaded. */
+	boolean queued;
+	
+	/* The time in milliseconds at which the residency releases its hold on the asset, 0 if it holds none. */
+	long heldUntil;
+	
+	AssetHandle(AssetResidency residency, String path, Class<Type> type, Budget budget) {
+		this.residency = residency;
+		this.path = path;
+		this.type = type;
+		this.budget = budget;
+	}
+	
+	/*
+	 * @return the asset, or null if it is not resident yet. Asking for an evicted
+	 * asset queues it to be reloaded in the background.
+	 */
+	public Type get() {
+		return residency.get(this, false);
+	}
+	
+	/*
+	 * @return the asset, loading it immediately if it is not resident.
+	 */
+	public Type getBlocking() {
+		return residency.get(this, true);
+	}
+	
+	/* @return true if the asset is loaded. */
+	public boolean isResident() {
+		return resident;
+	}
+	
+	/* Add a reference to the asset, it will not be evicted until it is released. */
+	public AssetHandle<Type> retain() {
+		references ++;
+		return this;
+	}
+	
+	/* Remove a reference to the asset, once none are left it may be evicted. */
+	public void release() {
+		if (references == 0)
+			throw new RuntimeException("Cannot release " + path + ", it is not retained.");
+		references --;
+	}
+	
+	/* @return the number of references to the asset. */
+	public int references() {
+		return references;
+	}
+	
+	/* @return the path of the asset. */
+	public String path() {
+		return path;
+	}
+	
+	/* @return the type of the asset. */
+	public Class<Type> type() {
+		return type;
+	}
+	
+	Budget budget() {
+		return budget;
+	}
+	
+	@Override
+	public String toString() {
+		return path + " (" + references + " references)";
+	}
+}
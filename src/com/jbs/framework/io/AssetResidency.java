@@ -0,0 +1,260 @@
+package com.jbs.framework.io;
+
+import java.util.LinkedHashMap;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.jbs.framework.util.Trace;
+
+/*
+ * Keeps the assets of an AssetManager within memory budgets. Assets are acquired
+ * through reference-counted AssetHandles. Released assets stay loaded in least
+ * recently used order and are unloaded, oldest first, only when their Textures
+ * or audio no longer fit in the budget. Evicted assets are reloaded in the
+ * background when they are next asked for. An asset can also be held for a while,
+ * such as a Sound that is playing, and is released automatically once the time is up.
+ * update() must be called once per frame from the rendering thread.
+ */
+public class AssetResidency {
+	
+	/* The assumed number of bytes per texel of a loaded Texture. */
+	private static final int BYTES_PER_TEXEL = 4;
+	
+	private final AssetManager assets;
+	
+	/* Every known asset, least recently used first. */
+	private final LinkedHashMap<String, AssetHandle<?>> handles =
+			new LinkedHashMap<String, AssetHandle<?>>(64, 0.75f, true);
+	
+	private long
+		/* The number of bytes the resident Textures may use. */
+		textureBudget,
+		/* The number of bytes the resident audio may use. */
+		audioBudget,
+		/* The number of bytes the resident Textures use. */
+		textureBytes,
+		/* The number of bytes the resident audio uses. */
+		audioBytes;
+	
+	/* The number of assets evicted since the AssetResidency was created. */
+	private int evictions;
+	
+	public AssetResidency(AssetManager assets, long textureBudget, long audioBudget) {
+		this.assets = assets;
+		this.textureBudget = textureBudget;
+		this.audioBudget = audioBudget;
+	}
+	
+	/*
+	 * Acquire a retained handle to the asset, queueing it to load in the background
+	 * if it is not resident. The handle must be released when it is no longer needed.
+	 */
+	public <Type> AssetHandle<Type> acquire(String path, Class<Type> type) {
+		return handle(path, type).retain();
+	}
+	
+	/*
+	 * Retain the asset for 'millis' milliseconds, after which update() releases it. Holding
+	 * an asset that is already held extends the hold instead of retaining it again.
+	 */
+	public <Type> void hold(String path, Class<Type> type, long millis) {
+		AssetHandle<Type> handle = handle(path, type);
+		if (handle.heldUntil == 0)
+			handle.retain();
+		handle.heldUntil = Math.max(handle.heldUntil, TimeUtils.millis() + millis);
+	}
+	
+	/* Release the hold on the asset before its time is up, if it is held. */
+	public void releaseHold(String path) {
+		AssetHandle<?> handle = handles.get(path);
+		if (handle != null && handle.heldUntil != 0) {
+			handle.heldUntil = 0;
+			handle.release();
+		}
+	}
+	
+	/* Release the hold on every held asset of the type before its time is up. */
+	public void releaseHolds(Class<?> type) {
+		for (AssetHandle<?> handle : handles.values())
+			if (handle.type() == type && handle.heldUntil != 0) {
+				handle.heldUntil = 0;
+				handle.release();
+			}
+	}
+	
+	/*
+	 * @return the asset without retaining it, loading it immediately if needed and
+	 * marking it as recently used.
+	 */
+	public <Type> Type require(String path, Class<Type> type) {
+		return handle(path, type).getBlocking();
+	}
+	
+	/*
+	 * Continue loading queued assets, account for the ones that finished, release the
+	 * holds whose time is up and evict released assets until both budgets are met.
+	 */
+	public void update() {
+		long start = Trace.begin();
+		assets.update();
+		Trace.end(Trace.ASSET_LOAD, start);
+		
+		long now = TimeUtils.millis();
+		for (AssetHandle<?> handle : handles.values()) {
+			if (!handle.resident && assets.isLoaded(handle.path()))
+				charge(handle);
+			if (handle.heldUntil != 0 && now >= handle.heldUntil) {
+				handle.heldUntil = 0;
+				handle.release();
+			}
+		}
+		
+		enforceBudgets();
+	}
+	
+	/* Set the number of bytes the resident Textures may use. */
+	public void setTextureBudget(long bytes) {
+		this.textureBudget = bytes;
+	}
+	
+	/* Set the number of bytes the resident audio may use. */
+	public void setAudioBudget(long bytes) {
+		this.audioBudget = bytes;
+	}
+	
+	/* @return the estimated number of bytes the resident Textures use. */
+	public final long textureBytes() {
+		return textureBytes;
+	}
+	
+	/* @return the estimated number of bytes the resident audio uses. */
+	public final long audioBytes() {
+		return audioBytes;
+	}
+	
+	/* @return the number of assets evicted so far. */
+	public final int evictions() {
+		return evictions;
+	}
+	
+	/* @return the AssetManager the assets are loaded with. */
+	public final AssetManager assets() {
+		return assets;
+	}
+	
+	/* Unload every asset that is not retained, regardless of the budgets. */
+	public void evictUnused() {
+		for (AssetHandle<?> handle : handles.values())
+			if (handle.references == 0 && handle.resident)
+				evict(handle);
+	}
+	
+	/* @return the asset of the handle, loading it now if 'block' is true. */
+	<Type> Type get(AssetHandle<Type> handle, boolean block) {
+		// Mark the asset as the most recently used.
+		handles.get(handle.path());
+		
+		if (!assets.isLoaded(handle.path())) {
+			queue(handle);
+			if (!block)
+				return null;
+			// Keep loading until our asset is done, this also advances the rest of the queue.
+			long start = Trace.begin();
+			while (!assets.isLoaded(handle.path()))
+				assets.update();
+			Trace.end(Trace.ASSET_LOAD, start);
+		}
+		if (!handle.resident)
+			charge(handle);
+		return assets.get(handle.path(), handle.type());
+	}
+	
+	/* @return the one handle of the asset, creating and queueing it if it is new. */
+	@SuppressWarnings("unchecked")
+	private <Type> AssetHandle<Type> handle(String path, Class<Type> type) {
+		AssetHandle<?> existing = handles.get(path);
+		if (existing != null) {
+			if (existing.type() != type)
+				throw new RuntimeException(path + " was acquired as a " + existing.type().getSimpleName()
+						+ ", not a " + type.getSimpleName());
+			return (AssetHandle<Type>) existing;
+		}
+		
+		AssetHandle<Type> handle = new AssetHandle<Type>(this, path, type, budgetOf(type));
+		handles.put(path, handle);
+		queue(handle);
+		return handle;
+	}
+	
+	/* Queue the asset to be loaded if it is neither loaded nor queued. */
+	private void queue(AssetHandle<?> handle) {
+		if (!handle.queued && !assets.isLoaded(handle.path())) {
+			assets.load(handle.path(), handle.type());
+			handle.queued = true;
+		}
+	}
+	
+	/* Charge the loaded asset to its budget. */
+	private void charge(AssetHandle<?> handle) {
+		handle.bytes = estimateBytes(handle);
+		handle.resident = true;
+		handle.queued = false;
+		if (handle.budget() == AssetHandle.Budget.TEXTURE)
+			textureBytes += handle.bytes;
+		else if (handle.budget() == AssetHandle.Budget.AUDIO)
+			audioBytes += handle.bytes;
+	}
+	
+	/* Unload the asset and refund its budget. */
+	private void evict(AssetHandle<?> handle) {
+		assets.unload(handle.path());
+		if (handle.budget() == AssetHandle.Budget.TEXTURE)
+			textureBytes -= handle.bytes;
+		else if (handle.budget() == AssetHandle.Budget.AUDIO)
+			audioBytes -= handle.bytes;
+		handle.bytes = 0;
+		handle.resident = false;
+		evictions ++;
+	}
+	
+	/* Evict released assets, least recently used first, until both budgets are met. */
+	private void enforceBudgets() {
+		if (textureBytes <= textureBudget && audioBytes <= audioBudget)
+			return;
+		
+		for (AssetHandle<?> handle : handles.values()) {
+			if (handle.references != 0 || !handle.resident)
+				continue;
+			if (handle.budget() == AssetHandle.Budget.TEXTURE && textureBytes > textureBudget)
+				evict(handle);
+			else if (handle.budget() == AssetHandle.Budget.AUDIO && audioBytes > audioBudget)
+				evict(handle);
+			if (textureBytes <= textureBudget && audioBytes <= audioBudget)
+				return;
+		}
+	}
+	
+	/* @return the estimated number of bytes the loaded asset uses. */
+	private long estimateBytes(AssetHandle<?> handle) {
+		if (handle.budget() == AssetHandle.Budget.TEXTURE) {
+			Texture texture = assets.get(handle.path(), Texture.class);
+			return (long) texture.getWidth() * texture.getHeight() * BYTES_PER_TEXEL;
+		}
+		if (handle.budget() == AssetHandle.Budget.AUDIO)
+			// The encoded size is the best estimate available without decoding the audio.
+			return Gdx.files.internal(handle.path()).length();
+		return 0;
+	}
+	
+	private static AssetHandle.Budget budgetOf(Class<?> type) {
+		if (type == Texture.class)
+			return AssetHandle.Budget.TEXTURE;
+		if (type == Sound.class || type == Music.class)
+			return AssetHandle.Budget.AUDIO;
+		return AssetHandle.Budget.NONE;
+	}
+}
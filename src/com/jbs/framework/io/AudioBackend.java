@@ -0,0 +1,18 @@
+package com.jbs.framework.io;
+
+/*
+ * Plays the looping voices chosen by SpatialAudio. A voice is started with a gain in
+ * [0, 1] and a pan in [-1, 1], from fully left to fully right, and is then updated
+ * every time SpatialAudio is until it is stopped.
+ */
+public interface AudioBackend {
+	
+	/* Start looping the emitter's sound. @return the id of the voice. */
+	long start(AudioEmitter emitter, float gain, float pan);
+	
+	/* Change the gain and pan of a playing voice. */
+	void update(AudioEmitter emitter, long voice, float gain, float pan);
+	
+	/* Stop a playing voice. */
+	void stop(AudioEmitter emitter, long voice);
+}
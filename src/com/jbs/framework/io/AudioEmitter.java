@@ -0,0 +1,100 @@
+package com.jbs.framework.io;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.jbs.framework.rendering.Graphic;
+
+/*
+ * A looping sound heard from a position in the virtual coordinate system, either a
+ * fixed point or the center of a Graphic that it follows. The emitter is heard within
+ * its radius, and louder the closer the listener is.
+ */
+public class AudioEmitter {
+	
+	private final FileHandle source;
+	
+	/* The Graphic whose center the emitter follows, null if it is fixed. */
+	private Graphic graphic;
+	
+	private float
+		/* The position of a fixed emitter. */
+		x, y,
+		/* The gain of the emitter at its own position. */
+		volume = 1,
+		/* The distance beyond which the emitter cannot be heard. */
+		radius;
+	
+	/* The voice playing the emitter, -1 if it is not playing. */
+	long voice = -1;
+	
+	/* The update in which SpatialAudio last chose the emitter to play. */
+	int chosenUpdate = -1;
+	
+	/* Create an emitter of the sound at 'source' following the center of 'graphic'. */
+	public AudioEmitter(FileHandle source, Graphic graphic, float radius) {
+		this(source, radius);
+		this.graphic = graphic;
+	}
+	
+	/* Create an emitter of the sound at 'source' fixed at (x, y). */
+	public AudioEmitter(FileHandle source, float x, float y, float radius) {
+		this(source, radius);
+		this.x = x;
+		this.y = y;
+	}
+	
+	private AudioEmitter(FileHandle source, float radius) {
+		if (radius <= 0)
+			throw new RuntimeException("Cannot create an AudioEmitter with a radius of " + radius + ".");
+		this.source = source;
+		this.radius = radius;
+	}
+	
+	/* @return the x-coordinate the emitter is heard from. */
+	public float x() {
+		return graphic != null ? graphic.x() : x;
+	}
+	
+	/* @return the y-coordinate the emitter is heard from. */
+	public float y() {
+		return graphic != null ? graphic.y() : y;
+	}
+	
+	/* Fix the emitter at (x, y), it no longer follows its Graphic. */
+	public void setPosition(float x, float y) {
+		this.graphic = null;
+		this.x = x;
+		this.y = y;
+	}
+	
+	/* Follow the center of 'graphic'. */
+	public void follow(Graphic graphic) {
+		this.graphic = graphic;
+	}
+	
+	public FileHandle source() {
+		return source;
+	}
+	
+	public float volume() {
+		return volume;
+	}
+	
+	public void setVolume(float volume) {
+		this.volume = volume;
+	}
+	
+	public float radius() {
+		return radius;
+	}
+	
+	public void setRadius(float radius) {
+		if (radius <= 0)
+			throw new RuntimeException("Cannot set the radius of an AudioEmitter to " + radius + ".");
+		this.radius = radius;
+	}
+	
+	/* @return true if the emitter is currently given a voice. */
+	public boolean isPlaying() {
+		return voice != -1;
+	}
+}
@@ -1,6 +1,7 @@
 package com.jbs.framework.io;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.audio.Music;
@@ -12,6 +13,15 @@ public class AudioProxy {
 	protected final AssetManager assets;
 	protected final ArrayList<Music> currentlyPlayingMusic;
 	
+	/** Loads audio on demand within a memory budget, null if every asset is loaded up front. */
+	protected final AssetResidency residency;
+	
+	/** The handles retained for the playing or paused Music, so that it is never evicted while in use. */
+	private final HashMap<String, AssetHandle<Music>> playingMusicHandles = new HashMap<String, AssetHandle<Music>>();
+	
+	/** How long in milliseconds a played Sound is held resident, it may be evicted while playing if it is longer. */
+	private long soundHoldTime = 10000;
+	
 	/** The volume to play Sounds at when no volume is specified. */
 	private float defaultSoundVolume = 1;
 	/** Whether or not to loop music when it is not specified one way or the other. */
@@ -22,7 +32,18 @@ public class AudioProxy {
 	private final boolean isStrict;
 	
 	public AudioProxy(AssetManager assets, boolean isStrict) {
+		this(assets, null, isStrict);
+	}
+	
+	/** Create an AudioProxy that loads audio on demand through the AssetResidency
+	 * instead of requiring it to be loaded up front. */
+	public AudioProxy(AssetResidency residency, boolean isStrict) {
+		this(residency.assets(), residency, isStrict);
+	}
+	
+	private AudioProxy(AssetManager assets, AssetResidency residency, boolean isStrict) {
 		this.assets = assets;
+		this.residency = residency;
 		this.isStrict = isStrict;
 		this.currentlyPlayingMusic = new ArrayList<Music>();
 	}
@@ -34,7 +55,32 @@ public class AudioProxy {
 			// Return without playing.
 			return;
 		
-		getSound(soundSource).play(volume);
+		// Get the Sound first so that an invalid source is never retained.
+		Sound sound = getSound(soundSource);
+		// Keep the Sound resident while it may still be playing, the residency releases it afterwards.
+		if (residency != null)
+			residency.hold(soundSource.path(), Sound.class, soundHoldTime);
+		sound.play(volume);
+	}
+	
+	/** Set how long in milliseconds a played Sound is kept resident before it may be
+	 * evicted. Should be at least as long as the longest one-shot Sound. */
+	public void setSoundHoldTime(long millis) {
+		this.soundHoldTime = millis;
+	}
+	
+	/** Release the Sound played from the specified source so that it may be evicted
+	 * before its hold time is up. Has no effect without a residency. */
+	public void releaseSound(FileHandle soundSource) {
+		if (residency != null)
+			residency.releaseHold(soundSource.path());
+	}
+	
+	/** Release every played Sound so that they may be evicted before their hold time is up,
+	 * for example when leaving an ApplicationState once its Sounds have finished playing. */
+	public void releaseSounds() {
+		if (residency != null)
+			residency.releaseHolds(Sound.class);
 	}
 	
 	/** Play the Sound located at the specified source. Uses the AudioProxy's defaultSoundVolume. */
@@ -48,6 +94,9 @@ public class AudioProxy {
 	public void playMusic(FileHandle musicSource, boolean shouldLoopMusic) {
 		Music music = getMusic(musicSource);
 		
+		// Keep the Music resident for as long as it is playing.
+		retainMusic(musicSource);
+		
 		// Add the Music to our List of playing Music.
 		// This assures that if the Audio is muted, when the Audio becomes unmuted the Music will play.
 		currentlyPlayingMusic.add(music);
@@ -73,6 +122,7 @@ public class AudioProxy {
 		if (!currentlyPlayingMusic.contains(music))
 			throw new RuntimeException("Cant pause, not playing music : " + music);
 		
+		// The paused Music keeps its handle, so it is not evicted before it resumes.
 		currentlyPlayingMusic.remove(music);
 		
 		music.pause();
@@ -93,6 +143,7 @@ public class AudioProxy {
 		
 		// Remove the Music from our currentlyPlayingMusic List.
 		currentlyPlayingMusic.remove(music);
+		releaseMusic(musicSource);
 		
 		// If the Audio is muted,
 		if (this.isMuted())
@@ -157,6 +208,10 @@ public class AudioProxy {
 		if (this.isStrict())
 			assertAssetIsValid(soundSource);
 		
+		// If we have a residency, load the sound on demand.
+		if (residency != null)
+			return residency.require(soundSource.path(), Sound.class);
+		
 		// Retrieve the sound from the Game's assets.
 		return (Sound) assets.get(soundSource.path());
 	}
@@ -167,11 +222,22 @@ public class AudioProxy {
 		if (this.isStrict())
 			assertAssetIsValid(musicSource);
 		
+		// If we have a residency, load the music on demand.
+		if (residency != null)
+			return residency.require(musicSource.path(), Music.class);
+		
 		// Retrieve the music from the Game's assets.
 		return (Music) assets.get(musicSource.path());
 	}
 	
 	protected void assertAssetIsValid(FileHandle asset) {
+		// Assets are loaded on demand with a residency, so they only have to exist.
+		if (residency != null) {
+			if (!asset.exists())
+				throw new RuntimeException(asset.path() + " does not exist.");
+			return;
+		}
+		
 		// If the asset has not been loaded,
 		if (!assets.isLoaded(asset.path())) {
 			// If the asset does not exist,
@@ -182,6 +248,26 @@ public class AudioProxy {
 		}
 	}
 	
+	/* @return a newly retained handle to the Sound, or null if the AudioProxy has no residency. */
+	AssetHandle<Sound> acquireSound(FileHandle soundSource) {
+		if (this.isStrict())
+			assertAssetIsValid(soundSource);
+		return residency == null ? null : residency.acquire(soundSource.path(), Sound.class);
+	}
+	
+	/* Retain the Music's handle while it plays, if the AudioProxy has a residency. */
+	private void retainMusic(FileHandle musicSource) {
+		if (residency != null && !playingMusicHandles.containsKey(musicSource.path()))
+			playingMusicHandles.put(musicSource.path(), residency.acquire(musicSource.path(), Music.class));
+	}
+	
+	/* Release the Music's handle once it stops playing, if the AudioProxy has a residency. */
+	private void releaseMusic(FileHandle musicSource) {
+		AssetHandle<Music> handle = playingMusicHandles.remove(musicSource.path());
+		if (handle != null)
+			handle.release();
+	}
+	
 	/* @return true if the AudioProxy should throw Exceptions if there is redundant/superfluous usage. */
 	protected boolean isStrict() {
 		return isStrict;
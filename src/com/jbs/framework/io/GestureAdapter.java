@@ -0,0 +1,36 @@
+package com.jbs.framework.io;
+
+/*
+ * A GestureListener that ignores every gesture, for listeners that are only
+ * interested in a few of them.
+ */
+public abstract class GestureAdapter implements GestureListener {
+	
+	@Override
+	public boolean tap(float x, float y, int count) {
+		return false;
+	}
+	
+	@Override
+	public boolean longPress(float x, float y) {
+		return false;
+	}
+	
+	@Override
+	public boolean pan(float x, float y, float deltaX, float deltaY) {
+		return false;
+	}
+	
+	@Override
+	public boolean fling(float x, float y, float velocityX, float velocityY) {
+		return false;
+	}
+	
+	@Override
+	public boolean pinch(float centerX, float centerY, float scale, float degrees) {
+		return false;
+	}
+	
+	@Override
+	public void pinchStop() { }
+}
@@ -0,0 +1,30 @@
+package com.jbs.framework.io;
+
+/*
+ * Receives the gestures recognized by a GestureRecognizer. Positions are in the
+ * virtual coordinate system. Returning true consumes a gesture, so the listeners
+ * subscribed before this one do not receive it.
+ */
+public interface GestureListener {
+	
+	/* A touch released without moving. 'count' is 2 for a double tap and so on. */
+	boolean tap(float x, float y, int count);
+	
+	/* A touch held without moving, the touch does not tap when it is released. */
+	boolean longPress(float x, float y);
+	
+	/* A single touch moved by (deltaX, deltaY) since the last update. */
+	boolean pan(float x, float y, float deltaX, float deltaY);
+	
+	/* A single touch released while moving at (velocityX, velocityY) in units per second. */
+	boolean fling(float x, float y, float velocityX, float velocityY);
+	
+	/*
+	 * Two touches moved. 'scale' is their distance relative to when the pinch began and
+	 * 'degrees' the counter-clockwise rotation of the line between them since then.
+	 */
+	boolean pinch(float centerX, float centerY, float scale, float degrees);
+	
+	/* One of the two touches of a pinch was released. */
+	void pinchStop();
+}
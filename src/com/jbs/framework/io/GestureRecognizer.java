@@ -0,0 +1,449 @@
+package com.jbs.framework.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.badlogic.gdx.InputProcessor;
+
+/*
+ * Recognizes taps, long presses, pans, flings and pinches from the touch stream and
+ * emits them to its GestureListeners. The recognizer is an InputProcessor, so it must
+ * be set as (or added to a multiplexer as) the input processor of Gdx.input.
+ * Every touch event is queued with the time it arrived instead of polling positions,
+ * so no movement between two updates is lost. The queue is consumed once per update
+ * by update(), which emits the gestures in the order they happened, on the thread that
+ * updates the Application.
+ */
+public class GestureRecognizer implements InputProcessor {
+	
+	/* The number of pointers tracked, pointers with a higher index are ignored. */
+	public static final int MAX_POINTERS = 20;
+	
+	/* The number of recent samples of each pointer kept to measure its velocity. */
+	private static final int HISTORY = 8;
+	
+	/* The time in nanoseconds over which the velocity of a released pointer is measured. */
+	private static final long VELOCITY_WINDOW = 100000000L;
+	
+	private static final int
+		/* The types of queued events. */
+		DOWN = 0, DRAGGED = 1, UP = 2;
+	
+	private final InputProxy input;
+	
+	private final ArrayList<GestureListener> listeners = new ArrayList<GestureListener>();
+	
+	/* The type, pointer, virtual position and arrival time of each event queued since the last update. */
+	private int[] eventTypes = new int[32], eventPointers = new int[32];
+	private float[] eventXs = new float[32], eventYs = new float[32];
+	private long[] eventTimes = new long[32];
+	
+	/* The number of events queued since the last update. */
+	private int eventCount;
+	
+	/* True for each pointer that is down. */
+	private final boolean[] down = new boolean[MAX_POINTERS];
+	
+	private final float[]
+		/* The current position of each pointer. */
+		x = new float[MAX_POINTERS], y = new float[MAX_POINTERS],
+		/* The position each pointer went down at. */
+		startX = new float[MAX_POINTERS], startY = new float[MAX_POINTERS],
+		/* The recent positions of each pointer, HISTORY per pointer in a ring. */
+		historyX = new float[MAX_POINTERS * HISTORY], historyY = new float[MAX_POINTERS * HISTORY];
+	
+	private final long[]
+		/* The time each pointer went down. */
+		downTime = new long[MAX_POINTERS],
+		/* The times of the recent positions of each pointer. */
+		historyTime = new long[MAX_POINTERS * HISTORY];
+	
+	private final int[]
+		/* The number of recent positions of each pointer. */
+		historyCount = new int[MAX_POINTERS],
+		/* The slot of each pointer's ring the next position is written to. */
+		historyNext = new int[MAX_POINTERS];
+	
+	private int
+		/* The number of pointers down. */
+		touching,
+		/* The pointer of the current single-touch gesture. */
+		primary,
+		/* The two pointers of the current pinch. */
+		pinchA, pinchB,
+		/* The number of taps in the current run of taps. */
+		tapCount;
+	
+	private boolean
+		/* True if the primary pointer moved beyond the tap slop. */
+		moved,
+		/* True if more than one pointer took part in the current gesture. */
+		multiTouch,
+		/* True if the current gesture was emitted as a long press. */
+		longPressed,
+		/* True while two pointers are pinching. */
+		pinching,
+		/* True if a pinching pointer moved since the pinch was last emitted. */
+		pinchMoved;
+	
+	private float
+		/* The position the last pan was emitted at. */
+		panX, panY,
+		/* The distance and angle in degrees between the pinching pointers when the pinch began. */
+		pinchDistance, pinchAngle,
+		/* The position of the last tap. */
+		tapX, tapY,
+		/* The distance a touch may move and still tap. */
+		tapSlop = 10,
+		/* The slowest release in units per second that flings. */
+		minimumFlingVelocity = 50;
+	
+	private long
+		/* The time the last tap was released. */
+		tapTime,
+		/* The time in nanoseconds a touch is held without moving to long press. */
+		longPressDuration = 500000000L,
+		/* The longest time in nanoseconds between two taps of a double tap. */
+		tapInterval = 300000000L;
+	
+	public GestureRecognizer(InputProxy input) {
+		this.input = input;
+	}
+	
+	/* Subscribe a listener, listeners subscribed later receive gestures first. */
+	public void subscribe(GestureListener listener) {
+		listeners.add(listener);
+	}
+	
+	public void unsubscribe(GestureListener listener) {
+		listeners.remove(listener);
+	}
+	
+	/*
+	 * Consume the touch events that arrived since the last update and emit the gestures
+	 * they complete.
+	 */
+	public void update() {
+		// Process the events in the order they arrived, with the times they arrived at.
+		for (int i = 0; i != eventCount; i ++) {
+			int pointer = eventPointers[i];
+			float eventX = eventXs[i], eventY = eventYs[i];
+			long time = eventTimes[i];
+			if (eventTypes[i] == DOWN)
+				pointerDown(pointer, eventX, eventY, time);
+			else if (eventTypes[i] == DRAGGED)
+				pointerDragged(pointer, eventX, eventY, time);
+			else
+				pointerUp(pointer, eventX, eventY, time);
+		}
+		eventCount = 0;
+		
+		// Emit the movement of this update as a single pan or pinch.
+		emitPan();
+		emitPinch();
+		
+		// A touch held still for long enough long presses even if no event arrived.
+		if (touching == 1 && !multiTouch && !moved && !longPressed
+				&& getTime() - downTime[primary] >= longPressDuration) {
+			longPressed = true;
+			emitLongPress(x[primary], y[primary]);
+		}
+	}
+	
+	/* Forget every pointer and queued event, such as when the ApplicationState changes. */
+	public void reset() {
+		eventCount = 0;
+		for (int i = 0; i != MAX_POINTERS; i ++)
+			down[i] = false;
+		touching = 0;
+		pinching = false;
+		tapCount = 0;
+	}
+	
+	private void pointerDown(int pointer, float eventX, float eventY, long time) {
+		if (down[pointer])
+			return;
+		down[pointer] = true;
+		x[pointer] = startX[pointer] = eventX;
+		y[pointer] = startY[pointer] = eventY;
+		downTime[pointer] = time;
+		historyCount[pointer] = historyNext[pointer] = 0;
+		addSample(pointer, time);
+		touching ++;
+		
+		if (touching == 1) {
+			// A new gesture begins.
+			primary = pointer;
+			moved = multiTouch = longPressed = false;
+			panX = eventX;
+			panY = eventY;
+		} else {
+			multiTouch = true;
+			if (!pinching && touching == 2) {
+				// The first two pointers down pinch.
+				int other = down[primary] && primary != pointer ? primary : firstDownExcept(pointer);
+				pinching = true;
+				pinchMoved = false;
+				pinchA = other;
+				pinchB = pointer;
+				pinchDistance = Math.max(distance(pinchA, pinchB), 1);
+				pinchAngle = angle(pinchA, pinchB);
+			}
+		}
+	}
+	
+	private void pointerDragged(int pointer, float eventX, float eventY, long time) {
+		if (!down[pointer])
+			return;
+		x[pointer] = eventX;
+		y[pointer] = eventY;
+		addSample(pointer, time);
+		
+		if (pointer == primary && !moved) {
+			float dx = eventX - startX[pointer], dy = eventY - startY[pointer];
+			moved = dx*dx + dy*dy > tapSlop * tapSlop;
+		}
+		if (pinching && (pointer == pinchA || pointer == pinchB))
+			pinchMoved = true;
+	}
+	
+	private void pointerUp(int pointer, float eventX, float eventY, long time) {
+		if (!down[pointer])
+			return;
+		x[pointer] = eventX;
+		y[pointer] = eventY;
+		addSample(pointer, time);
+		
+		if (pinching && (pointer == pinchA || pointer == pinchB)) {
+			// Emit the last movement of the pinch before it stops.
+			emitPinch();
+			pinching = false;
+			for (int i = listeners.size() - 1; i >= 0; i --)
+				listeners.get(i).pinchStop();
+		} else if (!multiTouch && pointer == primary) {
+			if (moved) {
+				emitPan();
+				float velocityX = velocityX(pointer), velocityY = velocityY(pointer);
+				if (velocityX*velocityX + velocityY*velocityY >= minimumFlingVelocity * minimumFlingVelocity)
+					emitFling(eventX, eventY, velocityX, velocityY);
+			} else if (!longPressed) {
+				if (time - downTime[pointer] >= longPressDuration) {
+					// Held for long enough, but released before an update noticed.
+					emitLongPress(eventX, eventY);
+				} else {
+					float dx = eventX - tapX, dy = eventY - tapY;
+					boolean repeated = tapCount > 0 && time - tapTime <= tapInterval
+							&& dx*dx + dy*dy <= tapSlop * tapSlop * 4;
+					tapCount = repeated ? tapCount + 1 : 1;
+					tapTime = time;
+					tapX = eventX;
+					tapY = eventY;
+					emitTap(eventX, eventY, tapCount);
+				}
+			}
+		}
+		
+		down[pointer] = false;
+		touching --;
+	}
+	
+	/* Emit the movement of the single touch since the last pan. */
+	private void emitPan() {
+		if (touching == 0 || multiTouch || !moved || !down[primary])
+			return;
+		float deltaX = x[primary] - panX, deltaY = y[primary] - panY;
+		if (deltaX == 0 && deltaY == 0)
+			return;
+		panX = x[primary];
+		panY = y[primary];
+		for (int i = listeners.size() - 1; i >= 0; i --)
+			if (listeners.get(i).pan(panX, panY, deltaX, deltaY))
+				return;
+	}
+	
+	/* Emit the pinch if one of its pointers moved since it was last emitted. */
+	private void emitPinch() {
+		if (!pinching || !pinchMoved)
+			return;
+		pinchMoved = false;
+		float centerX = (x[pinchA] + x[pinchB]) / 2, centerY = (y[pinchA] + y[pinchB]) / 2;
+		float scale = distance(pinchA, pinchB) / pinchDistance;
+		float degrees = angle(pinchA, pinchB) - pinchAngle;
+		// Report the rotation as the smaller turn in either direction.
+		if (degrees > 180)
+			degrees -= 360;
+		else if (degrees < -180)
+			degrees += 360;
+		for (int i = listeners.size() - 1; i >= 0; i --)
+			if (listeners.get(i).pinch(centerX, centerY, scale, degrees))
+				return;
+	}
+	
+	private void emitTap(float tapX, float tapY, int count) {
+		for (int i = listeners.size() - 1; i >= 0; i --)
+			if (listeners.get(i).tap(tapX, tapY, count))
+				return;
+	}
+	
+	private void emitLongPress(float pressX, float pressY) {
+		for (int i = listeners.size() - 1; i >= 0; i --)
+			if (listeners.get(i).longPress(pressX, pressY))
+				return;
+	}
+	
+	private void emitFling(float flingX, float flingY, float velocityX, float velocityY) {
+		for (int i = listeners.size() - 1; i >= 0; i --)
+			if (listeners.get(i).fling(flingX, flingY, velocityX, velocityY))
+				return;
+	}
+	
+	/* Record the pointer's current position in its history. */
+	private void addSample(int pointer, long time) {
+		int slot = pointer * HISTORY + historyNext[pointer];
+		historyX[slot] = x[pointer];
+		historyY[slot] = y[pointer];
+		historyTime[slot] = time;
+		historyNext[pointer] = (historyNext[pointer] + 1) % HISTORY;
+		if (historyCount[pointer] < HISTORY)
+			historyCount[pointer] ++;
+	}
+	
+	/* @return the slot of the oldest sample within the velocity window of the newest. */
+	private int oldestRecentSample(int pointer) {
+		int newest = pointer * HISTORY + (historyNext[pointer] + HISTORY - 1) % HISTORY;
+		int oldest = newest;
+		for (int i = 1; i < historyCount[pointer]; i ++) {
+			int slot = pointer * HISTORY + (historyNext[pointer] + HISTORY - 1 - i) % HISTORY;
+			if (historyTime[newest] - historyTime[slot] > VELOCITY_WINDOW)
+				break;
+			oldest = slot;
+		}
+		return oldest;
+	}
+	
+	/* @return the pointer's horizontal velocity over its recent samples in units per second. */
+	private float velocityX(int pointer) {
+		return velocity(pointer, historyX);
+	}
+	
+	/* @return the pointer's vertical velocity over its recent samples in units per second. */
+	private float velocityY(int pointer) {
+		return velocity(pointer, historyY);
+	}
+	
+	private float velocity(int pointer, float[] positions) {
+		int newest = pointer * HISTORY + (historyNext[pointer] + HISTORY - 1) % HISTORY;
+		int oldest = oldestRecentSample(pointer);
+		long elapsed = historyTime[newest] - historyTime[oldest];
+		if (elapsed <= 0)
+			return 0;
+		return (positions[newest] - positions[oldest]) * 1E9f / elapsed;
+	}
+	
+	private float distance(int a, int b) {
+		float dx = x[b] - x[a], dy = y[b] - y[a];
+		return (float) Math.sqrt(dx*dx + dy*dy);
+	}
+	
+	/* @return the angle in degrees of the line from pointer a to pointer b. */
+	private float angle(int a, int b) {
+		return (float) Math.toDegrees(Math.atan2(y[b] - y[a], x[b] - x[a]));
+	}
+	
+	private int firstDownExcept(int pointer) {
+		for (int i = 0; i != MAX_POINTERS; i ++)
+			if (down[i] && i != pointer)
+				return i;
+		return pointer;
+	}
+	
+	/* Queue an event of a pointer at (actualX, actualY) in actual pixels. */
+	private void queue(int type, int pointer, int actualX, int actualY) {
+		if (pointer < 0 || pointer >= MAX_POINTERS)
+			return;
+		if (eventCount == eventTypes.length) {
+			int capacity = eventCount * 2;
+			eventTypes = Arrays.copyOf(eventTypes, capacity);
+			eventPointers = Arrays.copyOf(eventPointers, capacity);
+			eventXs = Arrays.copyOf(eventXs, capacity);
+			eventYs = Arrays.copyOf(eventYs, capacity);
+			eventTimes = Arrays.copyOf(eventTimes, capacity);
+		}
+		eventTypes[eventCount] = type;
+		eventPointers[eventCount] = pointer;
+		eventXs[eventCount] = input.toVirtualX(actualX);
+		eventYs[eventCount] = input.toVirtualY(actualY);
+		eventTimes[eventCount] = getTime();
+		eventCount ++;
+	}
+	
+	@Override
+	public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+		queue(DOWN, pointer, screenX, screenY);
+		return false;
+	}
+	
+	@Override
+	public boolean touchDragged(int screenX, int screenY, int pointer) {
+		queue(DRAGGED, pointer, screenX, screenY);
+		return false;
+	}
+	
+	@Override
+	public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+		queue(UP, pointer, screenX, screenY);
+		return false;
+	}
+	
+	@Override
+	public boolean keyDown(int keycode) {
+		return false;
+	}
+	
+	@Override
+	public boolean keyUp(int keycode) {
+		return false;
+	}
+	
+	@Override
+	public boolean keyTyped(char character) {
+		return false;
+	}
+	
+	@Override
+	public boolean mouseMoved(int screenX, int screenY) {
+		return false;
+	}
+	
+	@Override
+	public boolean scrolled(int amount) {
+		return false;
+	}
+	
+	/* Set the distance in virtual units a touch may move and still tap. */
+	public void setTapSlop(float tapSlop) {
+		this.tapSlop = tapSlop;
+	}
+	
+	/* Set the time in milliseconds a touch is held without moving to long press. */
+	public void setLongPressDuration(long milliseconds) {
+		this.longPressDuration = milliseconds * 1000000L;
+	}
+	
+	/* Set the longest time in milliseconds between two taps of a double tap. */
+	public void setTapInterval(long milliseconds) {
+		this.tapInterval = milliseconds * 1000000L;
+	}
+	
+	/* Set the slowest release in virtual units per second that flings. */
+	public void setMinimumFlingVelocity(float velocity) {
+		this.minimumFlingVelocity = velocity;
+	}
+	
+	/*
+	 * @return the time in nanoseconds, events are stamped with it when they arrive.
+	 */
+	protected long getTime() {
+		return System.nanoTime();
+	}
+}
@@ -38,7 +38,7 @@ public class InputProxy {
 	 * Input can be from touch or mouse.
 	 */
 	public int getX(int inputID) {
-		return screen.toVirtualX(Gdx.input.getX(inputID));
+		return (int) getPreciseX(inputID);
 	}
 	
 	/*
@@ -46,7 +46,39 @@ public class InputProxy {
 	 * Input can be from touch or mouse.
 	 */
 	public int getY(int inputID) {
-		return screen.toVirtualY(screen.actualHeight() - Gdx.input.getY(inputID));
+		return (int) getPreciseY(inputID);
+	}
+	
+	/*
+	 * Get the x-coordinate of the input with the ID of inputID
+	 * without truncating it to a whole virtual unit.
+	 */
+	public float getPreciseX(int inputID) {
+		return toVirtualX(Gdx.input.getX(inputID));
+	}
+	
+	/*
+	 * Get the y-coordinate of the input with the ID of inputID
+	 * without truncating it to a whole virtual unit.
+	 */
+	public float getPreciseY(int inputID) {
+		return toVirtualY(Gdx.input.getY(inputID));
+	}
+	
+	/*
+	 * @return the x-coordinate of an input event in actual pixels translated to the
+	 * virtual coordinate system.
+	 */
+	float toVirtualX(float actualX) {
+		return screen.toVirtualX(actualX);
+	}
+	
+	/*
+	 * @return the y-coordinate of an input event in actual pixels, measured from the
+	 * top of the device, translated to the virtual coordinate system.
+	 */
+	float toVirtualY(float actualY) {
+		return screen.toVirtualY(screen.actualHeight() - actualY);
 	}
 	
 	/*
@@ -0,0 +1,150 @@
+package com.jbs.framework.io;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * A compact binary copy of the state of Snapshottable objects, kept in a direct
+ * ByteBuffer in the platform's byte order. Capturing writes every object in order
+ * and restoring reads them back in the same order, no reflection is involved. The
+ * buffer grows when a capture does not fit and is reused otherwise, so capturing
+ * every frame allocates nothing once the buffer is large enough.
+ */
+public final class Snapshot {
+	
+	private ByteBuffer buffer;
+	
+	/* The number of bytes the last capture wrote. */
+	private int size;
+	
+	/*
+	 * Create a snapshot with room for 'capacity' bytes before it has to grow.
+	 */
+	public Snapshot(int capacity) {
+		buffer = allocate(Math.max(capacity, 64));
+	}
+	
+	/*
+	 * Replace the snapshot's contents with the state of 'object'.
+	 */
+	public void capture(Snapshottable object) {
+		while (true) {
+			buffer.clear();
+			try {
+				object.writeSnapshot(buffer);
+				break;
+			} catch (BufferOverflowException exception) {
+				grow();
+			}
+		}
+		size = buffer.position();
+	}
+	
+	/*
+	 * Replace the snapshot's contents with the state of the first 'count' objects.
+	 */
+	public void capture(Snapshottable[] objects, int count) {
+		while (true) {
+			buffer.clear();
+			try {
+				for (int i = 0; i != count; i ++)
+					objects[i].writeSnapshot(buffer);
+				break;
+			} catch (BufferOverflowException exception) {
+				grow();
+			}
+		}
+		size = buffer.position();
+	}
+	
+	/*
+	 * Restore 'object' from the snapshot, it must have been captured from an object
+	 * of the same structure.
+	 */
+	public void restore(Snapshottable object) {
+		beginRead();
+		object.readSnapshot(buffer);
+		endRead();
+	}
+	
+	/*
+	 * Restore the first 'count' objects from the snapshot, in the order they were captured.
+	 */
+	public void restore(Snapshottable[] objects, int count) {
+		beginRead();
+		for (int i = 0; i != count; i ++)
+			objects[i].readSnapshot(buffer);
+		endRead();
+	}
+	
+	/*
+	 * Replace the snapshot's contents with a copy of 'other'.
+	 */
+	public void copyFrom(Snapshot other) {
+		while (buffer.capacity() < other.size)
+			grow();
+		ByteBuffer source = other.buffer.duplicate();
+		source.limit(other.size).position(0);
+		buffer.clear();
+		buffer.put(source);
+		size = other.size;
+	}
+	
+	/*
+	 * @return true if 'other' holds exactly the same bytes.
+	 */
+	public boolean contentEquals(Snapshot other) {
+		if (size != other.size)
+			return false;
+		for (int i = 0; i != size; i ++)
+			if (buffer.get(i) != other.buffer.get(i))
+				return false;
+		return true;
+	}
+	
+	/*
+	 * @return a hash of the snapshot's bytes, for comparing the state of two
+	 * simulations without sending the whole snapshot.
+	 */
+	public long checksum() {
+		// 64-bit FNV-1a.
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i != size; i ++) {
+			hash ^= buffer.get(i) & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+	
+	/* @return the number of bytes the last capture wrote. */
+	public int size() {
+		return size;
+	}
+	
+	/* @return the number of bytes the snapshot can hold before it has to grow. */
+	public int capacity() {
+		return buffer.capacity();
+	}
+	
+	/* Prepare the buffer to be read from the start of the snapshot. */
+	private void beginRead() {
+		buffer.limit(size).position(0);
+	}
+	
+	/* Check that the objects read exactly what was written. */
+	private void endRead() {
+		if (buffer.position() != size)
+			throw new RuntimeException("Restoring read " + buffer.position() + " of the snapshot's " + size
+					+ " bytes, the objects do not match those captured.");
+	}
+	
+	/* Double the size of the buffer, its contents are discarded. */
+	private void grow() {
+		buffer = allocate(buffer.capacity() * 2);
+	}
+	
+	private static ByteBuffer allocate(int capacity) {
+		return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+	}
+}
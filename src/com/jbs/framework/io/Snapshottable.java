@@ -0,0 +1,20 @@
+package com.jbs.framework.io;
+
+import java.nio.ByteBuffer;
+
+/*
+ * An object whose state can be written to a Snapshot and restored from it. Objects
+ * write their fields in a fixed order with the ByteBuffer's relative
+ * put and get methods and read them back in the same order. Times are written relative
+ * to the moment of the snapshot, so that restoring later continues from the same point.
+ * An ApplicationState that implements Snapshottable can be saved and restored through
+ * the Application.
+ */
+public interface Snapshottable {
+	
+	/* Write the object's state to 'out' at its position. */
+	public void writeSnapshot(ByteBuffer out);
+	
+	/* Restore the state written by writeSnapshot() from 'in' at its position. */
+	public void readSnapshot(ByteBuffer in);
+}
@@ -0,0 +1,144 @@
+package com.jbs.framework.io;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+ * Plays the voices of a SpatialAudio by mixing mono clips of float samples into an
+ * interleaved stereo buffer, which can be written to an AudioDevice or inspected
+ * without any audio hardware. Every clip must be at the sample rate of the output.
+ * Gain changes are ramped across the next mixed buffer so that they do not click.
+ * The mixer is not thread safe, mix() must be called from the thread that updates
+ * the SpatialAudio.
+ */
+public class SoftwareMixer implements AudioBackend {
+	
+	/* The samples of each clip by the path of its source. */
+	private final HashMap<String, float[]> clips = new HashMap<String, float[]>();
+	
+	private final float[][] voiceClips;
+	
+	private final int[]
+		/* The next sample each voice plays. */
+		positions,
+		/* The generation of each voice slot, so that stale voice ids are ignored. */
+		generations;
+	
+	private final float[]
+		/* The gain of each channel of each voice when the last buffer was mixed. */
+		leftGains, rightGains,
+		/* The gain of each channel each voice is ramping towards. */
+		targetLeftGains, targetRightGains;
+	
+	/* Create a mixer of at most 'maxVoices' voices at once. */
+	public SoftwareMixer(int maxVoices) {
+		voiceClips = new float[maxVoices][];
+		positions = new int[maxVoices];
+		generations = new int[maxVoices];
+		leftGains = new float[maxVoices];
+		rightGains = new float[maxVoices];
+		targetLeftGains = new float[maxVoices];
+		targetRightGains = new float[maxVoices];
+	}
+	
+	/* Register the mono samples of the sound at 'path'. */
+	public void addClip(String path, float[] samples) {
+		if (samples.length == 0)
+			throw new RuntimeException("Cannot add the empty clip " + path + ".");
+		clips.put(path, samples);
+	}
+	
+	@Override
+	public long start(AudioEmitter emitter, float gain, float pan) {
+		float[] clip = clips.get(emitter.source().path());
+		if (clip == null)
+			throw new RuntimeException("The SoftwareMixer has no clip for " + emitter.source().path() + ".");
+		for (int slot = 0; slot != voiceClips.length; slot ++) {
+			if (voiceClips[slot] != null)
+				continue;
+			voiceClips[slot] = clip;
+			positions[slot] = 0;
+			setTarget(slot, gain, pan);
+			// A new voice starts at its gain instead of ramping up from silence.
+			leftGains[slot] = targetLeftGains[slot];
+			rightGains[slot] = targetRightGains[slot];
+			return ((long) generations[slot] << 32) | slot;
+		}
+		throw new RuntimeException("The SoftwareMixer has no free voice, it only has " + voiceClips.length + ".");
+	}
+	
+	@Override
+	public void update(AudioEmitter emitter, long voice, float gain, float pan) {
+		int slot = slotOf(voice);
+		if (slot != -1)
+			setTarget(slot, gain, pan);
+	}
+	
+	@Override
+	public void stop(AudioEmitter emitter, long voice) {
+		int slot = slotOf(voice);
+		if (slot == -1)
+			return;
+		voiceClips[slot] = null;
+		generations[slot] ++;
+	}
+	
+	/*
+	 * Mix 'frames' stereo frames of every playing voice into 'out' starting at 'offset',
+	 * overwriting what was there. Each frame is a left and then a right sample.
+	 */
+	public void mix(float[] out, int offset, int frames) {
+		Arrays.fill(out, offset, offset + frames * 2, 0);
+		if (frames == 0)
+			return;
+		final float inverseFrames = 1f / frames;
+		
+		for (int slot = 0; slot != voiceClips.length; slot ++) {
+			float[] clip = voiceClips[slot];
+			if (clip == null)
+				continue;
+			int position = positions[slot];
+			float left = leftGains[slot], right = rightGains[slot];
+			final float leftStep = (targetLeftGains[slot] - left) * inverseFrames;
+			final float rightStep = (targetRightGains[slot] - right) * inverseFrames;
+			
+			for (int i = offset, end = offset + frames * 2; i != end; i += 2) {
+				float sample = clip[position];
+				out[i] += sample * left;
+				out[i + 1] += sample * right;
+				left += leftStep;
+				right += rightStep;
+				// Voices loop until they are stopped.
+				if (++ position == clip.length)
+					position = 0;
+			}
+			positions[slot] = position;
+			leftGains[slot] = targetLeftGains[slot];
+			rightGains[slot] = targetRightGains[slot];
+		}
+	}
+	
+	/* @return the number of voices playing. */
+	public int playing() {
+		int playing = 0;
+		for (int slot = 0; slot != voiceClips.length; slot ++)
+			if (voiceClips[slot] != null)
+				playing ++;
+		return playing;
+	}
+	
+	/* Set the channel gains a voice ramps towards, panning by attenuating the opposite channel. */
+	private void setTarget(int slot, float gain, float pan) {
+		targetLeftGains[slot] = gain * (pan > 0 ? 1 - pan : 1);
+		targetRightGains[slot] = gain * (pan < 0 ? 1 + pan : 1);
+	}
+	
+	/* @return the slot of the voice, or -1 if it has been stopped. */
+	private int slotOf(long voice) {
+		int slot = (int) voice;
+		if (slot < 0 || slot >= voiceClips.length || voiceClips[slot] == null
+				|| generations[slot] != (int) (voice >>> 32))
+			return -1;
+		return slot;
+	}
+}
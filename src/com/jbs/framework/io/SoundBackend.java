@@ -0,0 +1,59 @@
+package com.jbs.framework.io;
+
+import java.util.IdentityHashMap;
+
+import com.badlogic.gdx.audio.Sound;
+
+/*
+ * Plays the voices of a SpatialAudio as looping Sounds retrieved through an AudioProxy.
+ * While the AudioProxy is muted the voices keep playing silently, so they are heard
+ * again as soon as it is unmuted. Each playing emitter retains its Sound, so the
+ * AudioProxy's residency never evicts a Sound that is looping.
+ */
+public class SoundBackend implements AudioBackend {
+	
+	private final AudioProxy audio;
+	
+	/* The handle retained by each playing emitter, null values without a residency. */
+	private final IdentityHashMap<AudioEmitter, AssetHandle<Sound>> handles = new IdentityHashMap<AudioEmitter, AssetHandle<Sound>>();
+	
+	public SoundBackend(AudioProxy audio) {
+		this.audio = audio;
+	}
+	
+	@Override
+	public long start(AudioEmitter emitter, float gain, float pan) {
+		handles.put(emitter, audio.acquireSound(emitter.source()));
+		long voice = sound(emitter).loop(audibleGain(gain), 1, pan);
+		// A Sound that could not be played is not stopped, release its handle now.
+		if (voice == -1) {
+			AssetHandle<Sound> handle = handles.remove(emitter);
+			if (handle != null)
+				handle.release();
+		}
+		return voice;
+	}
+	
+	@Override
+	public void update(AudioEmitter emitter, long voice, float gain, float pan) {
+		sound(emitter).setPan(voice, pan, audibleGain(gain));
+	}
+	
+	@Override
+	public void stop(AudioEmitter emitter, long voice) {
+		sound(emitter).stop(voice);
+		AssetHandle<Sound> handle = handles.remove(emitter);
+		if (handle != null)
+			handle.release();
+	}
+	
+	/* @return the gain to play at, silent while the AudioProxy is muted. */
+	private float audibleGain(float gain) {
+		return audio.isMuted() ? 0 : gain;
+	}
+	
+	private Sound sound(AudioEmitter emitter) {
+		AssetHandle<Sound> handle = handles.get(emitter);
+		return handle != null ? handle.getBlocking() : audio.getSound(emitter.source());
+	}
+}
@@ -0,0 +1,175 @@
+package com.jbs.framework.io;
+
+import java.util.ArrayList;
+
+/*
+ * Plays AudioEmitters relative to a listener, normally the center of the camera.
+ * Every update the gain and pan of every emitter are computed in a single pass, the
+ * emitters that cannot be heard are culled and only the loudest are given one of the
+ * limited voices of the AudioBackend. Emitters that lose their voice are stopped and
+ * start again once they are among the loudest.
+ * The gain falls off with the square of the distance until it reaches zero at the
+ * emitter's radius, and the pan follows the horizontal offset from the listener.
+ */
+public class SpatialAudio {
+	
+	private final AudioBackend backend;
+	
+	private final ArrayList<AudioEmitter> emitters = new ArrayList<AudioEmitter>();
+	
+	/* The maximum number of emitters playing at once. */
+	private final int maxVoices;
+	
+	private float[]
+		/* The gain and pan of each emitter in the last update. */
+		gains = new float[64],
+		pans = new float[64];
+	
+	/* The indices of the emitters chosen to play, loudest first. */
+	private final int[] chosen;
+	
+	private float
+		/* The horizontal distance from the listener at which emitters are fully panned. */
+		panWidth,
+		/* The gain below which an emitter is not worth a voice. */
+		minimumGain = 0.01f;
+	
+	private int
+		/* The number of updates so far. */
+		updates,
+		/* The number of emitters chosen to play in the last update. */
+		chosenCount,
+		/* The number of emitters that could be heard in the last update. */
+		audible;
+	
+	/*
+	 * Create a SpatialAudio that plays at most 'maxVoices' emitters at once through
+	 * 'backend'. Emitters 'panWidth' units to the side of the listener are fully panned,
+	 * normally half the width of the virtual screen.
+	 */
+	public SpatialAudio(AudioBackend backend, int maxVoices, float panWidth) {
+		if (maxVoices <= 0)
+			throw new RuntimeException("A SpatialAudio needs at least one voice.");
+		this.backend = backend;
+		this.maxVoices = maxVoices;
+		this.chosen = new int[maxVoices];
+		setPanWidth(panWidth);
+	}
+	
+	public void add(AudioEmitter emitter) {
+		emitters.add(emitter);
+	}
+	
+	/* Remove the emitter, stopping it if it is playing. */
+	public void remove(AudioEmitter emitter) {
+		if (!emitters.remove(emitter))
+			return;
+		if (emitter.voice != -1) {
+			backend.stop(emitter, emitter.voice);
+			emitter.voice = -1;
+		}
+	}
+	
+	/*
+	 * Recompute the gain and pan of every emitter as heard from (listenerX, listenerY)
+	 * and update the voices of the loudest.
+	 */
+	public void update(float listenerX, float listenerY) {
+		final int count = emitters.size();
+		if (gains.length < count) {
+			gains = new float[Math.max(count, gains.length * 2)];
+			pans = new float[gains.length];
+		}
+		updates ++;
+		
+		// Compute the gains and pans of every emitter in one pass.
+		final float inversePanWidth = 1 / panWidth;
+		for (int i = 0; i != count; i ++) {
+			AudioEmitter emitter = emitters.get(i);
+			float dx = emitter.x() - listenerX, dy = emitter.y() - listenerY;
+			float distanceSquared = dx*dx + dy*dy;
+			float radiusSquared = emitter.radius() * emitter.radius();
+			gains[i] = distanceSquared >= radiusSquared ? 0
+					: emitter.volume() * (1 - distanceSquared / radiusSquared);
+			pans[i] = Math.max(-1, Math.min(1, dx * inversePanWidth));
+		}
+		
+		// Keep the loudest audible emitters, sorted by gain with an insertion into the
+		// short list of chosen emitters.
+		chosenCount = 0;
+		audible = 0;
+		for (int i = 0; i != count; i ++) {
+			float gain = gains[i];
+			if (gain < minimumGain)
+				continue;
+			audible ++;
+			if (chosenCount == maxVoices && gain <= gains[chosen[chosenCount - 1]])
+				continue;
+			
+			int position = chosenCount < maxVoices ? chosenCount ++ : chosenCount - 1;
+			while (position > 0 && gains[chosen[position - 1]] < gain) {
+				chosen[position] = chosen[position - 1];
+				position --;
+			}
+			chosen[position] = i;
+		}
+		for (int i = 0; i != chosenCount; i ++)
+			emitters.get(chosen[i]).chosenUpdate = updates;
+		
+		// Stop the emitters that lost their voice before starting others, so the backend
+		// never plays more than maxVoices at once.
+		for (int i = 0; i != count; i ++) {
+			AudioEmitter emitter = emitters.get(i);
+			if (emitter.voice != -1 && emitter.chosenUpdate != updates) {
+				backend.stop(emitter, emitter.voice);
+				emitter.voice = -1;
+			}
+		}
+		for (int i = 0; i != chosenCount; i ++) {
+			int index = chosen[i];
+			AudioEmitter emitter = emitters.get(index);
+			if (emitter.voice == -1)
+				emitter.voice = backend.start(emitter, gains[index], pans[index]);
+			else
+				backend.update(emitter, emitter.voice, gains[index], pans[index]);
+		}
+	}
+	
+	/* Stop every playing emitter, they start again in the next update if they are chosen. */
+	public void stopAll() {
+		for (int i = 0; i != emitters.size(); i ++) {
+			AudioEmitter emitter = emitters.get(i);
+			if (emitter.voice != -1) {
+				backend.stop(emitter, emitter.voice);
+				emitter.voice = -1;
+			}
+		}
+	}
+	
+	/* Set the horizontal distance from the listener at which emitters are fully panned. */
+	public void setPanWidth(float panWidth) {
+		if (panWidth <= 0)
+			throw new RuntimeException("Cannot set the pan width of a SpatialAudio to " + panWidth + ".");
+		this.panWidth = panWidth;
+	}
+	
+	/* Set the gain below which an emitter is culled instead of played. */
+	public void setMinimumGain(float minimumGain) {
+		this.minimumGain = minimumGain;
+	}
+	
+	/* @return the number of emitters that could be heard in the last update. */
+	public int audible() {
+		return audible;
+	}
+	
+	/* @return the number of emitters playing since the last update. */
+	public int playing() {
+		return chosenCount;
+	}
+	
+	/* @return the number of emitters. */
+	public int size() {
+		return emitters.size();
+	}
+}
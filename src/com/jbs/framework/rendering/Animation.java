@@ -1,9 +1,12 @@
 package com.jbs.framework.rendering;
 
+import java.nio.ByteBuffer;
+
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.jbs.framework.io.Snapshottable;
 
-public class Animation {
+public class Animation implements Snapshottable {
 	
 	private Texture texture;
 	
@@ -25,6 +28,21 @@ public class Animation {
 	/* The number of frames to switch between in 1 second */
 	private float framesPerSecond;
 	
+	/* The region of every frame, null if the frames are uniform cells of the spritesheet */
+	private final TextureRegion[] frames;
+	
+	/* The time in milliseconds at which each frame ends, null if every frame lasts as long */
+	private final int[] frameEnds;
+	
+	/* The (x, y) offset of each frame from the center of the untrimmed sprite, null if there are none */
+	private final float[] frameOffsets;
+	
+	/* The (width, height) of each frame before it was trimmed, null if the frames are untrimmed */
+	private final int[] frameSourceSizes;
+	
+	/* The region of every sprite in order, built by the first call to spriteTable() */
+	private TextureRegion[] spriteTable;
+	
 	public Animation(Texture texture, int spritesPerRow, int rows, int sprites, float framesPerSecond) {
 		this.texture = texture;
 		this.spritesPerRow = spritesPerRow;
@@ -33,6 +51,54 @@ public class Animation {
 		
 		this.spriteWidth = texture.getWidth() / spritesPerRow;
 		this.spriteHeight = texture.getHeight() / rows;
+		
+		this.frames = null;
+		this.frameEnds = null;
+		this.frameOffsets = null;
+		this.frameSourceSizes = null;
+	}
+	
+	/*
+	 * Create an animation from irregular frames of a spritesheet. Each frame lasts
+	 * for its entry of 'frameDurations' in milliseconds, and may be offset by its
+	 * (x, y) pair of 'frameOffsets', which may be null.
+	 */
+	public Animation(Texture texture, TextureRegion[] frames, int[] frameDurations, float[] frameOffsets) {
+		this(texture, frames, frameDurations, frameOffsets, null);
+	}
+	
+	/*
+	 * Create an animation from trimmed frames of a spritesheet. Like the above, with the
+	 * (width, height) pair of 'frameSourceSizes' giving each frame's size before it was
+	 * trimmed, which may be null.
+	 */
+	public Animation(Texture texture, TextureRegion[] frames, int[] frameDurations, float[] frameOffsets,
+			int[] frameSourceSizes) {
+		if (frames.length == 0 || frames.length != frameDurations.length)
+			throw new RuntimeException("Cannot create an Animation of " + frames.length + " frames with "
+					+ frameDurations.length + " durations.");
+		if (frameOffsets != null && frameOffsets.length != frames.length * 2)
+			throw new RuntimeException("An Animation needs an (x, y) offset for each of its frames.");
+		if (frameSourceSizes != null && frameSourceSizes.length != frames.length * 2)
+			throw new RuntimeException("An Animation needs a (width, height) source size for each of its frames.");
+		
+		this.texture = texture;
+		this.frames = frames;
+		this.frameOffsets = frameOffsets;
+		this.frameSourceSizes = frameSourceSizes;
+		this.sprites = frames.length;
+		this.spritesPerRow = frames.length;
+		this.spriteWidth = frames[0].getRegionWidth();
+		this.spriteHeight = frames[0].getRegionHeight();
+		
+		// Accumulate the durations so that the current frame can be found with a binary search.
+		this.frameEnds = new int[frames.length];
+		int end = 0;
+		for (int i = 0; i != frames.length; i ++)
+			frameEnds[i] = end += Math.max(frameDurations[i], 1);
+		
+		// The nominal frame rate plays every frame for exactly its duration.
+		this.framesPerSecond = frames.length * 1000f / end;
 	}
 	
 	/*
@@ -45,6 +111,10 @@ public class Animation {
 		if (spriteID >= sprites)
 			throw new RuntimeException("Cannot getSprite("+spriteID+") : spriteID must be < the animation's number of sprites");
 		
+		// Irregular frames have their own regions.
+		if (frames != null)
+			return frames[spriteID];
+		
 		// Adjust our spriteID to work with the following equations.
 		//spriteID ++;
 		
@@ -75,6 +145,9 @@ public class Animation {
 		// If paused, it is equal to (the last time we stopped) - (total time the animation has been paused)
 		double deltaTime = isAnimating()? (getTime() - totalTimeStopped) : (stopTime - totalTimeStopped);
 		
+		if (frameEnds != null)
+			return frameAt(deltaTime);
+		
 		// deltaFrames is difference in frames since the animation began.
 		double deltaFrames = deltaTime * (framesPerSecond/1000);
 		
@@ -86,6 +159,65 @@ public class Animation {
 		return (int) currentFrame;
 	}
 	
+	/*
+	 * @return the frame shown 'deltaTime' milliseconds into an animation with per-frame durations.
+	 */
+	private int frameAt(double deltaTime) {
+		int totalDuration = frameEnds[frameEnds.length - 1];
+		// Scale the time by the ratio of the frame rate to the nominal frame rate.
+		double nominalFramesPerSecond = frameEnds.length * 1000.0 / totalDuration;
+		double time = (deltaTime * (framesPerSecond / nominalFramesPerSecond)) % totalDuration;
+		
+		// Find the first frame that ends after 'time'.
+		int low = 0, high = frameEnds.length - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (frameEnds[middle] <= time)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+	
+	/*
+	 * @return the duration of the sprite in milliseconds at the animation's frame rate.
+	 */
+	public float frameDuration(int spriteID) {
+		if (frameEnds == null)
+			return 1000 / framesPerSecond;
+		int duration = frameEnds[spriteID] - (spriteID == 0 ? 0 : frameEnds[spriteID - 1]);
+		return duration * (frameEnds.length * 1000f / frameEnds[frameEnds.length - 1]) / framesPerSecond;
+	}
+	
+	/*
+	 * @return the x offset of the sprite from the center of the untrimmed sprite.
+	 */
+	public float frameOffsetX(int spriteID) {
+		return frameOffsets == null ? 0 : frameOffsets[spriteID * 2];
+	}
+	
+	/*
+	 * @return the y offset of the sprite from the center of the untrimmed sprite.
+	 */
+	public float frameOffsetY(int spriteID) {
+		return frameOffsets == null ? 0 : frameOffsets[spriteID * 2 + 1];
+	}
+	
+	/*
+	 * @return the width of the sprite before it was trimmed.
+	 */
+	public int frameSourceWidth(int spriteID) {
+		return frameSourceSizes == null ? spriteTable()[spriteID].getRegionWidth() : frameSourceSizes[spriteID * 2];
+	}
+	
+	/*
+	 * @return the height of the sprite before it was trimmed.
+	 */
+	public int frameSourceHeight(int spriteID) {
+		return frameSourceSizes == null ? spriteTable()[spriteID].getRegionHeight() : frameSourceSizes[spriteID * 2 + 1];
+	}
+	
 	/*
 	 * Reset the animation to it's first frame.
 	 */
@@ -131,6 +263,28 @@ public class Animation {
 		return texture;
 	}
 	
+	/*
+	 * @return the total number of sprites in the animation.
+	 */
+	public int sprites() {
+		return sprites;
+	}
+	
+	/*
+	 * @return a table holding every sprite of the animation in order, for renderers
+	 * that share one set of regions between many objects. The table is built once and
+	 * shared by every caller, it must not be modified.
+	 */
+	public TextureRegion[] spriteTable() {
+		if (spriteTable == null) {
+			TextureRegion[] table = new TextureRegion[sprites()];
+			for (int i = 0; i != table.length; i ++)
+				table[i] = getSprite(i);
+			spriteTable = table;
+		}
+		return spriteTable;
+	}
+	
 	/*
 	 * @return the animation's frame rate;
 	 */
@@ -146,6 +300,50 @@ public class Animation {
 		this.framesPerSecond = framesPerSecond;
 	}
 	
+	/*
+	 * Write the animation's playhead to 'out'. The playhead is written as the time
+	 * it has been playing for rather than wall-clock times, so a restored animation
+	 * continues from the same frame whenever it is restored.
+	 */
+	@Override
+	public void writeSnapshot(ByteBuffer out) {
+		out.putDouble(playedTime());
+		out.put((byte) (isAnimating() ? 1 : 0));
+		out.putFloat(framesPerSecond);
+	}
+	
+	/*
+	 * Restore the animation's playhead written by writeSnapshot().
+	 */
+	@Override
+	public void readSnapshot(ByteBuffer in) {
+		double playedTime = in.getDouble();
+		boolean animating = in.get() != 0;
+		framesPerSecond = in.getFloat();
+		seek(playedTime, animating);
+	}
+	
+	/*
+	 * @return the time in milliseconds the animation has been playing for, not
+	 * counting the time it was stopped.
+	 */
+	public double playedTime() {
+		return (isAnimating() ? getTime() : stopTime) - totalTimeStopped;
+	}
+	
+	/*
+	 * Move the playhead to 'playedTime' milliseconds, leaving the animation
+	 * playing or stopped.
+	 */
+	public void seek(double playedTime, boolean animating) {
+		double now = getTime();
+		// Stopping or starting the animation now leaves it in the requested state,
+		// then the time stopped is chosen so that it has played for 'playedTime'.
+		stopTime = now;
+		startTime = animating ? now : now - 1;
+		totalTimeStopped = now - playedTime;
+	}
+	
 	/*
 	 * @return the system's time in milliseconds.
 	 */
@@ -0,0 +1,204 @@
+package com.jbs.framework.rendering;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/*
+ * A compact binary description of the Animations in one spritesheet: the region,
+ * trim offset, untrimmed size and duration of every frame, and named clips of
+ * consecutive frames.
+ * The frames are stored as one block of shorts so loading is a single bulk copy.
+ * Files are made from JSON sheets with the AnimationSheetConverter.
+ *
+ * Layout, big-endian:
+ *  int magic, int version, int frameCount, int clipCount,
+ *  frameCount records of 9 shorts: x, y, width, height, offsetX * 2, offsetY * 2, duration in ms,
+ *  source width, source height,
+ *  clipCount clips of: unsigned short name length, UTF-8 name, int first frame, int frame count.
+ */
+public final class AnimationFile {
+	
+	/* Identifies an animation file, followed by the format version. */
+	private static final int MAGIC = 0x4A425341, VERSION = 2;
+	
+	/* The number of shorts in one frame record. */
+	static final int FRAME_STRIDE = 9;
+	
+	static final int
+		X = 0, Y = 1, WIDTH = 2, HEIGHT = 3, OFFSET_X = 4, OFFSET_Y = 5, DURATION = 6,
+		/* The size of the frame before it was trimmed. */
+		SOURCE_WIDTH = 7, SOURCE_HEIGHT = 8;
+	
+	/* Every frame record, FRAME_STRIDE shorts each. */
+	private final short[] frames;
+	
+	private final String[] clipNames;
+	private final int[] clipFirstFrames, clipFrameCounts;
+	
+	AnimationFile(short[] frames, String[] clipNames, int[] clipFirstFrames, int[] clipFrameCounts) {
+		this.frames = frames;
+		this.clipNames = clipNames;
+		this.clipFirstFrames = clipFirstFrames;
+		this.clipFrameCounts = clipFrameCounts;
+	}
+	
+	/*
+	 * Load an animation file. Files on the local file system are memory mapped,
+	 * others, such as files packed inside an APK, are read into memory.
+	 */
+	public static AnimationFile load(FileHandle file) {
+		return read(bytesOf(file), file.path());
+	}
+	
+	/* @return the number of frames in the file. */
+	public int frameCount() {
+		return frames.length / FRAME_STRIDE;
+	}
+	
+	/* @return the names of the clips in the file. */
+	public String[] clipNames() {
+		return clipNames.clone();
+	}
+	
+	/*
+	 * @return a region for every frame of the file, in order, cut from 'texture'.
+	 */
+	public TextureRegion[] regions(Texture texture) {
+		TextureRegion[] regions = new TextureRegion[frameCount()];
+		for (int i = 0, base = 0; i != regions.length; i ++, base += FRAME_STRIDE)
+			regions[i] = new TextureRegion(texture, frames[base + X], frames[base + Y], frames[base + WIDTH], frames[base + HEIGHT]);
+		return regions;
+	}
+	
+	/*
+	 * @return an Animation of every clip in the file, keyed by name. All of the
+	 * Animations share one table of regions cut from 'texture'.
+	 */
+	public HashMap<String, Animation> createAnimations(Texture texture) {
+		TextureRegion[] regions = regions(texture);
+		HashMap<String, Animation> animations = new HashMap<String, Animation>();
+		for (int clip = 0; clip != clipNames.length; clip ++)
+			animations.put(clipNames[clip], createAnimation(texture, regions, clip));
+		return animations;
+	}
+	
+	/*
+	 * @return an Animation of the named clip, cut from 'texture'.
+	 */
+	public Animation createAnimation(String clipName, Texture texture) {
+		for (int clip = 0; clip != clipNames.length; clip ++)
+			if (clipNames[clip].equals(clipName))
+				return createAnimation(texture, regions(texture), clip);
+		throw new RuntimeException("The animation file has no clip named " + clipName);
+	}
+	
+	/* Write the file to 'out'. */
+	public void write(FileHandle out) {
+		byte[][] names = new byte[clipNames.length][];
+		int size = 16 + frames.length * 2;
+		for (int clip = 0; clip != clipNames.length; clip ++) {
+			names[clip] = utf8(clipNames[clip]);
+			size += 2 + names[clip].length + 8;
+		}
+		
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(frameCount()).putInt(clipNames.length);
+		buffer.asShortBuffer().put(frames);
+		buffer.position(buffer.position() + frames.length * 2);
+		for (int clip = 0; clip != clipNames.length; clip ++) {
+			buffer.putShort((short) names[clip].length).put(names[clip]);
+			buffer.putInt(clipFirstFrames[clip]).putInt(clipFrameCounts[clip]);
+		}
+		out.writeBytes(buffer.array(), false);
+	}
+	
+	private Animation createAnimation(Texture texture, TextureRegion[] regions, int clip) {
+		int first = clipFirstFrames[clip], count = clipFrameCounts[clip];
+		TextureRegion[] clipRegions = new TextureRegion[count];
+		int[] durations = new int[count];
+		float[] offsets = new float[count * 2];
+		int[] sourceSizes = new int[count * 2];
+		
+		System.arraycopy(regions, first, clipRegions, 0, count);
+		for (int i = 0; i != count; i ++) {
+			int base = (first + i) * FRAME_STRIDE;
+			durations[i] = frames[base + DURATION] & 0xffff;
+			offsets[i * 2] = frames[base + OFFSET_X] / 2f;
+			offsets[i * 2 + 1] = frames[base + OFFSET_Y] / 2f;
+			sourceSizes[i * 2] = frames[base + SOURCE_WIDTH] & 0xffff;
+			sourceSizes[i * 2 + 1] = frames[base + SOURCE_HEIGHT] & 0xffff;
+		}
+		return new Animation(texture, clipRegions, durations, offsets, sourceSizes);
+	}
+	
+	/* Parse the file held in 'buffer'. */
+	private static AnimationFile read(ByteBuffer buffer, String path) {
+		if (buffer.getInt() != MAGIC)
+			throw new RuntimeException(path + " is not an animation file.");
+		if (buffer.getInt() != VERSION)
+			throw new RuntimeException(path + " is from an unsupported version of the animation format.");
+		
+		int frameCount = buffer.getInt(), clipCount = buffer.getInt();
+		
+		// Copy every frame record at once.
+		short[] frames = new short[frameCount * FRAME_STRIDE];
+		buffer.asShortBuffer().get(frames);
+		buffer.position(buffer.position() + frames.length * 2);
+		
+		String[] clipNames = new String[clipCount];
+		int[] clipFirstFrames = new int[clipCount], clipFrameCounts = new int[clipCount];
+		for (int clip = 0; clip != clipCount; clip ++) {
+			byte[] name = new byte[buffer.getShort() & 0xffff];
+			buffer.get(name);
+			clipNames[clip] = string(name);
+			clipFirstFrames[clip] = buffer.getInt();
+			clipFrameCounts[clip] = buffer.getInt();
+			if (clipFirstFrames[clip] < 0 || clipFrameCounts[clip] <= 0 || clipFirstFrames[clip] + clipFrameCounts[clip] > frameCount)
+				throw new RuntimeException(path + " has a clip outside of its frames: " + clipNames[clip]);
+		}
+		return new AnimationFile(frames, clipNames, clipFirstFrames, clipFrameCounts);
+	}
+	
+	/* @return the contents of the file, memory mapped if it is on the local file system. */
+	private static ByteBuffer bytesOf(FileHandle file) {
+		File local = file.file();
+		if (local.isFile()) {
+			RandomAccessFile input = null;
+			try {
+				input = new RandomAccessFile(local, "r");
+				return input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, local.length());
+			} catch (IOException e) {
+				// Fall back to reading the file through the FileHandle.
+			} finally {
+				StreamUtils.closeQuietly(input);
+			}
+		}
+		return ByteBuffer.wrap(file.readBytes());
+	}
+	
+	static byte[] utf8(String string) {
+		try {
+			return string.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	private static String string(byte[] utf8) {
+		try {
+			return new String(utf8, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.jbs.framework.rendering;
+
+import java.util.ArrayList;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+
+/*
+ * Converts JSON spritesheet descriptions to AnimationFiles. Both the hash and the
+ * array layouts written by TexturePacker and Aseprite are understood. Aseprite
+ * frame tags become named clips; sheets without tags get a single clip named
+ * "default" holding every frame. Frames without a duration last 'defaultDuration'.
+ */
+public final class AnimationSheetConverter {
+	
+	/* The name of the clip made when the sheet has no tags. */
+	public static final String DEFAULT_CLIP = "default";
+	
+	private AnimationSheetConverter() { }
+	
+	/* Convert the JSON sheet to an animation file written to 'out'. */
+	public static void convert(FileHandle json, FileHandle out, int defaultDuration) {
+		fromJson(json, defaultDuration).write(out);
+	}
+	
+	/* @return the AnimationFile described by the JSON sheet. */
+	public static AnimationFile fromJson(FileHandle json, int defaultDuration) {
+		JsonValue root = new JsonReader().parse(json);
+		JsonValue frameList = root.get("frames");
+		if (frameList == null)
+			throw new RuntimeException(json.path() + " has no frames.");
+		
+		// Frames may be an array, or an object keyed by frame name in order.
+		ArrayList<JsonValue> frameValues = new ArrayList<JsonValue>();
+		for (JsonValue frame = frameList.child; frame != null; frame = frame.next)
+			frameValues.add(frame);
+		
+		short[] frames = new short[frameValues.size() * AnimationFile.FRAME_STRIDE];
+		for (int i = 0; i != frameValues.size(); i ++)
+			readFrame(frameValues.get(i), frames, i * AnimationFile.FRAME_STRIDE, defaultDuration);
+		
+		// Read the clips from Aseprite's frame tags, if there are any.
+		JsonValue meta = root.get("meta");
+		JsonValue tags = meta == null ? null : meta.get("frameTags");
+		ArrayList<String> names = new ArrayList<String>();
+		ArrayList<Integer> firsts = new ArrayList<Integer>(), counts = new ArrayList<Integer>();
+		if (tags != null)
+			for (JsonValue tag = tags.child; tag != null; tag = tag.next) {
+				int from = tag.getInt("from"), to = tag.getInt("to");
+				names.add(tag.getString("name"));
+				firsts.add(from);
+				counts.add(to - from + 1);
+			}
+		if (names.isEmpty()) {
+			names.add(DEFAULT_CLIP);
+			firsts.add(0);
+			counts.add(frameValues.size());
+		}
+		
+		int[] clipFirstFrames = new int[names.size()], clipFrameCounts = new int[names.size()];
+		for (int i = 0; i != names.size(); i ++) {
+			clipFirstFrames[i] = firsts.get(i);
+			clipFrameCounts[i] = counts.get(i);
+		}
+		return new AnimationFile(frames, names.toArray(new String[names.size()]), clipFirstFrames, clipFrameCounts);
+	}
+	
+	/* Write one frame's record into 'frames' at 'base'. */
+	private static void readFrame(JsonValue value, short[] frames, int base, int defaultDuration) {
+		JsonValue frame = value.get("frame");
+		// A rotated frame is stored turned by 90 degrees, which TextureRegions cannot express.
+		if (value.getBoolean("rotated", false))
+			throw new RuntimeException("Rotated frames are not supported, export the sheet with rotation disabled.");
+		int x = frame.getInt("x"), y = frame.getInt("y"), width = frame.getInt("w"), height = frame.getInt("h");
+		
+		// A trimmed frame is offset from the center of its untrimmed source.
+		int offsetX2 = 0, offsetY2 = 0, sourceWidth = width, sourceHeight = height;
+		if (value.getBoolean("trimmed", false)) {
+			JsonValue trim = value.get("spriteSourceSize"), source = value.get("sourceSize");
+			sourceWidth = source.getInt("w");
+			sourceHeight = source.getInt("h");
+			offsetX2 = 2 * trim.getInt("x") + width - sourceWidth;
+			// The sheet's y axis points down, the framework's points up.
+			offsetY2 = sourceHeight - 2 * trim.getInt("y") - height;
+		}
+		
+		frames[base + AnimationFile.X] = (short) x;
+		frames[base + AnimationFile.Y] = (short) y;
+		frames[base + AnimationFile.WIDTH] = (short) width;
+		frames[base + AnimationFile.HEIGHT] = (short) height;
+		frames[base + AnimationFile.OFFSET_X] = (short) offsetX2;
+		frames[base + AnimationFile.OFFSET_Y] = (short) offsetY2;
+		frames[base + AnimationFile.DURATION] = (short) value.getInt("duration", defaultDuration);
+		frames[base + AnimationFile.SOURCE_WIDTH] = (short) sourceWidth;
+		frames[base + AnimationFile.SOURCE_HEIGHT] = (short) sourceHeight;
+	}
+}
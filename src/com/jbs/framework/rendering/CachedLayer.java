@@ -0,0 +1,199 @@
+package com.jbs.framework.rendering;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+
+/*
+ * A group of Renderables that is drawn once into a FrameBuffer and then reused as
+ * a single quad until one of its members changes. Members that are Changeable are
+ * checked every frame by comparing their revisions, any other member only causes a
+ * redraw when the layer is invalidated.
+ * The members are drawn with premultiplied alpha so that the cached image blends
+ * like the members would have. A layer is only worth it for members that rarely
+ * change, every change redraws the whole layer.
+ * The FrameBuffer requires OpenGL ES 2.0.
+ * The cached image is lost with the OpenGL context, invalidate() the layer when
+ * the Application is resumed.
+ */
+public class CachedLayer implements Renderable, Disposable {
+	
+	private final float
+		/* The bottom left corner of the layer in virtual units. */
+		x, y,
+		/* The size of the layer in virtual units. */
+		width, height;
+	
+	private final FrameBuffer frameBuffer;
+	
+	private final ArrayList<Renderable> members = new ArrayList<Renderable>();
+	
+	/* The revision of each Changeable member when the layer was last drawn. */
+	private int[] revisions = new int[16];
+	
+	/* True if the cached image has to be drawn again. */
+	private boolean dirty = true;
+	
+	/* The batch's projection, kept while the layer is drawn into the FrameBuffer. */
+	private final Matrix4 savedProjection = new Matrix4(), layerProjection = new Matrix4();
+	
+	/* The viewport, kept while the layer is drawn into the FrameBuffer. */
+	private final IntBuffer savedViewport = BufferUtils.newIntBuffer(16);
+	
+	/* The number of times the layer has been drawn into its FrameBuffer. */
+	private int redraws;
+	
+	/*
+	 * Create a layer covering the rectangle from (x, y) with the specified size in
+	 * virtual units, cached in a FrameBuffer of pixelWidth by pixelHeight pixels.
+	 */
+	public CachedLayer(float x, float y, float width, float height, int pixelWidth, int pixelHeight) {
+		if (width <= 0 || height <= 0 || pixelWidth <= 0 || pixelHeight <= 0)
+			throw new RuntimeException("Cannot create a CachedLayer of size " + width + "x" + height
+					+ " (" + pixelWidth + "x" + pixelHeight + " pixels).");
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+		
+		frameBuffer = new FrameBuffer(Format.RGBA8888, pixelWidth, pixelHeight, false);
+		frameBuffer.getColorBufferTexture().setFilter(TextureFilter.Linear, TextureFilter.Linear);
+		layerProjection.setToOrtho2D(x, y, width, height);
+	}
+	
+	/*
+	 * Add a member to the top of the layer.
+	 */
+	public void add(Renderable member) {
+		members.add(member);
+		if (revisions.length < members.size()) {
+			int[] larger = new int[revisions.length * 2];
+			System.arraycopy(revisions, 0, larger, 0, revisions.length);
+			revisions = larger;
+		}
+		dirty = true;
+	}
+	
+	/*
+	 * Remove a member from the layer.
+	 */
+	public void remove(Renderable member) {
+		int index = members.indexOf(member);
+		if (index == -1)
+			throw new RuntimeException("Cannot remove a Renderable that is not in the CachedLayer.");
+		members.remove(index);
+		System.arraycopy(revisions, index + 1, revisions, index, members.size() - index);
+		dirty = true;
+	}
+	
+	/*
+	 * Draw the layer again the next time it is rendered, needed when a member that is
+	 * not Changeable changes or the OpenGL context was lost.
+	 */
+	public void invalidate() {
+		dirty = true;
+	}
+	
+	@Override
+	public void renderTo(SpriteBatch batch) {
+		if (dirty || membersChanged())
+			redraw(batch);
+		
+		// The cached image is premultiplied, blend it as such.
+		int srcFunc = batch.getBlendSrcFunc(), dstFunc = batch.getBlendDstFunc();
+		batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		// FrameBuffer textures are stored bottom up, so v runs from the bottom of the quad.
+		batch.draw(frameBuffer.getColorBufferTexture(), x, y, width, height, 0, 0, 1, 1);
+		batch.setBlendFunction(srcFunc, dstFunc);
+	}
+	
+	/*
+	 * @return true if a Changeable member's revision differs from when the layer was drawn.
+	 */
+	private boolean membersChanged() {
+		for (int i = 0, size = members.size(); i != size; i ++) {
+			Renderable member = members.get(i);
+			if (member instanceof Changeable && ((Changeable) member).revision() != revisions[i])
+				return true;
+		}
+		return false;
+	}
+	
+	/*
+	 * Draw every member into the FrameBuffer, 'batch' must be drawing and is left drawing.
+	 */
+	private void redraw(SpriteBatch batch) {
+		// Finish what was drawn so far and keep the state we are about to change.
+		batch.end();
+		savedProjection.set(batch.getProjectionMatrix());
+		savedViewport.clear();
+		Gdx.gl.glGetIntegerv(GL20.GL_VIEWPORT, savedViewport);
+		int srcFunc = batch.getBlendSrcFunc(), dstFunc = batch.getBlendDstFunc();
+		
+		frameBuffer.begin();
+		Gdx.gl.glClearColor(0, 0, 0, 0);
+		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+		
+		// Premultiply the members' colors while they are drawn, and accumulate
+		// their coverage in the alpha channel. A blend function of -1 stops the
+		// batch from replacing the separate blend function when it flushes.
+		batch.setProjectionMatrix(layerProjection);
+		batch.setBlendFunction(-1, -1);
+		batch.begin();
+		Gdx.gl20.glBlendFuncSeparate(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA,
+				GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		for (int i = 0, size = members.size(); i != size; i ++) {
+			Renderable member = members.get(i);
+			member.renderTo(batch);
+			if (member instanceof Changeable)
+				revisions[i] = ((Changeable) member).revision();
+		}
+		batch.end();
+		frameBuffer.end();
+		
+		// Restore the state of the screen and continue drawing.
+		Gdx.gl.glViewport(savedViewport.get(0), savedViewport.get(1), savedViewport.get(2), savedViewport.get(3));
+		batch.setProjectionMatrix(savedProjection);
+		batch.setBlendFunction(srcFunc, dstFunc);
+		batch.begin();
+		
+		dirty = false;
+		redraws ++;
+	}
+	
+	/*
+	 * @return the texture holding the cached image.
+	 */
+	public final Texture texture() {
+		return frameBuffer.getColorBufferTexture();
+	}
+	
+	/*
+	 * @return the number of times the layer has been drawn into its FrameBuffer.
+	 */
+	public final int redraws() {
+		return redraws;
+	}
+	
+	/*
+	 * @return the number of Renderables in the layer.
+	 */
+	public final int size() {
+		return members.size();
+	}
+	
+	@Override
+	public void dispose() {
+		frameBuffer.dispose();
+	}
+}
@@ -0,0 +1,10 @@
+package com.jbs.framework.rendering;
+
+/*
+ * A Renderable whose appearance can change. The revision changes every time the
+ * object would render differently, so a cache can compare revisions to find out
+ * whether it is stale.
+ */
+public interface Changeable extends Renderable {
+	public int revision();
+}
@@ -1,12 +1,17 @@
 package com.jbs.framework.rendering;
 
+import java.nio.ByteBuffer;
+
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.NumberUtils;
+import com.jbs.framework.io.Snapshottable;
 
-public class Graphic implements Renderable {
+public class Graphic implements Changeable, Snapshottable {
 	
 	/** The Texture to be rendered */
 	private TextureRegion texture;
@@ -21,6 +26,34 @@ public class Graphic implements Renderable {
 	/** The Graphic's rotation in degrees */
 	private float rotation;
 	
+	/** The offset of the texture's center from the graphic's center in the graphic's
+	 * unscaled units, such as the trim offset of an animation frame. */
+	private float textureOffsetX, textureOffsetY;
+	
+	/** The Graphic's tint, packed into float bits (ABGR) once when it is set. */
+	private float packedTint = SpriteVertices.WHITE;
+	
+	/** True if the Graphic has its own tint and should be submitted as vertices. */
+	private boolean tinted;
+	
+	/** The color requested by renderTo(batch, alpha) or renderTo(batch, tint) for the current render. */
+	private float requestedColor;
+	
+	/** True while renderTo(batch) is called on behalf of renderTo(batch, alpha) or renderTo(batch, tint). */
+	private boolean colorRequested;
+	
+	/** The Graphic's vertex data, created the first time it is submitted as vertices. */
+	private float[] vertices;
+	
+	/** Notified when the Graphic's transform changes, the first 'transformListenerCount' are in use. */
+	private TransformListener[] transformListeners = NO_LISTENERS;
+	private int transformListenerCount;
+	
+	private static final TransformListener[] NO_LISTENERS = new TransformListener[0];
+	
+	/** Incremented every time the Graphic's appearance changes. */
+	private int revision;
+	
 	/**
 	 * Create a new Graphic with it's center set to (x, y), with a width and height,
 	 * the Texture 'texture'.
@@ -66,6 +99,7 @@ public class Graphic implements Renderable {
 	 */
 	public void setPosition(float x, float y) {
 		position.set(x, y);
+		transformChanged();
 	}
 	
 	/**
@@ -73,6 +107,7 @@ public class Graphic implements Renderable {
 	 */
 	public final void setPosition(Vector2 newPosition) {
 		position.set(newPosition);
+		transformChanged();
 	}
 	
 	/**
@@ -92,6 +127,21 @@ public class Graphic implements Renderable {
 	
 	public void setScale(float scaleX, float scaleY) {
 		scale.set(scaleX, scaleY);
+		transformChanged();
+	}
+	
+	/**
+	 * Set the graphic's center to (x, y), its rotation to 'degrees' and its scale to
+	 * (scaleX, scaleY) at once, so the transform listeners are notified a single time.
+	 */
+	public void setTransform(float x, float y, float degrees, float scaleX, float scaleY) {
+		// Nothing needs to be notified if the graphic is already in place.
+		if (position.x == x && position.y == y && rotation == degrees && scale.x == scaleX && scale.y == scaleY)
+			return;
+		position.set(x, y);
+		rotation = degrees;
+		scale.set(scaleX, scaleY);
+		transformChanged();
 	}
 	
 	/**
@@ -99,6 +149,7 @@ public class Graphic implements Renderable {
 	 */
 	public void scale(float amountX, float amountY) {
 		scale.mul(amountX, amountY);
+		transformChanged();
 	}
 	
 	/**
@@ -160,6 +211,7 @@ public class Graphic implements Renderable {
 	 */
 	public void setWidth(float newWidth) {
 		size.x = newWidth;
+		transformChanged();
 	}
 	
 	/**
@@ -167,6 +219,7 @@ public class Graphic implements Renderable {
 	 */
 	public void setHeight(float newHeight) {
 		size.y = newHeight;
+		transformChanged();
 	}
 	
 	/**
@@ -189,6 +242,7 @@ public class Graphic implements Renderable {
 	 */
 	public void setRotation(float degrees) {
 		rotation = degrees;
+		transformChanged();
 	}
 	
 	/**
@@ -196,6 +250,7 @@ public class Graphic implements Renderable {
 	 */
 	public void rotate(float degrees) {
 		rotation += degrees;
+		transformChanged();
 	}
 	
 	/**
@@ -209,22 +264,57 @@ public class Graphic implements Renderable {
 		return this.rotation;
 	}
 	
+	/**
+	 * Offset the texture's center from the graphic's center by (x, y) in the graphic's
+	 * unscaled units, the same units as its size, before the graphic is scaled and rotated.
+	 * Used for the trim offsets of animation frames, so that a frame trimmed to its visible
+	 * pixels is drawn where it was in the untrimmed sprite.
+	 */
+	public void setTextureOffset(float x, float y) {
+		if (x == textureOffsetX && y == textureOffsetY)
+			return;
+		textureOffsetX = x;
+		textureOffsetY = y;
+		appearanceChanged();
+	}
+	
+	/**
+	 * @return the horizontal offset of the texture's center in the graphic's units.
+	 */
+	public final float textureOffsetX() {
+		return textureOffsetX * scale.x;
+	}
+	
+	/**
+	 * @return the vertical offset of the texture's center in the graphic's units.
+	 */
+	public final float textureOffsetY() {
+		return textureOffsetY * scale.y;
+	}
+	
 	/**
 	 * Set the graphic's texture to newTexture.
 	 */
 	public void setTexture(TextureRegion newTexture) {
 		texture = newTexture;
+		appearanceChanged();
 	}
 	
 	/**
 	 * Draw the graphic's texture to the batch with the graphic's size
 	 * assuming that graphic's position is it's center.
+	 * If the graphic has a tint it is applied without changing the batch's color.
 	 */
 	public void renderTo(SpriteBatch batch) {
+		if (tinted || colorRequested) {
+			submitTo(batch, renderColor(batch));
+			return;
+		}
+		final float offsetX = textureOffsetX(), offsetY = textureOffsetY();
 		batch.draw(
 				texture(), // Draw the Graphic's texture.
-				x() - width()/2, y() - height()/2, // The position to render at.
-				width()/2, height()/2, // The offset relative to the position to rotate around.
+				x() - width()/2 + offsetX, y() - height()/2 + offsetY, // The position to render at.
+				width()/2 - offsetX, height()/2 - offsetY, // The offset relative to the position to rotate around.
 				width(), height(), // The size to stretch the texture to.
 				1, 1, // The x and y scale of the rendered texture.
 				rotation // The rotation of the rendered texture.
@@ -235,41 +325,130 @@ public class Graphic implements Renderable {
 	 * Draw the graphic's texture to the batch with the graphic's size
 	 * with the transparency of 'alpha'.
 	 * Assumes that the position of the graphic is it's center.
+	 * The color is written into the graphic's vertices, the batch's color is untouched.
 	 */
 	public void renderTo(SpriteBatch batch, float alpha) {
-		// Set the identity color to the batch's current color.
-		Color identity = batch.getColor();
-		
-		// The color 'temporaryColor' represents the identity color but with 'alpha' transparency.
-		Color temporaryColor = new Color(identity.r, identity.g, identity.b, alpha);
-		
-		// Set the sprite batch's color to the temporary color.
-		batch.setColor(temporaryColor);
-		
-		// Draw the texture centered around the point 'position'.
-		renderTo(batch);
-		
-		// Reset the batch's color back to it's color before we changed it.
-		batch.setColor(identity);
+		// Use the batch's current color, or the graphic's tint if it has one, with 'alpha' transparency.
+		if (tinted) {
+			renderWith(batch, withAlpha(packedTint, alpha));
+		} else {
+			Color identity = batch.getColor();
+			renderWith(batch, Color.toFloatBits(identity.r, identity.g, identity.b, alpha));
+		}
 	}
 	
 	/**
 	 * Draw the graphic's texture to the batch with the graphic's size
 	 * with the color 'tint'.
 	 * Assumes that the position of the graphic is it's center.
+	 * The color is written into the graphic's vertices, the batch's color is untouched.
 	 */
 	public void renderTo(SpriteBatch batch, Color tint) {
-		// Set the identity color to the batch's current color.
-		Color identity = batch.getColor();
-		
-		// Set the sprite batch's color to the specified tint.
-		batch.setColor(tint);
-		
-		// Draw the texture centered around the point 'position'.
-		renderTo(batch);
-		
-		// Reset the batch's color back to it's color before we changed it.
-		batch.setColor(identity);
+		renderWith(batch, tint.toFloatBits());
+	}
+	
+	/**
+	 * Render the graphic through renderTo(batch) with the packed color 'packedColor',
+	 * so subclasses that override renderTo(batch) are used for every render.
+	 */
+	private void renderWith(SpriteBatch batch, float packedColor) {
+		requestedColor = packedColor;
+		colorRequested = true;
+		try {
+			renderTo(batch);
+		} finally {
+			colorRequested = false;
+		}
+	}
+	
+	/**
+	 * @return the packed color the graphic is being rendered with: the color passed to
+	 * renderTo(batch, alpha) or renderTo(batch, tint), else the graphic's tint, else the
+	 * batch's color. Subclasses that override renderTo(batch) should draw with it.
+	 */
+	protected final float renderColor(SpriteBatch batch) {
+		if (colorRequested)
+			return requestedColor;
+		if (tinted)
+			return packedTint;
+		return batch.getColor().toFloatBits();
+	}
+	
+	/**
+	 * Write the graphic's vertices with the packed color 'packedColor' and
+	 * submit them to the batch without changing the batch's color.
+	 */
+	public void submitTo(SpriteBatch batch, float packedColor) {
+		if (vertices == null)
+			vertices = new float[SpriteVertices.SPRITE_SIZE];
+		TextureRegion region = texture();
+		SpriteVertices.write(vertices, 0, region.getU(), region.getV(), region.getU2(), region.getV2(),
+				x(), y(), width()/2 - textureOffsetX(), height()/2 - textureOffsetY(), width(), height(),
+				rotation, packedColor);
+		batch.draw(region.getTexture(), vertices, 0, SpriteVertices.SPRITE_SIZE);
+	}
+	
+	/**
+	 * Set the graphic's tint, applied every time the graphic is rendered.
+	 */
+	public void setTint(float r, float g, float b, float a) {
+		packedTint = Color.toFloatBits(r, g, b, a);
+		tinted = true;
+		appearanceChanged();
+	}
+	
+	/**
+	 * Set the graphic's tint to 'tint', applied every time the graphic is rendered.
+	 */
+	public final void setTint(Color tint) {
+		setTint(tint.r, tint.g, tint.b, tint.a);
+	}
+	
+	/**
+	 * Set the graphic's tint to already packed float bits (ABGR).
+	 */
+	public void setPackedTint(float packedColor) {
+		packedTint = packedColor;
+		tinted = true;
+		appearanceChanged();
+	}
+	
+	/**
+	 * Set the transparency of the graphic's tint, keeping its color.
+	 */
+	public void setAlpha(float alpha) {
+		setPackedTint(withAlpha(packedTint, alpha));
+	}
+	
+	/**
+	 * Remove the graphic's tint, it will be rendered with the batch's color.
+	 */
+	public void clearTint() {
+		packedTint = SpriteVertices.WHITE;
+		tinted = false;
+		appearanceChanged();
+	}
+	
+	/**
+	 * @return the graphic's tint packed into float bits (ABGR).
+	 */
+	public final float packedTint() {
+		return packedTint;
+	}
+	
+	/**
+	 * @return true if the graphic has its own tint.
+	 */
+	public final boolean isTinted() {
+		return tinted;
+	}
+	
+	/**
+	 * @return the packed color 'packedColor' with its alpha replaced by 'alpha'.
+	 */
+	private static float withAlpha(float packedColor, float alpha) {
+		int abgr = NumberUtils.floatToIntColor(packedColor);
+		return NumberUtils.intToFloatColor(((int) (255 * alpha) << 24) | (abgr & 0x00ffffff));
 	}
 	
 	public static void drawRotated(SpriteBatch batch, TextureRegion texture, Vector2 center, float degrees) {
@@ -291,8 +470,123 @@ public class Graphic implements Renderable {
 	public Vector2 getPosition() {
 		return new Vector2(x(),y());
 	}
+	
+	/**
+	 * Write the center of the graphic into 'out' without allocating.
+	 * @return 'out'.
+	 */
+	public Vector2 getPosition(Vector2 out) {
+		return out.set(x(), y());
+	}
 
+	/**
+	 * Add a listener to notify whenever the graphic's position, size, scale
+	 * or rotation changes. Listeners are notified in the order they were added.
+	 */
+	public final void addTransformListener(TransformListener listener) {
+		if (listener == null)
+			throw new RuntimeException("Cannot add a null TransformListener to " + this);
+		if (transformListenerCount == transformListeners.length) {
+			TransformListener[] grown = new TransformListener[Math.max(2, transformListenerCount * 2)];
+			System.arraycopy(transformListeners, 0, grown, 0, transformListenerCount);
+			transformListeners = grown;
+		}
+		transformListeners[transformListenerCount ++] = listener;
+	}
+	
+	/**
+	 * Stop notifying the listener of transform changes.
+	 * @return true if the listener had been added.
+	 */
+	public final boolean removeTransformListener(TransformListener listener) {
+		for (int i = 0; i != transformListenerCount; i ++)
+			if (transformListeners[i] == listener) {
+				// Shift the later listeners down to keep the order they were added in.
+				System.arraycopy(transformListeners, i + 1, transformListeners, i, transformListenerCount - i - 1);
+				transformListeners[-- transformListenerCount] = null;
+				return true;
+			}
+		return false;
+	}
+	
+	/**
+	 * @return the number of listeners notified when the graphic's transform changes.
+	 */
+	public final int transformListenerCount() {
+		return transformListenerCount;
+	}
+	
+	/**
+	 * @return the transform listener at 'index', in the order they were added.
+	 */
+	public final TransformListener transformListener(int index) {
+		if (index < 0 || index >= transformListenerCount)
+			throw new RuntimeException("No TransformListener at index " + index + " of " + this);
+		return transformListeners[index];
+	}
+	
+	/**
+	 * Notify the transform listeners that the transform changed.
+	 */
+	protected final void transformChanged() {
+		appearanceChanged();
+		for (int i = 0; i != transformListenerCount; i ++)
+			transformListeners[i].transformChanged(this);
+	}
+	
+	/**
+	 * Write the graphic's transform and tint to 'out'. The texture is not written,
+	 * it is expected to be the same when the graphic is restored.
+	 */
+	@Override
+	public void writeSnapshot(ByteBuffer out) {
+		out.putFloat(position.x).putFloat(position.y);
+		out.putFloat(size.x).putFloat(size.y);
+		out.putFloat(scale.x).putFloat(scale.y);
+		out.putFloat(rotation);
+		out.putFloat(packedTint);
+		out.put((byte) (tinted ? 1 : 0));
+	}
+	
+	/**
+	 * Restore the graphic's transform and tint written by writeSnapshot().
+	 */
+	@Override
+	public void readSnapshot(ByteBuffer in) {
+		position.set(in.getFloat(), in.getFloat());
+		size.set(in.getFloat(), in.getFloat());
+		scale.set(in.getFloat(), in.getFloat());
+		rotation = in.getFloat();
+		packedTint = in.getFloat();
+		tinted = in.get() != 0;
+		transformChanged();
+	}
+	
+	/**
+	 * @return a number that changes every time the graphic's appearance changes.
+	 */
+	@Override
+	public final int revision() {
+		return revision;
+	}
+	
+	/**
+	 * Mark the graphic's appearance as changed, subclasses call this when
+	 * something other than the transform, texture or tint changes how they render.
+	 */
+	protected final void appearanceChanged() {
+		revision ++;
+	}
+	
+	/**
+	 * Set the filters of the graphic's texture. A mipmap minification filter on a
+	 * texture that was loaded without mipmaps falls back to linear filtering,
+	 * since the texture would otherwise not render at all.
+	 */
 	public void setFilter(TextureFilter minFilter, TextureFilter magFilter) {
-		texture.getTexture().setFilter(minFilter,magFilter);
+		Texture target = texture.getTexture();
+		if (minFilter.isMipMap() && !target.getTextureData().useMipMaps())
+			minFilter = TextureFilter.Linear;
+		target.setFilter(minFilter,magFilter);
 	}
 }
\ No newline at end of file
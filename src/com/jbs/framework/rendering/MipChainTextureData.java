@@ -0,0 +1,227 @@
+package com.jbs.framework.rendering;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.glutils.ETC1;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/*
+ * TextureData made of a chain of ETC1 compressed mip levels, as written by the
+ * TexturePipeline. Every level is uploaded compressed when the device supports
+ * ETC1, otherwise each level is decoded and uploaded uncompressed.
+ */
+class MipChainTextureData implements TextureData {
+	
+	/* Identifies a cached mip chain file, followed by the format version. */
+	static final int MAGIC = 0x4A42534D, VERSION = 2;
+	
+	/* The extension the device reports when it can sample ETC1 textures. */
+	private static final String ETC1_EXTENSION = "GL_OES_compressed_ETC1_RGB8_texture";
+	
+	/* The cache file to read the levels from. */
+	private final FileHandle file;
+	
+	/* The content hash of the source image the levels were made from, checked against the cache. */
+	private final long sourceHash;
+	
+	private int[] widths, heights;
+	
+	/* The compressed data of every level, without PKM headers. */
+	private ByteBuffer[] levels;
+	
+	private boolean prepared;
+	
+	/* Create TextureData that reads its levels from a cache file when prepared. */
+	MipChainTextureData(FileHandle file, long sourceHash) {
+		this.file = file;
+		this.sourceHash = sourceHash;
+	}
+	
+	/*
+	 * Create prepared TextureData from levels that are already compressed and were written
+	 * to the cache file, which they are read from again if the OpenGL context is lost.
+	 */
+	MipChainTextureData(FileHandle file, long sourceHash, int[] widths, int[] heights, ByteBuffer[] levels) {
+		this.file = file;
+		this.sourceHash = sourceHash;
+		this.widths = widths;
+		this.heights = heights;
+		this.levels = levels;
+		this.prepared = true;
+	}
+	
+	@Override
+	public TextureDataType getType() {
+		return TextureDataType.Compressed;
+	}
+	
+	@Override
+	public boolean isPrepared() {
+		return prepared;
+	}
+	
+	/*
+	 * Read the levels from the cache file. Safe to call off the rendering thread.
+	 */
+	@Override
+	public void prepare() {
+		if (prepared)
+			throw new RuntimeException("MipChainTextureData is already prepared.");
+		if (!read())
+			throw new RuntimeException(file.path() + " is not a valid mip chain for its source.");
+	}
+	
+	@Override
+	public void consumeCompressedData(int target) {
+		if (!prepared)
+			throw new RuntimeException("MipChainTextureData must be prepared before it is consumed.");
+		
+		boolean compressed = Gdx.graphics.supportsExtension(ETC1_EXTENSION);
+		Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+		for (int level = 0; level != levels.length; level ++) {
+			if (compressed) {
+				Gdx.gl.glCompressedTexImage2D(target, level, ETC1.ETC1_RGB8_OES, widths[level], heights[level], 0,
+						levels[level].capacity(), levels[level]);
+			} else {
+				// Without ETC1 support, decode the level and upload it uncompressed.
+				Pixmap pixmap = ETC1.decodeImage(new ETC1.ETC1Data(widths[level], heights[level], levels[level], 0), Format.RGB565);
+				Gdx.gl.glTexImage2D(target, level, pixmap.getGLInternalFormat(), pixmap.getWidth(), pixmap.getHeight(), 0,
+						pixmap.getGLFormat(), pixmap.getGLType(), pixmap.getPixels());
+				pixmap.dispose();
+			}
+		}
+		
+		// The levels live on the GPU now, they are read again if the context is lost.
+		for (ByteBuffer level : levels)
+			BufferUtils.disposeUnsafeByteBuffer(level);
+		levels = null;
+		prepared = false;
+	}
+	
+	@Override
+	public Pixmap consumePixmap() {
+		throw new RuntimeException("MipChainTextureData is compressed, it has no Pixmap.");
+	}
+	
+	@Override
+	public boolean disposePixmap() {
+		return false;
+	}
+	
+	@Override
+	public int getWidth() {
+		return widths[0];
+	}
+	
+	@Override
+	public int getHeight() {
+		return heights[0];
+	}
+	
+	@Override
+	public Format getFormat() {
+		return Format.RGB565;
+	}
+	
+	@Override
+	public boolean useMipMaps() {
+		return widths.length > 1;
+	}
+	
+	@Override
+	public boolean isManaged() {
+		return true;
+	}
+	
+	/*
+	 * Read the levels from the cache file, preparing the TextureData.
+	 * @return false if the file is missing, from another version or from another source.
+	 */
+	boolean read() {
+		if (prepared)
+			throw new RuntimeException("MipChainTextureData is already prepared.");
+		if (!file.exists())
+			return false;
+		DataInputStream in = null;
+		ByteBuffer[] levels = null;
+		try {
+			in = new DataInputStream(file.read(8192));
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != sourceHash)
+				return false;
+			
+			int count = in.readInt();
+			int[] widths = new int[count], heights = new int[count];
+			levels = new ByteBuffer[count];
+			byte[] bytes = new byte[0];
+			for (int level = 0; level != count; level ++) {
+				widths[level] = in.readInt();
+				heights[level] = in.readInt();
+				int length = in.readInt();
+				if (bytes.length < length)
+					bytes = new byte[length];
+				in.readFully(bytes, 0, length);
+				levels[level] = BufferUtils.newUnsafeByteBuffer(length);
+				levels[level].put(bytes, 0, length);
+				levels[level].flip();
+			}
+			
+			this.widths = widths;
+			this.heights = heights;
+			this.levels = levels;
+			prepared = true;
+			return true;
+		} catch (IOException e) {
+			// Free the levels read before the file turned out to be truncated.
+			if (levels != null)
+				for (ByteBuffer level : levels)
+					if (level != null)
+						BufferUtils.disposeUnsafeByteBuffer(level);
+			return false;
+		} finally {
+			StreamUtils.closeQuietly(in);
+		}
+	}
+	
+	/*
+	 * Write the levels to 'out' as a mip chain made from a source with the content hash 'sourceHash'.
+	 */
+	static void write(FileHandle out, long sourceHash, int[] widths, int[] heights, ByteBuffer[] levels) {
+		DataOutputStream stream = null;
+		try {
+			stream = new DataOutputStream(new BufferedOutputStream(out.write(false)));
+			stream.writeInt(MAGIC);
+			stream.writeInt(VERSION);
+			stream.writeLong(sourceHash);
+			stream.writeInt(levels.length);
+			byte[] bytes = new byte[0];
+			for (int level = 0; level != levels.length; level ++) {
+				ByteBuffer data = levels[level].duplicate();
+				data.clear();
+				int length = data.capacity();
+				if (bytes.length < length)
+					bytes = new byte[length];
+				data.get(bytes, 0, length);
+				
+				stream.writeInt(widths[level]);
+				stream.writeInt(heights[level]);
+				stream.writeInt(length);
+				stream.write(bytes, 0, length);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Could not write the mip chain " + out.path(), e);
+		} finally {
+			StreamUtils.closeQuietly(stream);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.jbs.framework.rendering;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader.TextureParameter;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.Array;
+
+/*
+ * Loads Textures through a TexturePipeline, so that an AssetManager (and an
+ * AssetResidency on top of it) gets compressed, mipmapped Textures. Install it with
+ * assets.setLoader(Texture.class, new PipelineTextureLoader(resolver, pipeline)).
+ * The conversion and cache reads happen on the AssetManager's loading thread.
+ */
+public class PipelineTextureLoader extends AsynchronousAssetLoader<Texture, TextureParameter> {
+	
+	private final TexturePipeline pipeline;
+	
+	/* The data prepared by loadAsync, consumed by loadSync. */
+	private TextureData data;
+	
+	public PipelineTextureLoader(FileHandleResolver resolver, TexturePipeline pipeline) {
+		super(resolver);
+		this.pipeline = pipeline;
+	}
+	
+	@Override
+	public void loadAsync(AssetManager manager, String fileName, FileHandle file, TextureParameter parameter) {
+		data = pipeline.prepare(file, parameter != null && parameter.genMipMaps);
+	}
+	
+	@Override
+	public Texture loadSync(AssetManager manager, String fileName, FileHandle file, TextureParameter parameter) {
+		Texture texture = new Texture(data);
+		data = null;
+		if (parameter != null) {
+			texture.setFilter(parameter.minFilter, parameter.magFilter);
+			texture.setWrap(parameter.wrapU, parameter.wrapV);
+		}
+		return texture;
+	}
+	
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, TextureParameter parameter) {
+		return null;
+	}
+}
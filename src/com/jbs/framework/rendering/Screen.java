@@ -5,14 +5,66 @@ import com.badlogic.gdx.math.Vector2;
 /*
  * Utility for storing the size of your virtual and actual screen size. Can
  * translate vectors between the two coordinate systems.
+ * The scale factors between the two systems are cached and only recomputed
+ * when the Screen is resized.
  */
 public class Screen {
 	
+	/*
+	 * How the virtual screen is mapped onto the actual screen.
+	 */
+	public enum ViewportMode {
+		/* The virtual screen is stretched to cover the whole actual screen. */
+		STRETCH,
+		/* The virtual screen keeps its aspect ratio and is centered, with bars on the
+		 * top and bottom (letterbox) or the sides (pillarbox) as needed. */
+		FIT
+	}
+	
 	private final Vector2 actualSize, virtualSize;
 	
+	private ViewportMode viewportMode = ViewportMode.STRETCH;
+	
+	private float
+		/* The number of virtual units per actual pixel on each axis. */
+		virtualPerActualX, virtualPerActualY,
+		/* The number of actual pixels per virtual unit on each axis. */
+		actualPerVirtualX, actualPerVirtualY;
+	
+	private int
+		/* The bottom left corner of the viewport in actual pixels. */
+		viewportX, viewportY,
+		/* The size of the viewport in actual pixels. */
+		viewportWidth, viewportHeight;
+	
 	public Screen(int actualWidth, int actualHeight, int virtualWidth, int virtualHeight) {
 		actualSize = new Vector2(actualWidth, actualHeight);
 		virtualSize = new Vector2(virtualWidth, virtualHeight);
+		// Use the arguments, the accessors may be overridden by a subclass that is not constructed yet.
+		updateScale(actualWidth, actualHeight, virtualWidth, virtualHeight);
+	}
+	
+	/*
+	 * Set the size of the device and recompute the cached scale factors.
+	 */
+	public void resize(int actualWidth, int actualHeight) {
+		actualSize.set(actualWidth, actualHeight);
+		updateScale();
+	}
+	
+	/*
+	 * Set how the virtual screen is mapped onto the actual screen.
+	 */
+	public void setViewportMode(ViewportMode mode) {
+		this.viewportMode = mode;
+		updateScale();
+	}
+	
+	/*
+	 * @return how the virtual screen is mapped onto the actual screen.
+	 */
+	public final ViewportMode viewportMode() {
+		return viewportMode;
 	}
 	
 	/*
@@ -48,7 +100,7 @@ public class Screen {
 	 */
 	public final float actualAspectRatio() {
 		// AspectRatio = height / width
-		return actualWidth() / actualHeight();
+		return (float) actualHeight() / (float) actualWidth();
 	}
 	
 	/*
@@ -59,11 +111,31 @@ public class Screen {
 		return (float) virtualHeight() / (float) virtualWidth();
 	}
 	
+	/* @return the x-coordinate of the viewport's bottom left corner in actual pixels. */
+	public final int viewportX() {
+		return viewportX;
+	}
+	
+	/* @return the y-coordinate of the viewport's bottom left corner in actual pixels. */
+	public final int viewportY() {
+		return viewportY;
+	}
+	
+	/* @return the width of the viewport in actual pixels. */
+	public final int viewportWidth() {
+		return viewportWidth;
+	}
+	
+	/* @return the height of the viewport in actual pixels. */
+	public final int viewportHeight() {
+		return viewportHeight;
+	}
+	
 	/*
 	 * Creates a Vector2 from the actualX and actualY and
 	 * translates it to the screen's virtual coordinate system.
 	 */
-	public final Vector2 virtualVec(int actualX, int actualY) {
+	public final Vector2 virtualVec(float actualX, float actualY) {
 		return new Vector2(toVirtualX(actualX), toVirtualY(actualY));
 	}
 	
@@ -71,10 +143,26 @@ public class Screen {
 	 * Creates a Vector2 from the virtualX and virtualY and
 	 * translates it to the screen's actual coordinate system.
 	 */
-	public final Vector2 actualVec(int virtualX, int virtualY) {
+	public final Vector2 actualVec(float virtualX, float virtualY) {
 		return new Vector2(toActualX(virtualX), toActualY(virtualY));
 	}
 	
+	/*
+	 * Writes (actualX, actualY) translated to the screen's virtual coordinate
+	 * system into 'out' without allocating, and returns 'out'.
+	 */
+	public final Vector2 virtualVec(float actualX, float actualY, Vector2 out) {
+		return out.set(toVirtualX(actualX), toVirtualY(actualY));
+	}
+	
+	/*
+	 * Writes (virtualX, virtualY) translated to the screen's actual coordinate
+	 * system into 'out' without allocating, and returns 'out'.
+	 */
+	public final Vector2 actualVec(float virtualX, float virtualY, Vector2 out) {
+		return out.set(toActualX(virtualX), toActualY(virtualY));
+	}
+	
 	/*
 	 * Translate the Vector2 vec to the screen's virtual coordinate system.
 	 */
@@ -89,31 +177,95 @@ public class Screen {
 		vec.set(toActualX(vec.x), toActualY(vec.y));
 	}
 	
+	/*
+	 * Translate 'count' interleaved (x, y) points in 'coords', starting at 'offset',
+	 * to the screen's virtual coordinate system in place.
+	 */
+	public final void toVirtual(float[] coords, int offset, int count) {
+		final float scaleX = virtualPerActualX, scaleY = virtualPerActualY;
+		final float originX = viewportX, originY = viewportY;
+		for (int i = offset, end = offset + count*2; i != end; i += 2) {
+			coords[i] = (coords[i] - originX) * scaleX;
+			coords[i + 1] = (coords[i + 1] - originY) * scaleY;
+		}
+	}
+	
+	/*
+	 * Translate 'count' interleaved (x, y) points in 'coords', starting at 'offset',
+	 * to the screen's actual coordinate system in place.
+	 */
+	public final void toActual(float[] coords, int offset, int count) {
+		final float scaleX = actualPerVirtualX, scaleY = actualPerVirtualY;
+		final float originX = viewportX, originY = viewportY;
+		for (int i = offset, end = offset + count*2; i != end; i += 2) {
+			coords[i] = coords[i] * scaleX + originX;
+			coords[i + 1] = coords[i + 1] * scaleY + originY;
+		}
+	}
+	
 	/*
 	 * @return the screen x-coordinate actualX translated to virtual space.
 	 */
-	public final int toVirtualX(float actualX) {
-		return (int) (actualX * ((float) virtualWidth()/actualWidth()));
+	public final float toVirtualX(float actualX) {
+		return (actualX - viewportX) * virtualPerActualX;
 	}
 	
 	/*
 	 * @return the screen y-coordinate actualY translated to virtual space.
 	 */
-	public final int toVirtualY(float actualY) {
-		return (int) (actualY * ((float) virtualHeight()/actualHeight()));
+	public final float toVirtualY(float actualY) {
+		return (actualY - viewportY) * virtualPerActualY;
 	}
 	
 	/*
 	 * @return the virtual x-coordinate virtualX translated to actual screen space.
 	 */
-	public final int toActualX(float virtualX) {
-		return (int) (virtualX * ((float) actualWidth()/virtualWidth()));
+	public final float toActualX(float virtualX) {
+		return virtualX * actualPerVirtualX + viewportX;
 	}
 	
 	/*
 	 * @return the virtual y-coordinate virtualY translated to actual screen space.
 	 */
-	public final int toActualY(float virtualY) {
-		return (int) (virtualY * ((float) actualWidth()/virtualWidth()));
+	public final float toActualY(float virtualY) {
+		return virtualY * actualPerVirtualY + viewportY;
+	}
+	
+	/*
+	 * Recompute the viewport and the cached scale factors from the current sizes.
+	 */
+	private void updateScale() {
+		// Read the sizes through their accessors so that subclasses may supply them.
+		updateScale(actualWidth(), actualHeight(), virtualWidth(), virtualHeight());
+	}
+	
+	/*
+	 * Recompute the viewport and the scale factors for the given sizes.
+	 */
+	private void updateScale(int actualWidth, int actualHeight, int virtualWidth, int virtualHeight) {
+		// Until the device has a size there is nothing to map to.
+		if (actualWidth <= 0 || actualHeight <= 0 || virtualWidth <= 0 || virtualHeight <= 0) {
+			viewportX = viewportY = viewportWidth = viewportHeight = 0;
+			virtualPerActualX = virtualPerActualY = actualPerVirtualX = actualPerVirtualY = 0;
+			return;
+		}
+		
+		if (viewportMode == ViewportMode.FIT) {
+			// Scale uniformly by the smaller of the two ratios and center the result.
+			float scale = Math.min((float) actualWidth / virtualWidth, (float) actualHeight / virtualHeight);
+			viewportWidth = Math.round(virtualWidth * scale);
+			viewportHeight = Math.round(virtualHeight * scale);
+			viewportX = (actualWidth - viewportWidth) / 2;
+			viewportY = (actualHeight - viewportHeight) / 2;
+		} else {
+			viewportX = viewportY = 0;
+			viewportWidth = actualWidth;
+			viewportHeight = actualHeight;
+		}
+		
+		actualPerVirtualX = (float) viewportWidth / virtualWidth;
+		actualPerVirtualY = (float) viewportHeight / virtualHeight;
+		virtualPerActualX = (float) virtualWidth / viewportWidth;
+		virtualPerActualY = (float) virtualHeight / viewportHeight;
 	}
-}
\ No newline at end of file
+}
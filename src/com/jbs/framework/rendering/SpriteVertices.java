@@ -0,0 +1,94 @@
+package com.jbs.framework.rendering;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+
+/*
+ * Writes sprites straight into SpriteBatch vertex data. Each sprite is four
+ * vertices of (x, y, packed color, u, v), the same layout SpriteBatch.draw
+ * produces, so the vertices can be submitted with
+ * SpriteBatch.draw(Texture, float[], int, int) without touching the batch's color.
+ */
+public final class SpriteVertices {
+
+	/* The number of floats a single sprite occupies. */
+	public static final int SPRITE_SIZE = 20;
+
+	/* The packed float bits of opaque white. */
+	public static final float WHITE = com.badlogic.gdx.graphics.Color.WHITE.toFloatBits();
+
+	private SpriteVertices() { }
+
+	/*
+	 * Write the region centered on (centerX, centerY) with the specified size, rotated
+	 * around its center by 'degrees', into 'vertices' at 'offset'.
+	 * @return the offset after the written sprite.
+	 */
+	public static int write(float[] vertices, int offset, TextureRegion region,
+			float centerX, float centerY, float width, float height, float degrees, float packedColor) {
+		return write(vertices, offset,
+				region.getU(), region.getV(), region.getU2(), region.getV2(),
+				centerX, centerY, width/2, height/2, width, height, degrees, packedColor);
+	}
+
+	/*
+	 * Write the texture coordinates (u, v, u2, v2) as a sprite whose origin (originX, originY)
+	 * lies at (x, y) and which is rotated around that origin by 'degrees'.
+	 * @return the offset after the written sprite.
+	 */
+	public static int write(float[] vertices, int offset, float u, float v, float u2, float v2,
+			float x, float y, float originX, float originY, float width, float height,
+			float degrees, float packedColor) {
+		// The corners relative to the origin.
+		final float left = -originX, bottom = -originY;
+		final float right = left + width, top = bottom + height;
+
+		float x1, y1, x2, y2, x3, y3, x4, y4;
+		if (degrees != 0) {
+			final float cos = MathUtils.cosDeg(degrees);
+			final float sin = MathUtils.sinDeg(degrees);
+
+			x1 = cos * left - sin * bottom;
+			y1 = sin * left + cos * bottom;
+			x2 = cos * left - sin * top;
+			y2 = sin * left + cos * top;
+			x3 = cos * right - sin * top;
+			y3 = sin * right + cos * top;
+			// The fourth corner completes the parallelogram.
+			x4 = x1 + (x3 - x2);
+			y4 = y3 - (y2 - y1);
+		} else {
+			x1 = left; y1 = bottom;
+			x2 = left; y2 = top;
+			x3 = right; y3 = top;
+			x4 = right; y4 = bottom;
+		}
+
+		// SpriteBatch flips v, (u, v2) is the bottom left of the region.
+		vertices[offset ++] = x1 + x;
+		vertices[offset ++] = y1 + y;
+		vertices[offset ++] = packedColor;
+		vertices[offset ++] = u;
+		vertices[offset ++] = v2;
+
+		vertices[offset ++] = x2 + x;
+		vertices[offset ++] = y2 + y;
+		vertices[offset ++] = packedColor;
+		vertices[offset ++] = u;
+		vertices[offset ++] = v;
+
+		vertices[offset ++] = x3 + x;
+		vertices[offset ++] = y3 + y;
+		vertices[offset ++] = packedColor;
+		vertices[offset ++] = u2;
+		vertices[offset ++] = v;
+
+		vertices[offset ++] = x4 + x;
+		vertices[offset ++] = y4 + y;
+		vertices[offset ++] = packedColor;
+		vertices[offset ++] = u2;
+		vertices[offset ++] = v2;
+
+		return offset;
+	}
+}
@@ -0,0 +1,181 @@
+package com.jbs.framework.rendering;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.glutils.ETC1;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.jbs.framework.util.Trace;
+
+/*
+ * Converts sprite sheets to GPU friendly TextureData the first time they are loaded
+ * and caches the result on disk. Opaque images are compressed to ETC1, with every
+ * mip level precomputed, so they use a sixth of the memory of RGBA. Images with
+ * transparency cannot be stored in ETC1 and fall back to uncompressed RGBA, with
+ * mipmaps generated at upload. Mipmaps are only made for power-of-two images, since
+ * OpenGL ES 2 cannot sample mipmaps of other sizes.
+ */
+public class TexturePipeline {
+	
+	/* The extension of cached mip chains. */
+	private static final String CACHE_EXTENSION = ".etcm";
+	
+	/* The directory cached mip chains are written to, for example a local directory. */
+	private final FileHandle cacheDirectory;
+	
+	public TexturePipeline(FileHandle cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+	
+	/*
+	 * @return a Texture of the source image, converting and caching it if this is the
+	 * first time it is loaded. Must be called on the rendering thread.
+	 */
+	public Texture load(FileHandle source, boolean mipMaps) {
+		long start = Trace.begin();
+		Texture texture = new Texture(prepare(source, mipMaps));
+		Trace.end(Trace.ASSET_LOAD, start);
+		return texture;
+	}
+	
+	/*
+	 * @return prepared TextureData of the source image, converting and caching it if
+	 * this is the first time it is loaded. Does not touch OpenGL, so it may be called
+	 * from a loading thread.
+	 */
+	public TextureData prepare(FileHandle source, boolean mipMaps) {
+		// Use the cached mip chain if it was made from this version of the source.
+		long sourceHash = contentHash(source);
+		MipChainTextureData cached = new MipChainTextureData(cacheFile(source, mipMaps), sourceHash);
+		if (cached.read())
+			return cached;
+		
+		Pixmap pixmap = new Pixmap(source);
+		boolean powerOfTwo = MathUtils.isPowerOfTwo(pixmap.getWidth()) && MathUtils.isPowerOfTwo(pixmap.getHeight());
+		
+		// ETC1 has no alpha channel, keep images with transparency uncompressed.
+		if (hasAlpha(pixmap.getFormat()))
+			return prepared(new PixmapTextureData(pixmap, null, mipMaps && powerOfTwo, true));
+		
+		// Compress every level of the mip chain.
+		int count = mipMaps && powerOfTwo ? levelCount(pixmap.getWidth(), pixmap.getHeight()) : 1;
+		int[] widths = new int[count], heights = new int[count];
+		ByteBuffer[] levels = new ByteBuffer[count];
+		
+		Pixmap level = toRGB888(pixmap);
+		pixmap.dispose();
+		for (int i = 0; i != count; i ++) {
+			if (i != 0)
+				level = halve(level);
+			widths[i] = level.getWidth();
+			heights[i] = level.getHeight();
+			levels[i] = ETC1.encodeImage(level).compressedData;
+		}
+		level.dispose();
+		
+		// Return a chain backed by the cache file, so it is managed like a cached load.
+		FileHandle file = cacheFile(source, mipMaps);
+		MipChainTextureData.write(file, sourceHash, widths, heights, levels);
+		return new MipChainTextureData(file, sourceHash, widths, heights, levels);
+	}
+	
+	/* Delete every cached mip chain, they are recreated when next loaded. */
+	public void clearCache() {
+		for (FileHandle file : cacheDirectory.list(CACHE_EXTENSION))
+			file.delete();
+	}
+	
+	/* @return the cache file of the source image. */
+	private FileHandle cacheFile(FileHandle source, boolean mipMaps) {
+		String name = source.path().replace('/', '_').replace('\\', '_').replace(':', '_');
+		return cacheDirectory.child(name + (mipMaps ? ".mip" : "") + CACHE_EXTENSION);
+	}
+	
+	/* @return the number of levels down to 1x1. */
+	private static int levelCount(int width, int height) {
+		int count = 1;
+		while (width > 1 || height > 1) {
+			width = Math.max(width / 2, 1);
+			height = Math.max(height / 2, 1);
+			count ++;
+		}
+		return count;
+	}
+	
+	/*
+	 * @return the 64-bit FNV-1a hash of the source's bytes, which identifies the version of
+	 * the source a cached mip chain was made from. The length and modification time cannot,
+	 * since an edit may keep the size and internal assets may report neither.
+	 */
+	private static long contentHash(FileHandle source) {
+		InputStream in = null;
+		try {
+			in = source.read();
+			byte[] buffer = new byte[8192];
+			long hash = 0xcbf29ce484222325L;
+			for (int read; (read = in.read(buffer)) != -1;) {
+				for (int i = 0; i != read; i ++)
+					hash = (hash ^ (buffer[i] & 0xff)) * 0x100000001b3L;
+			}
+			return hash;
+		} catch (IOException e) {
+			throw new RuntimeException("Could not read " + source.path(), e);
+		} finally {
+			StreamUtils.closeQuietly(in);
+		}
+	}
+	
+	/*
+	 * @return an RGB888 Pixmap of half the size of 'level', each pixel the average of the
+	 * 2x2 pixels it covers, 'level' is disposed. Averaging the pixels directly avoids
+	 * Pixmap.setFilter(), which is global and would change the filter of every thread.
+	 */
+	private static Pixmap halve(Pixmap level) {
+		int sourceWidth = level.getWidth(), sourceHeight = level.getHeight();
+		int width = Math.max(sourceWidth / 2, 1), height = Math.max(sourceHeight / 2, 1);
+		Pixmap half = new Pixmap(width, height, Format.RGB888);
+		ByteBuffer from = level.getPixels(), to = half.getPixels();
+		
+		for (int y = 0; y != height; y ++) {
+			// A side of one pixel is not halved, sample its only row or column twice.
+			int row0 = Math.min(y * 2, sourceHeight - 1) * sourceWidth * 3;
+			int row1 = Math.min(y * 2 + 1, sourceHeight - 1) * sourceWidth * 3;
+			for (int x = 0; x != width; x ++) {
+				int column0 = Math.min(x * 2, sourceWidth - 1) * 3;
+				int column1 = Math.min(x * 2 + 1, sourceWidth - 1) * 3;
+				for (int channel = 0; channel != 3; channel ++) {
+					int sum = (from.get(row0 + column0 + channel) & 0xff) + (from.get(row0 + column1 + channel) & 0xff)
+							+ (from.get(row1 + column0 + channel) & 0xff) + (from.get(row1 + column1 + channel) & 0xff);
+					to.put((y * width + x) * 3 + channel, (byte) ((sum + 2) / 4));
+				}
+			}
+		}
+		level.dispose();
+		return half;
+	}
+	
+	/* @return the Pixmap in the RGB888 format the ETC1 encoder expects. */
+	private static Pixmap toRGB888(Pixmap pixmap) {
+		Pixmap converted = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), Format.RGB888);
+		converted.drawPixmap(pixmap, 0, 0);
+		return converted;
+	}
+	
+	private static boolean hasAlpha(Format format) {
+		return format == Format.RGBA8888 || format == Format.RGBA4444 || format == Format.LuminanceAlpha || format == Format.Alpha;
+	}
+	
+	private static TextureData prepared(TextureData data) {
+		if (!data.isPrepared())
+			data.prepare();
+		return data;
+	}
+}
@@ -0,0 +1,281 @@
+package com.jbs.framework.rendering;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.Mesh.VertexDataType;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes.Usage;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+
+/*
+ * Draws sprites whose transforms are applied in the vertex shader. SpriteBatch rotates
+ * the four corners of every sprite on the CPU, here each sprite is only written as its
+ * center, the unrotated offset of each corner, its rotation, color and region, and the
+ * vertex shader rotates and places the corners.
+ * OpenGL ES 2.0 has no instanced drawing, so the per-sprite values are repeated on the
+ * sprite's four vertices instead of being uploaded once per instance.
+ * The transform in the shader is the one SpriteVertices.write computes with exact sine
+ * and cosine, so sprites drawn here line up with the same sprites drawn through a
+ * SpriteBatch to within the precision of MathUtils' lookup tables.
+ */
+public class TransformBatch implements Disposable {
+	
+	/* The number of floats a single vertex occupies. */
+	static final int VERTEX_SIZE = 8;
+	
+	/* The number of floats a single sprite occupies. */
+	public static final int SPRITE_SIZE = VERTEX_SIZE * 4;
+	
+	/* The name of the attribute holding the sprite's center. */
+	public static final String CENTER_ATTRIBUTE = "a_center";
+	
+	/* The name of the attribute holding the corner's offset from the center before rotating. */
+	public static final String OFFSET_ATTRIBUTE = "a_offset";
+	
+	/* The name of the attribute holding the sprite's rotation in radians. */
+	public static final String ROTATION_ATTRIBUTE = "a_rotation";
+	
+	private final Mesh mesh;
+	
+	private final ShaderProgram shader;
+	
+	/* True if the shader was created by the batch and is disposed with it. */
+	private final boolean ownsShader;
+	
+	private final float[] vertices;
+	
+	private final Matrix4 projection = new Matrix4();
+	
+	/* The texture of the sprites waiting to be flushed, null if there are none. */
+	private Texture texture;
+	
+	/* The number of floats of sprites waiting to be flushed. */
+	private int index;
+	
+	/* The packed color of sprites drawn without one. */
+	private float packedColor = SpriteVertices.WHITE;
+	
+	private boolean drawing;
+	
+	private int
+		/* The number of draw calls since the last begin(). */
+		flushes,
+		/* The number of sprites drawn since the last begin(). */
+		sprites;
+	
+	/* Create a batch of at most 'maxSprites' sprites per draw call with the default shader. */
+	public TransformBatch(int maxSprites) {
+		this(maxSprites, createDefaultShader(), true);
+	}
+	
+	/*
+	 * Create a batch of at most 'maxSprites' sprites per draw call with a custom shader,
+	 * which must accept the attributes of the default shader.
+	 */
+	public TransformBatch(int maxSprites, ShaderProgram shader) {
+		this(maxSprites, shader, false);
+	}
+	
+	private TransformBatch(int maxSprites, ShaderProgram shader, boolean ownsShader) {
+		// Indices are shorts, so a draw call may reference at most 65536 vertices.
+		if (maxSprites <= 0 || maxSprites > 16384)
+			throw new RuntimeException("A TransformBatch can hold 1 to 16384 sprites, not " + maxSprites + ".");
+		this.shader = shader;
+		this.ownsShader = ownsShader;
+		
+		mesh = new Mesh(VertexDataType.VertexArray, false, maxSprites * 4, maxSprites * 6,
+				new VertexAttribute(Usage.Generic, 2, CENTER_ATTRIBUTE),
+				new VertexAttribute(Usage.Generic, 2, OFFSET_ATTRIBUTE),
+				new VertexAttribute(Usage.Generic, 1, ROTATION_ATTRIBUTE),
+				new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
+				new VertexAttribute(Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"));
+		vertices = new float[maxSprites * SPRITE_SIZE];
+		
+		// Every sprite is two triangles over its four vertices.
+		short[] indices = new short[maxSprites * 6];
+		for (int i = 0, vertex = 0; i != indices.length; i += 6, vertex += 4) {
+			indices[i] = (short) vertex;
+			indices[i + 1] = (short) (vertex + 1);
+			indices[i + 2] = (short) (vertex + 2);
+			indices[i + 3] = (short) (vertex + 2);
+			indices[i + 4] = (short) (vertex + 3);
+			indices[i + 5] = (short) vertex;
+		}
+		mesh.setIndices(indices);
+	}
+	
+	/*
+	 * @return a new shader that rotates each vertex's offset by its rotation and adds
+	 * its center before projecting it.
+	 */
+	public static ShaderProgram createDefaultShader() {
+		String vertexShader = "attribute vec2 " + CENTER_ATTRIBUTE + ";\n"
+				+ "attribute vec2 " + OFFSET_ATTRIBUTE + ";\n"
+				+ "attribute float " + ROTATION_ATTRIBUTE + ";\n"
+				+ "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+				+ "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+				+ "uniform mat4 u_projTrans;\n"
+				+ "varying vec4 v_color;\n"
+				+ "varying vec2 v_texCoords;\n"
+				+ "void main() {\n"
+				+ "	float c = cos(" + ROTATION_ATTRIBUTE + ");\n"
+				+ "	float s = sin(" + ROTATION_ATTRIBUTE + ");\n"
+				+ "	vec2 corner = vec2(c * " + OFFSET_ATTRIBUTE + ".x - s * " + OFFSET_ATTRIBUTE + ".y,\n"
+				+ "			s * " + OFFSET_ATTRIBUTE + ".x + c * " + OFFSET_ATTRIBUTE + ".y);\n"
+				+ "	v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+				+ "	v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+				+ "	gl_Position = u_projTrans * vec4(" + CENTER_ATTRIBUTE + " + corner, 0.0, 1.0);\n"
+				+ "}\n";
+		String fragmentShader = "#ifdef GL_ES\n"
+				+ "precision mediump float;\n"
+				+ "#endif\n"
+				+ "varying vec4 v_color;\n"
+				+ "varying vec2 v_texCoords;\n"
+				+ "uniform sampler2D u_texture;\n"
+				+ "void main() {\n"
+				+ "	gl_FragColor = v_color * texture2D(u_texture, v_texCoords);\n"
+				+ "}\n";
+		
+		ShaderProgram shader = new ShaderProgram(vertexShader, fragmentShader);
+		if (!shader.isCompiled())
+			throw new RuntimeException("Could not compile the TransformBatch shader: " + shader.getLog());
+		return shader;
+	}
+	
+	/*
+	 * Begin drawing with the specified projection, such as a camera's combined matrix.
+	 */
+	public void begin(Matrix4 projection) {
+		if (drawing)
+			throw new RuntimeException("TransformBatch.end() must be called before begin().");
+		this.projection.set(projection);
+		drawing = true;
+		flushes = sprites = 0;
+		
+		Gdx.gl.glDepthMask(false);
+		shader.begin();
+		shader.setUniformMatrix("u_projTrans", this.projection);
+		shader.setUniformi("u_texture", 0);
+	}
+	
+	/*
+	 * Draw the sprites waiting to be flushed and finish drawing.
+	 */
+	public void end() {
+		if (!drawing)
+			throw new RuntimeException("TransformBatch.begin() must be called before end().");
+		flush();
+		drawing = false;
+		shader.end();
+		Gdx.gl.glDepthMask(true);
+	}
+	
+	/* Set the packed color of the sprites drawn without one. */
+	public void setPackedColor(float packedColor) {
+		this.packedColor = packedColor;
+	}
+	
+	/*
+	 * Draw the graphic with its size and rotation around its center, tinted if it has a tint.
+	 */
+	public void draw(Graphic graphic) {
+		float centerX = graphic.x(), centerY = graphic.y();
+		// Only a graphic whose texture is offset from its center needs the rotation on the CPU.
+		float offsetX = graphic.textureOffsetX(), offsetY = graphic.textureOffsetY();
+		if (offsetX != 0 || offsetY != 0) {
+			float cos = MathUtils.cosDeg(graphic.rotation()), sin = MathUtils.sinDeg(graphic.rotation());
+			centerX += cos * offsetX - sin * offsetY;
+			centerY += sin * offsetX + cos * offsetY;
+		}
+		draw(graphic.texture(), centerX, centerY, graphic.width(), graphic.height(), graphic.rotation(),
+				graphic.isTinted() ? graphic.packedTint() : packedColor);
+	}
+	
+	/*
+	 * Draw the region centered on (centerX, centerY) with the specified size, rotated
+	 * around its center by 'degrees'.
+	 */
+	public void draw(TextureRegion region, float centerX, float centerY, float width, float height,
+			float degrees, float packedColor) {
+		if (!drawing)
+			throw new RuntimeException("TransformBatch.begin() must be called before draw().");
+		Texture regionTexture = region.getTexture();
+		if (regionTexture != texture) {
+			flush();
+			texture = regionTexture;
+		} else if (index == vertices.length) {
+			flush();
+		}
+		index = write(vertices, index, region.getU(), region.getV(), region.getU2(), region.getV2(),
+				centerX, centerY, width, height, degrees * MathUtils.degreesToRadians, packedColor);
+		sprites ++;
+	}
+	
+	/*
+	 * Write a sprite's vertices into 'vertices' at 'offset'. Only the offsets of the corners
+	 * are computed here, their rotation is left to the shader.
+	 * @return the offset after the written sprite.
+	 */
+	static int write(float[] vertices, int offset, float u, float v, float u2, float v2,
+			float centerX, float centerY, float width, float height, float radians, float packedColor) {
+		final float right = width / 2, top = height / 2;
+		// SpriteBatch flips v, (u, v2) is the bottom left of the region.
+		offset = writeVertex(vertices, offset, centerX, centerY, -right, -top, radians, packedColor, u, v2);
+		offset = writeVertex(vertices, offset, centerX, centerY, -right, top, radians, packedColor, u, v);
+		offset = writeVertex(vertices, offset, centerX, centerY, right, top, radians, packedColor, u2, v);
+		return writeVertex(vertices, offset, centerX, centerY, right, -top, radians, packedColor, u2, v2);
+	}
+	
+	private static int writeVertex(float[] vertices, int offset, float centerX, float centerY,
+			float offsetX, float offsetY, float radians, float packedColor, float u, float v) {
+		vertices[offset ++] = centerX;
+		vertices[offset ++] = centerY;
+		vertices[offset ++] = offsetX;
+		vertices[offset ++] = offsetY;
+		vertices[offset ++] = radians;
+		vertices[offset ++] = packedColor;
+		vertices[offset ++] = u;
+		vertices[offset ++] = v;
+		return offset;
+	}
+	
+	/*
+	 * Draw the sprites waiting to be flushed in a single draw call.
+	 */
+	public void flush() {
+		if (index == 0)
+			return;
+		
+		texture.bind(0);
+		Gdx.gl.glEnable(GL20.GL_BLEND);
+		Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		mesh.setVertices(vertices, 0, index);
+		mesh.render(shader, GL20.GL_TRIANGLES, 0, index / SPRITE_SIZE * 6);
+		
+		index = 0;
+		flushes ++;
+	}
+	
+	/* @return the number of draw calls since the last begin(). */
+	public int flushes() {
+		return flushes;
+	}
+	
+	/* @return the number of sprites drawn since the last begin(). */
+	public int sprites() {
+		return sprites;
+	}
+	
+	@Override
+	public void dispose() {
+		mesh.dispose();
+		if (ownsShader)
+			shader.dispose();
+	}
+}
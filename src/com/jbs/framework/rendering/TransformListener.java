@@ -0,0 +1,8 @@
+package com.jbs.framework.rendering;
+
+/*
+ * Notified whenever a Graphic's position, size, scale or rotation changes.
+ */
+public interface TransformListener {
+	public void transformChanged(Graphic graphic);
+}
@@ -0,0 +1,322 @@
+package com.jbs.framework.rendering.particle;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.jbs.framework.io.InputProxy;
+import com.jbs.framework.rendering.Animation;
+import com.jbs.framework.rendering.SpriteVertices;
+import com.jbs.framework.util.RenderableUpdatable;
+
+/*
+ * Emits and renders particles. Every particle lives in a set of preallocated
+ * primitive arrays, is updated in one loop per update, and is written straight
+ * into vertex data that is submitted to the SpriteBatch in large chunks.
+ * All regions must belong to the same Texture, for example an Animation's
+ * sprite table, in which case particles can play the Animation's frames.
+ */
+public class ParticleEmitter extends RenderableUpdatable {
+	
+	/* The number of sprites written before the vertices are submitted to the batch. */
+	private static final int SPRITES_PER_SUBMIT = 1000;
+	
+	/* The maximum number of living particles. */
+	private final int capacity;
+	
+	/* The number of seconds simulated by one call to updateWith. */
+	private final float secondsPerUpdate;
+	
+	private final float[]
+		/* The particles' centers. */
+		x, y,
+		/* The particles' velocities in units per second. */
+		velocityX, velocityY,
+		/* The particles' rotations in degrees and their spins in degrees per second. */
+		rotation, spin,
+		/* The particles' ages and life spans in seconds. */
+		age, life,
+		/* The vertex data written when rendering. */
+		vertices;
+	
+	private final int[]
+		/* The frame of the region table each particle started on. */
+		firstFrame;
+	
+	/* The regions particles are rendered with, all from 'texture'. */
+	private final TextureRegion[] regions;
+	private final Texture texture;
+	
+	/* The number of living particles, packed at the start of the arrays. */
+	private int count;
+	
+	private float
+		/* The point particles are emitted from. */
+		emitterX, emitterY,
+		/* The number of particles emitted per second, and the fraction not yet emitted. */
+		emissionRate, emissionDebt,
+		/* The range of life spans in seconds. */
+		minLife = 1, maxLife = 1,
+		/* The range of initial speeds in units per second. */
+		minSpeed, maxSpeed,
+		/* The range of emission angles in degrees. */
+		minAngle, maxAngle = 360,
+		/* The range of spins in degrees per second. */
+		minSpin, maxSpin,
+		/* The acceleration applied to every particle in units per second squared. */
+		gravityX, gravityY,
+		/* The particles' sizes at birth and at death. */
+		startWidth, startHeight, endWidth, endHeight,
+		/* The particles' frame rate, or 0 to spread the frames over each particle's life. */
+		framesPerSecond;
+	
+	/* The particles' colors at birth and at death. */
+	private final Color startColor = new Color(Color.WHITE), endColor = new Color(Color.WHITE);
+	
+	/* True if each particle should start on a random frame. */
+	private boolean randomFirstFrame;
+	
+	/*
+	 * Create an emitter for up to 'capacity' particles rendered with 'regions',
+	 * which must all belong to the same Texture.
+	 */
+	public ParticleEmitter(int capacity, float secondsPerUpdate, TextureRegion... regions) {
+		if (regions.length == 0)
+			throw new RuntimeException("A ParticleEmitter needs at least one region.");
+		for (TextureRegion region : regions)
+			if (region.getTexture() != regions[0].getTexture())
+				throw new RuntimeException("Every region of a ParticleEmitter must belong to the same Texture.");
+		
+		this.capacity = capacity;
+		this.secondsPerUpdate = secondsPerUpdate;
+		this.regions = regions;
+		this.texture = regions[0].getTexture();
+		
+		x = new float[capacity];
+		y = new float[capacity];
+		velocityX = new float[capacity];
+		velocityY = new float[capacity];
+		rotation = new float[capacity];
+		spin = new float[capacity];
+		age = new float[capacity];
+		life = new float[capacity];
+		firstFrame = new int[capacity];
+		vertices = new float[Math.min(capacity, SPRITES_PER_SUBMIT) * SpriteVertices.SPRITE_SIZE];
+		
+		setSize(regions[0].getRegionWidth(), regions[0].getRegionHeight());
+	}
+	
+	/*
+	 * Create an emitter whose particles play the Animation's frames.
+	 */
+	public ParticleEmitter(int capacity, float secondsPerUpdate, Animation animation) {
+		this(capacity, secondsPerUpdate, animation.spriteTable());
+		setFramesPerSecond(animation.framesPerSecond());
+	}
+	
+	/* Emit particles from (x, y). */
+	public void setPosition(float x, float y) {
+		emitterX = x;
+		emitterY = y;
+	}
+	
+	/* Set the number of particles emitted per second, 0 stops emission. */
+	public void setEmissionRate(float particlesPerSecond) {
+		emissionRate = particlesPerSecond;
+	}
+	
+	/* Set the range of life spans in seconds. */
+	public void setLife(float min, float max) {
+		minLife = min;
+		maxLife = max;
+	}
+	
+	/* Set the range of initial speeds in units per second. */
+	public void setSpeed(float min, float max) {
+		minSpeed = min;
+		maxSpeed = max;
+	}
+	
+	/* Set the range of emission angles in degrees. */
+	public void setAngle(float min, float max) {
+		minAngle = min;
+		maxAngle = max;
+	}
+	
+	/* Set the range of spins in degrees per second. */
+	public void setSpin(float min, float max) {
+		minSpin = min;
+		maxSpin = max;
+	}
+	
+	/* Set the acceleration applied to every particle in units per second squared. */
+	public void setGravity(float x, float y) {
+		gravityX = x;
+		gravityY = y;
+	}
+	
+	/* Set the size of the particles for their whole life. */
+	public final void setSize(float width, float height) {
+		setSize(width, height, width, height);
+	}
+	
+	/* Set the size of the particles at birth and at death. */
+	public void setSize(float startWidth, float startHeight, float endWidth, float endHeight) {
+		this.startWidth = startWidth;
+		this.startHeight = startHeight;
+		this.endWidth = endWidth;
+		this.endHeight = endHeight;
+	}
+	
+	/* Set the color of the particles at birth and at death. */
+	public void setColors(Color start, Color end) {
+		startColor.set(start);
+		endColor.set(end);
+	}
+	
+	/* Set the particles' frame rate, or 0 to spread the frames over each particle's life. */
+	public void setFramesPerSecond(float framesPerSecond) {
+		this.framesPerSecond = framesPerSecond;
+	}
+	
+	/* Set whether each particle starts on a random frame. */
+	public void setRandomFirstFrame(boolean flag) {
+		this.randomFirstFrame = flag;
+	}
+	
+	/* Emit 'amount' particles at once, as many as there is room for. */
+	public void burst(int amount) {
+		for (int i = 0; i != amount && count != capacity; i ++)
+			spawn();
+	}
+	
+	/* Kill every particle. */
+	public void clear() {
+		count = 0;
+	}
+	
+	/* @return the number of living particles. */
+	public final int count() {
+		return count;
+	}
+	
+	/*
+	 * Emit new particles, then age, move and kill the living ones.
+	 */
+	@Override
+	public void updateWith(InputProxy input) {
+		step(secondsPerUpdate);
+	}
+	
+	/*
+	 * Simulate 'seconds' of the emitter.
+	 */
+	public void step(float seconds) {
+		// Emit the whole particles owed since the last step.
+		emissionDebt += emissionRate * seconds;
+		while (emissionDebt >= 1) {
+			emissionDebt --;
+			if (count != capacity)
+				spawn();
+		}
+		
+		final float dvx = gravityX * seconds, dvy = gravityY * seconds;
+		final float[] x = this.x, y = this.y, velocityX = this.velocityX, velocityY = this.velocityY;
+		final float[] rotation = this.rotation, spin = this.spin, age = this.age, life = this.life;
+		
+		int i = 0;
+		while (i < count) {
+			age[i] += seconds;
+			if (age[i] >= life[i]) {
+				// Kill the particle by moving the last living particle into its slot.
+				kill(i);
+				continue;
+			}
+			velocityX[i] += dvx;
+			velocityY[i] += dvy;
+			x[i] += velocityX[i] * seconds;
+			y[i] += velocityY[i] * seconds;
+			rotation[i] += spin[i] * seconds;
+			i ++;
+		}
+	}
+	
+	/*
+	 * Write every living particle into vertex data and submit it to the batch.
+	 */
+	@Override
+	public void renderTo(SpriteBatch batch) {
+		final float[] vertices = this.vertices;
+		final int spritesPerSubmit = vertices.length / SpriteVertices.SPRITE_SIZE;
+		final boolean fixedColor = startColor.equals(endColor);
+		final float fixedPackedColor = startColor.toFloatBits();
+		
+		int offset = 0, written = 0;
+		for (int i = 0; i != count; i ++) {
+			// The particle's progress through its life, in [0, 1).
+			float t = age[i] / life[i];
+			
+			float width = startWidth + (endWidth - startWidth) * t;
+			float height = startHeight + (endHeight - startHeight) * t;
+			float packedColor = fixedColor ? fixedPackedColor : Color.toFloatBits(
+					startColor.r + (endColor.r - startColor.r) * t,
+					startColor.g + (endColor.g - startColor.g) * t,
+					startColor.b + (endColor.b - startColor.b) * t,
+					startColor.a + (endColor.a - startColor.a) * t);
+			
+			TextureRegion region = regions[frame(i, t)];
+			offset = SpriteVertices.write(vertices, offset, region, x[i], y[i], width, height, rotation[i], packedColor);
+			
+			// Submit once the vertex data is full.
+			if (++ written == spritesPerSubmit) {
+				batch.draw(texture, vertices, 0, offset);
+				offset = 0;
+				written = 0;
+			}
+		}
+		if (offset != 0)
+			batch.draw(texture, vertices, 0, offset);
+	}
+	
+	/* @return the index of the region the particle shows. */
+	private int frame(int particle, float t) {
+		if (regions.length == 1)
+			return 0;
+		int frame = framesPerSecond > 0
+				? (int) (age[particle] * framesPerSecond)
+				: (int) (t * regions.length);
+		return (firstFrame[particle] + frame) % regions.length;
+	}
+	
+	/* Add a particle at the emitter's position. */
+	private void spawn() {
+		int i = count ++;
+		float angle = MathUtils.random(minAngle, maxAngle);
+		float speed = MathUtils.random(minSpeed, maxSpeed);
+		
+		x[i] = emitterX;
+		y[i] = emitterY;
+		velocityX[i] = MathUtils.cosDeg(angle) * speed;
+		velocityY[i] = MathUtils.sinDeg(angle) * speed;
+		rotation[i] = 0;
+		spin[i] = MathUtils.random(minSpin, maxSpin);
+		age[i] = 0;
+		life[i] = Math.max(MathUtils.random(minLife, maxLife), Float.MIN_VALUE);
+		firstFrame[i] = randomFirstFrame ? MathUtils.random(regions.length - 1) : 0;
+	}
+	
+	/* Remove the particle by moving the last living particle into its slot. */
+	private void kill(int i) {
+		int last = -- count;
+		x[i] = x[last];
+		y[i] = y[last];
+		velocityX[i] = velocityX[last];
+		velocityY[i] = velocityY[last];
+		rotation[i] = rotation[last];
+		spin[i] = spin[last];
+		age[i] = age[last];
+		life[i] = life[last];
+		firstFrame[i] = firstFrame[last];
+	}
+}
@@ -0,0 +1,103 @@
+package com.jbs.framework.rendering.skeleton;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/*
+ * A node of a Skeleton. A bone has a setup transform, a pose that clips write to,
+ * and a world transform combining its pose with its parent's world transform.
+ * Scales combine per axis, skew is not supported.
+ */
+public class Bone {
+	
+	private final String name;
+	
+	/* The bone's parent, null for the root. */
+	private final Bone parent;
+	
+	/* The bone's index in its Skeleton. */
+	final int index;
+	
+	/* The setup transform, relative to the parent. */
+	float setupX, setupY, setupRotation, setupScaleX = 1, setupScaleY = 1;
+	
+	/* The current pose, relative to the parent. */
+	float x, y, rotation, scaleX = 1, scaleY = 1;
+	
+	/* The transform in skeleton space. */
+	float worldX, worldY, worldRotation, worldScaleX = 1, worldScaleY = 1;
+	
+	Bone(String name, Bone parent, int index) {
+		this.name = name;
+		this.parent = parent;
+		this.index = index;
+	}
+	
+	/* Set the bone's setup transform relative to its parent, rotation in degrees. */
+	public void setSetup(float x, float y, float rotation, float scaleX, float scaleY) {
+		setupX = x;
+		setupY = y;
+		setupRotation = rotation;
+		setupScaleX = scaleX;
+		setupScaleY = scaleY;
+		resetPose();
+	}
+	
+	/* Set the bone's pose relative to its parent, rotation in degrees. */
+	public void setPose(float x, float y, float rotation, float scaleX, float scaleY) {
+		this.x = x;
+		this.y = y;
+		this.rotation = rotation;
+		this.scaleX = scaleX;
+		this.scaleY = scaleY;
+	}
+	
+	/* Return the bone's pose to its setup transform. */
+	public void resetPose() {
+		setPose(setupX, setupY, setupRotation, setupScaleX, setupScaleY);
+	}
+	
+	/* Compute the world transform, the parent's must already be up to date. */
+	void updateWorldTransform() {
+		if (parent == null) {
+			worldX = x;
+			worldY = y;
+			worldRotation = rotation;
+			worldScaleX = scaleX;
+			worldScaleY = scaleY;
+			return;
+		}
+		// Place the bone in its parent's scaled and rotated space.
+		float cos = MathUtils.cosDeg(parent.worldRotation), sin = MathUtils.sinDeg(parent.worldRotation);
+		float localX = x * parent.worldScaleX, localY = y * parent.worldScaleY;
+		worldX = parent.worldX + cos * localX - sin * localY;
+		worldY = parent.worldY + sin * localX + cos * localY;
+		worldRotation = parent.worldRotation + rotation;
+		worldScaleX = parent.worldScaleX * scaleX;
+		worldScaleY = parent.worldScaleY * scaleY;
+	}
+	
+	/* @return the bone's name. */
+	public String name() {
+		return name;
+	}
+	
+	/* @return the bone's parent, or null for the root. */
+	public Bone parent() {
+		return parent;
+	}
+	
+	/* @return the bone's x-coordinate in skeleton space. */
+	public float worldX() {
+		return worldX;
+	}
+	
+	/* @return the bone's y-coordinate in skeleton space. */
+	public float worldY() {
+		return worldY;
+	}
+	
+	/* @return the bone's rotation in skeleton space, in degrees. */
+	public float worldRotation() {
+		return worldRotation;
+	}
+}
@@ -0,0 +1,155 @@
+package com.jbs.framework.rendering.skeleton;
+
+import java.util.ArrayList;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.jbs.framework.rendering.Graphic;
+import com.jbs.framework.rendering.Renderable;
+import com.jbs.framework.rendering.SpriteVertices;
+
+/*
+ * A cutout character: a hierarchy of Bones posing Graphic parts. Each render the
+ * Skeleton's animator (if any) poses the bones for the current time, the world
+ * transforms are recomputed and the parts are written into one vertex buffer,
+ * submitted once per run of parts sharing a Texture.
+ */
+public class Skeleton implements Renderable {
+	
+	/* The number of parts written before the vertices are submitted to the batch. */
+	private static final int PARTS_PER_SUBMIT = 256;
+	
+	/* The bones, every parent before its children. */
+	private final ArrayList<Bone> bones = new ArrayList<Bone>();
+	
+	/* The parts in draw order. */
+	private final ArrayList<Part> parts = new ArrayList<Part>();
+	
+	private final float[] vertices = new float[PARTS_PER_SUBMIT * SpriteVertices.SPRITE_SIZE];
+	
+	/* The position of the root in the world. */
+	private float x, y;
+	
+	/* Poses the bones before each render, may be null. */
+	private SkeletonAnimator animator;
+	
+	/* Add a bone, 'parent' must already belong to the Skeleton or be null for a root. @return the bone. */
+	public Bone addBone(String name, Bone parent) {
+		if (parent != null && (parent.index >= bones.size() || bones.get(parent.index) != parent))
+			throw new RuntimeException("The parent of " + name + " does not belong to this Skeleton.");
+		Bone bone = new Bone(name, parent, bones.size());
+		bones.add(bone);
+		return bone;
+	}
+	
+	/*
+	 * Attach the Graphic to the bone, offset from it by (x, y) and rotated by 'rotation'
+	 * degrees in the bone's space. Parts are drawn in the order they are attached.
+	 */
+	public void attach(Bone bone, Graphic graphic, float x, float y, float rotation) {
+		parts.add(new Part(bone, graphic, x, y, rotation));
+	}
+	
+	/* @return the bone with the name, or null. */
+	public Bone findBone(String name) {
+		for (int i = 0; i != bones.size(); i ++)
+			if (bones.get(i).name().equals(name))
+				return bones.get(i);
+		return null;
+	}
+	
+	/* @return the bone at 'index', in the order bones were added. */
+	public Bone bone(int index) {
+		return bones.get(index);
+	}
+	
+	/* @return the number of bones. */
+	public int boneCount() {
+		return bones.size();
+	}
+	
+	/* Set the position of the Skeleton's root in the world. */
+	public void setPosition(float x, float y) {
+		this.x = x;
+		this.y = y;
+	}
+	
+	/* Set the animator that poses the Skeleton before each render, null to pose it by hand. */
+	public void setAnimator(SkeletonAnimator animator) {
+		this.animator = animator;
+	}
+	
+	/* Return every bone to its setup pose. */
+	public void resetPose() {
+		for (int i = 0; i != bones.size(); i ++)
+			bones.get(i).resetPose();
+	}
+	
+	/* Recompute the world transform of every bone and place the parts' Graphics. */
+	public void updateWorldTransforms() {
+		for (int i = 0; i != bones.size(); i ++)
+			bones.get(i).updateWorldTransform();
+		for (int i = 0; i != parts.size(); i ++)
+			parts.get(i).place(x, y);
+	}
+	
+	/*
+	 * Pose the Skeleton for the current time and draw its parts.
+	 */
+	@Override
+	public void renderTo(SpriteBatch batch) {
+		if (animator != null)
+			animator.apply(this);
+		updateWorldTransforms();
+		
+		// Parts without a tint use the batch's color, written into the vertices.
+		final float batchColor = batch.getColor().toFloatBits();
+		Texture texture = null;
+		int offset = 0;
+		for (int i = 0; i != parts.size(); i ++) {
+			Graphic graphic = parts.get(i).graphic;
+			TextureRegion region = graphic.texture();
+			
+			// Submit the run so far when the texture changes or the buffer is full.
+			if (offset != 0 && (region.getTexture() != texture || offset == vertices.length)) {
+				batch.draw(texture, vertices, 0, offset);
+				offset = 0;
+			}
+			texture = region.getTexture();
+			offset = SpriteVertices.write(vertices, offset, region, graphic.x(), graphic.y(),
+					graphic.width(), graphic.height(), graphic.rotation(),
+					graphic.isTinted() ? graphic.packedTint() : batchColor);
+		}
+		if (offset != 0)
+			batch.draw(texture, vertices, 0, offset);
+	}
+	
+	/* A Graphic attached to a bone. */
+	private static final class Part {
+		
+		private final Bone bone;
+		private final Graphic graphic;
+		
+		/* The part's offset in its bone's space. */
+		private final float x, y, rotation;
+		
+		private Part(Bone bone, Graphic graphic, float x, float y, float rotation) {
+			this.bone = bone;
+			this.graphic = graphic;
+			this.x = x;
+			this.y = y;
+			this.rotation = rotation;
+		}
+		
+		/* Move the Graphic to the bone's world transform, with the root at (rootX, rootY). */
+		private void place(float rootX, float rootY) {
+			float cos = MathUtils.cosDeg(bone.worldRotation), sin = MathUtils.sinDeg(bone.worldRotation);
+			float localX = x * bone.worldScaleX, localY = y * bone.worldScaleY;
+			graphic.setTransform(rootX + bone.worldX + cos * localX - sin * localY,
+					rootY + bone.worldY + sin * localX + cos * localY,
+					bone.worldRotation + rotation, bone.worldScaleX, bone.worldScaleY);
+		}
+	}
+}
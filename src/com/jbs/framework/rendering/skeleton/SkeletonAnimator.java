@@ -0,0 +1,83 @@
+package com.jbs.framework.rendering.skeleton;
+
+/*
+ * Plays SkeletonClips on a Skeleton against the system clock, so the pose is
+ * evaluated for the exact time of every render rather than once per update.
+ * Switching clips can cross-fade from the previous clip over a number of seconds.
+ */
+public class SkeletonAnimator {
+	
+	private SkeletonClip
+		/* The clip being played. */
+		current,
+		/* The clip being faded out, null when not fading. */
+		previous;
+	
+	private double
+		/* The time in seconds when the current and previous clips started. */
+		currentStart, previousStart,
+		/* The time in seconds when the fade started, and how long it lasts. */
+		fadeStart, fadeDuration;
+	
+	/* The playback speed, 1 is normal speed. */
+	private float speed = 1;
+	
+	/* Play the clip from its start immediately. */
+	public void play(SkeletonClip clip) {
+		current = clip;
+		previous = null;
+		currentStart = getTime();
+	}
+	
+	/* Play the clip from its start, fading from the current clip over 'seconds'. */
+	public void crossFade(SkeletonClip clip, float seconds) {
+		if (current == null || seconds <= 0) {
+			play(clip);
+			return;
+		}
+		previous = current;
+		previousStart = currentStart;
+		current = clip;
+		currentStart = fadeStart = getTime();
+		fadeDuration = seconds;
+	}
+	
+	/* Set the playback speed, 1 is normal speed. */
+	public void setSpeed(float speed) {
+		this.speed = speed;
+	}
+	
+	/* @return the clip being played, or null. */
+	public SkeletonClip current() {
+		return current;
+	}
+	
+	/* Pose the Skeleton for the current time. */
+	public void apply(Skeleton skeleton) {
+		if (current == null)
+			return;
+		double now = getTime();
+		skeleton.resetPose();
+		
+		if (previous != null) {
+			float fade = (float) ((now - fadeStart) / fadeDuration);
+			if (fade >= 1) {
+				// The fade is over.
+				previous = null;
+			} else {
+				// Lay down the old clip, then blend the new clip over it by the fade's progress.
+				previous.apply(skeleton, (float) ((now - previousStart) * speed), 1);
+				current.apply(skeleton, (float) ((now - currentStart) * speed), fade);
+				return;
+			}
+		}
+		current.apply(skeleton, (float) ((now - currentStart) * speed), 1);
+	}
+	
+	/*
+	 * @return the system's time in seconds.
+	 */
+	protected double getTime() {
+		return System.nanoTime() * 1E-9;
+	}
+}
@@ -0,0 +1,133 @@
+package com.jbs.framework.rendering.skeleton;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.FloatArray;
+import com.jbs.framework.util.interpolation.LinearInterpolation;
+
+/*
+ * Keyframes for the bones of a Skeleton. Each bone's track holds keys of
+ * (time, x, y, rotation, scaleX, scaleY). Positions and scales between keys are
+ * evaluated with LinearInterpolation and rotations take the shortest way round.
+ */
+public class SkeletonClip {
+	
+	/* The number of floats in one key. */
+	private static final int KEY_STRIDE = 6;
+	
+	private static final int TIME = 0, X = 1, Y = 2, ROTATION = 3, SCALE_X = 4, SCALE_Y = 5;
+	
+	private final String name;
+	
+	/* The keys of each bone's track, indexed by bone index, null for untracked bones. */
+	private FloatArray[] tracks;
+	
+	/* The time of the last key, in seconds. */
+	private float duration;
+	
+	/* True if the clip should wrap around once it ends. */
+	private boolean looping = true;
+	
+	/* Scratch vectors for evaluating keys without allocating. */
+	private final Vector2 from = new Vector2(), to = new Vector2(), result = new Vector2();
+	
+	public SkeletonClip(String name, int boneCount) {
+		this.name = name;
+		this.tracks = new FloatArray[boneCount];
+	}
+	
+	/*
+	 * Add a key to the bone's track. Keys of one track must be added in time order.
+	 */
+	public void addKey(Bone bone, float time, float x, float y, float rotation, float scaleX, float scaleY) {
+		if (bone.index >= tracks.length)
+			throw new RuntimeException("Bone " + bone.name() + " is outside of the clip's " + tracks.length + " bones.");
+		FloatArray track = tracks[bone.index];
+		if (track == null)
+			track = tracks[bone.index] = new FloatArray(KEY_STRIDE * 8);
+		else if (track.get(track.size - KEY_STRIDE + TIME) > time)
+			throw new RuntimeException("Keys of " + bone.name() + " must be added in time order.");
+		
+		track.add(time);
+		track.add(x);
+		track.add(y);
+		track.add(rotation);
+		track.add(scaleX);
+		track.add(scaleY);
+		duration = Math.max(duration, time);
+	}
+	
+	/* Set whether the clip wraps around once it ends, otherwise it holds its last keys. */
+	public void setLooping(boolean flag) {
+		this.looping = flag;
+	}
+	
+	/* @return the clip's name. */
+	public String name() {
+		return name;
+	}
+	
+	/* @return the time of the last key, in seconds. */
+	public float duration() {
+		return duration;
+	}
+	
+	/*
+	 * Pose the Skeleton's tracked bones for 'time' seconds into the clip, blending
+	 * 'weight' of the clip's pose over the bones' current pose.
+	 */
+	public void apply(Skeleton skeleton, float time, float weight) {
+		if (duration > 0)
+			time = looping ? time % duration : Math.min(time, duration);
+		
+		int count = Math.min(tracks.length, skeleton.boneCount());
+		for (int i = 0; i != count; i ++)
+			if (tracks[i] != null)
+				apply(skeleton.bone(i), tracks[i], time, weight);
+	}
+	
+	private void apply(Bone bone, FloatArray track, float time, float weight) {
+		float[] keys = track.items;
+		int a = keyBefore(keys, track.size / KEY_STRIDE, time) * KEY_STRIDE;
+		int b = Math.min(a + KEY_STRIDE, track.size - KEY_STRIDE);
+		
+		// The progress between the two keys.
+		float span = keys[b + TIME] - keys[a + TIME];
+		float normal = span > 0 ? MathUtils.clamp((time - keys[a + TIME]) / span, 0f, 1f) : 0;
+		
+		LinearInterpolation.interpolate(normal, from.set(keys[a + X], keys[a + Y]), to.set(keys[b + X], keys[b + Y]), result);
+		float x = result.x, y = result.y;
+		LinearInterpolation.interpolate(normal, from.set(keys[a + SCALE_X], keys[a + SCALE_Y]), to.set(keys[b + SCALE_X], keys[b + SCALE_Y]), result);
+		float rotation = keys[a + ROTATION] + shortestAngle(keys[a + ROTATION], keys[b + ROTATION]) * normal;
+		
+		// Blend the clip's pose over the bone's current pose.
+		bone.x += (x - bone.x) * weight;
+		bone.y += (y - bone.y) * weight;
+		bone.rotation += shortestAngle(bone.rotation, rotation) * weight;
+		bone.scaleX += (result.x - bone.scaleX) * weight;
+		bone.scaleY += (result.y - bone.scaleY) * weight;
+	}
+	
+	/* @return the index of the last key at or before 'time'. */
+	private static int keyBefore(float[] keys, int keyCount, float time) {
+		int low = 0, high = keyCount - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (keys[middle * KEY_STRIDE + TIME] <= time)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return low;
+	}
+	
+	/* @return the signed difference from 'from' to 'to' in degrees, within [-180, 180). */
+	private static float shortestAngle(float from, float to) {
+		float difference = (to - from) % 360;
+		if (difference >= 180)
+			difference -= 360;
+		else if (difference < -180)
+			difference += 360;
+		return difference;
+	}
+}
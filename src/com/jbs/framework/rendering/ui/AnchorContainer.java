@@ -0,0 +1,61 @@
+package com.jbs.framework.rendering.ui;
+
+import java.util.ArrayList;
+
+/*
+ * A container that gives every child its preferred size and pins it to a point of
+ * the container. The anchor (anchorX, anchorY) is a fraction of the container's size,
+ * (0, 0) being the bottom left and (1, 1) the top right corner, and the same point of
+ * the child is placed on it, so a child anchored at (1, 1) sits in the top right corner
+ * whatever the size of the screen.
+ */
+public class AnchorContainer extends Container {
+	
+	/* The (anchorX, anchorY, offsetX, offsetY) of every child. */
+	private final ArrayList<float[]> anchors = new ArrayList<float[]>();
+	
+	/*
+	 * Add 'child' centered in the container.
+	 */
+	@Override
+	public void add(Widget child) {
+		add(child, 0.5f, 0.5f, 0, 0);
+	}
+	
+	/*
+	 * Add 'child' pinned at the fraction (anchorX, anchorY) of the container, moved
+	 * by (offsetX, offsetY).
+	 */
+	public void add(Widget child, float anchorX, float anchorY, float offsetX, float offsetY) {
+		super.add(child);
+		anchors.add(new float[] { anchorX, anchorY, offsetX, offsetY });
+	}
+	
+	@Override
+	protected void childRemoved(int index) {
+		anchors.remove(index);
+	}
+	
+	@Override
+	protected void layout() {
+		for (int i = 0, size = childCount(); i != size; i ++) {
+			Widget child = child(i);
+			float[] anchor = anchors.get(i);
+			float childWidth = child.prefWidth(), childHeight = child.prefHeight();
+			child.setBounds(
+					left() + width() * anchor[0] - childWidth * anchor[0] + anchor[2],
+					bottom() + height() * anchor[1] - childHeight * anchor[1] + anchor[3],
+					childWidth, childHeight);
+		}
+	}
+	
+	@Override
+	public float prefWidth() {
+		return maxChildPrefWidth();
+	}
+	
+	@Override
+	public float prefHeight() {
+		return maxChildPrefHeight();
+	}
+}
@@ -44,11 +44,13 @@ public class Button extends Graphic implements Updatable {
 	/** Set the Texture to render when the Button is pressed. */
 	public void setPressedTexture(TextureRegion newTexture) {
 		this.pressedTexture = newTexture;
+		appearanceChanged();
 	}
 	
 	/** Set the Texture to render when the Button is not pressed. */
 	public void setUnpressedTexture(TextureRegion newTexture) {
 		this.unpressedTexture = newTexture;
+		appearanceChanged();
 	}
 	
 	/**
@@ -112,6 +114,8 @@ public class Button extends Graphic implements Updatable {
 		assert !this.isPressed();
 		// Set the button to it's pressed state.
 		pressed = true;
+		// The Button now renders its pressed texture.
+		appearanceChanged();
 		// React abstractly to the change in state.
 		onPress();
 	}
@@ -126,10 +130,24 @@ public class Button extends Graphic implements Updatable {
 		assert this.isPressed();
 		// Set the button to it's released state.
 		pressed = false;
+		// The Button now renders its unpressed texture.
+		appearanceChanged();
 		// React abstractly to the change in state.
 		onRelease();
 	}
 	
+	/**
+	 * Returns the button to it's released state without
+	 * calling onRelease, for a press that turned into something
+	 * else, like scrolling the list the button is in.
+	 */
+	public void cancel() {
+		if (!pressed)
+			return;
+		pressed = false;
+		appearanceChanged();
+	}
+	
 	/**
 	 * Returns true if the input's position is within the
 	 * button.
@@ -0,0 +1,75 @@
+package com.jbs.framework.rendering.ui;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+/*
+ * Places a Button in a user interface. The Button is centered in the widget's bounds
+ * and receives its presses from the UserInterface instead of polling the input itself,
+ * so it must not be updated separately.
+ */
+public class ButtonWidget extends Widget {
+	
+	private final Button button;
+	
+	/* True if the Button is stretched to the widget's bounds. */
+	private boolean fill;
+	
+	public ButtonWidget(Button button) {
+		this.button = button;
+	}
+	
+	/*
+	 * Stretch the Button to the widget's bounds instead of keeping its own size.
+	 */
+	public void setFill(boolean fill) {
+		this.fill = fill;
+		invalidate();
+	}
+	
+	/* @return the Button in the widget. */
+	public final Button button() {
+		return button;
+	}
+	
+	@Override
+	protected void layout() {
+		button.setPosition(centerX(), centerY());
+		if (fill)
+			button.setSize(width() / button.scaleX(), height() / button.scaleY());
+	}
+	
+	@Override
+	protected boolean touchDown(float x, float y) {
+		if (!button.isPressed())
+			button.press();
+		return true;
+	}
+	
+	@Override
+	protected void touchDragged(float x, float y) {
+		// Sliding off the button takes the press back.
+		if (button.isPressed() && !button.checkInput(x, y))
+			button.cancel();
+	}
+	
+	@Override
+	protected void touchUp(float x, float y) {
+		if (button.isPressed())
+			button.release();
+	}
+	
+	@Override
+	public float prefWidth() {
+		return button.width();
+	}
+	
+	@Override
+	public float prefHeight() {
+		return button.height();
+	}
+	
+	@Override
+	public void renderTo(SpriteBatch batch) {
+		button.renderTo(batch);
+	}
+}
@@ -0,0 +1,102 @@
+package com.jbs.framework.rendering.ui;
+
+import java.util.ArrayList;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+/*
+ * A widget that lays out other widgets. Children are rendered in the order they were
+ * added and touched in the reverse order, so the widget drawn on top is touched first.
+ */
+public abstract class Container extends Widget {
+	
+	private final ArrayList<Widget> children = new ArrayList<Widget>();
+	
+	/*
+	 * Add 'child' on top of the container's children.
+	 */
+	public void add(Widget child) {
+		if (child.parent != null)
+			throw new RuntimeException("Cannot add a Widget that is already in a Container.");
+		children.add(child);
+		child.parent = this;
+		child.invalidate();
+		invalidateHierarchy();
+	}
+	
+	/*
+	 * Remove 'child' from the container.
+	 */
+	public void remove(Widget child) {
+		int index = children.indexOf(child);
+		if (index == -1)
+			throw new RuntimeException("Cannot remove a Widget that is not in the Container.");
+		children.remove(index);
+		child.parent = null;
+		childRemoved(index);
+		invalidateHierarchy();
+	}
+	
+	/*
+	 * React to the child at 'index' being removed.
+	 */
+	protected void childRemoved(int index) { }
+	
+	/* @return the number of children in the container. */
+	public final int childCount() {
+		return children.size();
+	}
+	
+	/* @return the child at 'index'. */
+	public final Widget child(int index) {
+		return children.get(index);
+	}
+	
+	@Override
+	final void validateChildren() {
+		for (int i = 0, size = children.size(); i != size; i ++)
+			children.get(i).validate();
+	}
+	
+	@Override
+	Widget hit(float x, float y) {
+		if (!isVisible() || !contains(x, y))
+			return null;
+		// The last child is drawn on top, so it is hit first.
+		for (int i = children.size() - 1; i >= 0; i --) {
+			Widget hit = children.get(i).hit(x, y);
+			if (hit != null)
+				return hit;
+		}
+		return super.hit(x, y);
+	}
+	
+	@Override
+	public void renderTo(SpriteBatch batch) {
+		for (int i = 0, size = children.size(); i != size; i ++) {
+			Widget child = children.get(i);
+			if (child.isVisible())
+				child.renderTo(batch);
+		}
+	}
+	
+	/*
+	 * @return the largest preferred width of the container's children.
+	 */
+	protected final float maxChildPrefWidth() {
+		float max = 0;
+		for (int i = 0, size = children.size(); i != size; i ++)
+			max = Math.max(max, children.get(i).prefWidth());
+		return max;
+	}
+	
+	/*
+	 * @return the largest preferred height of the container's children.
+	 */
+	protected final float maxChildPrefHeight() {
+		float max = 0;
+		for (int i = 0, size = children.size(); i != size; i ++)
+			max = Math.max(max, children.get(i).prefHeight());
+		return max;
+	}
+}
@@ -0,0 +1,62 @@
+package com.jbs.framework.rendering.ui;
+
+/*
+ * A container that divides its area into equally sized cells, filled from the top
+ * left corner row by row.
+ */
+public class GridContainer extends Container {
+	
+	/* The number of cells in a row. */
+	private final int columns;
+	
+	/* The space between two neighbouring cells. */
+	private float spacing;
+	
+	public GridContainer(int columns, float spacing) {
+		if (columns <= 0)
+			throw new RuntimeException("Cannot create a GridContainer with " + columns + " columns.");
+		this.columns = columns;
+		this.spacing = spacing;
+	}
+	
+	/*
+	 * Set the space between two neighbouring cells.
+	 */
+	public void setSpacing(float spacing) {
+		this.spacing = spacing;
+		invalidateHierarchy();
+	}
+	
+	@Override
+	protected void layout() {
+		int rows = rows();
+		if (rows == 0)
+			return;
+		float cellWidth = (width() - spacing * (columns - 1)) / columns;
+		float cellHeight = (height() - spacing * (rows - 1)) / rows;
+		
+		for (int i = 0, size = childCount(); i != size; i ++) {
+			int column = i % columns, row = i / columns;
+			float cellLeft = left() + column * (cellWidth + spacing);
+			// Rows are counted from the top.
+			float cellBottom = bottom() + height() - (row + 1) * cellHeight - row * spacing;
+			child(i).setBounds(cellLeft, cellBottom, cellWidth, cellHeight);
+		}
+	}
+	
+	@Override
+	public float prefWidth() {
+		return columns * maxChildPrefWidth() + (columns - 1) * spacing;
+	}
+	
+	@Override
+	public float prefHeight() {
+		int rows = rows();
+		return rows == 0 ? 0 : rows * maxChildPrefHeight() + (rows - 1) * spacing;
+	}
+	
+	/* @return the number of rows the children occupy. */
+	private int rows() {
+		return (childCount() + columns - 1) / columns;
+	}
+}
@@ -0,0 +1,500 @@
+package com.jbs.framework.rendering.ui;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.Glyph;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.jbs.framework.rendering.Changeable;
+import com.jbs.framework.rendering.SpriteVertices;
+
+/*
+ * A block of text drawn with a BitmapFont, whose pages serve as the glyph atlas.
+ * The glyphs are laid out once and kept as quads in virtual units. The layout is only
+ * recomputed when the text, font, scale or wrap width changes, and the vertices only
+ * when the layout, position or color changes. The vertices are submitted straight to
+ * the batch like a tinted Graphic, so the batch's color is never touched.
+ * Text that changes every frame, like a score, should be set with setNumber(), which
+ * formats into the Label's own buffer and allocates nothing once the buffers are large
+ * enough.
+ */
+public class Label implements Changeable {
+	
+	/*
+	 * How each line is aligned within the block of text.
+	 */
+	public enum Alignment {
+		LEFT(0), CENTER(0.5f), RIGHT(1);
+		
+		/* The fraction of the free space placed to the left of the line. */
+		private final float factor;
+		
+		private Alignment(float factor) {
+			this.factor = factor;
+		}
+	}
+	
+	private BitmapFont font;
+	
+	private Alignment alignment = Alignment.LEFT;
+	
+	private float
+		/* The center of the block of text. */
+		x, y,
+		/* The scale applied on top of the font's own scale. */
+		scale = 1,
+		/* The width after which lines are wrapped at a space, 0 to never wrap. */
+		wrapWidth,
+		/* The color of the text packed into float bits (ABGR). */
+		packedColor = SpriteVertices.WHITE;
+	
+	private char[]
+		/* The text of the label. */
+		chars = new char[16],
+		/* The buffer the next text is built in before it is compared to the current text. */
+		pending = new char[16];
+	
+	/* The number of characters in 'chars'. */
+	private int length;
+	
+	/* The glyph of every laid out quad. */
+	private Glyph[] glyphs = new Glyph[16];
+	
+	/* The (x, y, width, height) of every laid out quad, relative to the top left of the block. */
+	private float[] quads = new float[16 * 4];
+	
+	/* The number of laid out quads. */
+	private int quadCount;
+	
+	/* The width of every laid out line. */
+	private final FloatArray lineWidths = new FloatArray();
+	
+	/* The index after the last quad of every laid out line. */
+	private final IntArray lineEnds = new IntArray();
+	
+	/* The quads written as vertices, grouped by the page of the font they use. */
+	private float[] vertices = new float[16 * SpriteVertices.SPRITE_SIZE];
+	
+	/* The index of the first vertex float of each page in 'vertices', and the end of the last. */
+	private int[] pageStarts;
+	
+	private float
+		/* The size of the laid out block of text. */
+		width, height;
+	
+	private boolean
+		/* True if the glyphs have to be laid out again. */
+		layoutDirty = true,
+		/* True if the vertices have to be written again. */
+		verticesDirty = true;
+	
+	/* Incremented every time the label's appearance changes. */
+	private int revision;
+	
+	/*
+	 * Create a Label showing 'text' with the font, centered on (x, y).
+	 */
+	public Label(BitmapFont font, float x, float y, CharSequence text) {
+		setFont(font);
+		this.x = x;
+		this.y = y;
+		setText(text);
+	}
+	
+	/*
+	 * Set the label's text, nothing is laid out again if the text did not change.
+	 */
+	public void setText(CharSequence text) {
+		int newLength = text.length();
+		ensurePending(newLength);
+		for (int i = 0; i != newLength; i ++)
+			pending[i] = text.charAt(i);
+		commitPending(newLength);
+	}
+	
+	/*
+	 * Set the label's text to the decimal value of 'value' without allocating.
+	 */
+	public final void setNumber(long value) {
+		setNumber("", value);
+	}
+	
+	/*
+	 * Set the label's text to 'prefix' followed by the decimal value of 'value'
+	 * without allocating.
+	 */
+	public void setNumber(CharSequence prefix, long value) {
+		// Count the digits, a long has at most 19 of them and a sign.
+		int digits = 1;
+		for (long rest = value / 10; rest != 0; rest /= 10)
+			digits ++;
+		int prefixLength = prefix.length();
+		int newLength = prefixLength + digits + (value < 0 ? 1 : 0);
+		ensurePending(newLength);
+		
+		for (int i = 0; i != prefixLength; i ++)
+			pending[i] = prefix.charAt(i);
+		if (value < 0)
+			pending[prefixLength] = '-';
+		
+		// Write the digits from the last one, the remainder is negative for negative values.
+		long rest = value;
+		for (int i = newLength - 1; i != newLength - 1 - digits; i --) {
+			pending[i] = (char) ('0' + Math.abs(rest % 10));
+			rest /= 10;
+		}
+		commitPending(newLength);
+	}
+	
+	/*
+	 * @return the character at 'index' of the label's text.
+	 */
+	public final char charAt(int index) {
+		if (index < 0 || index >= length)
+			throw new RuntimeException("Cannot get character " + index + " of a Label with " + length + " characters.");
+		return chars[index];
+	}
+	
+	/*
+	 * @return the number of characters in the label's text.
+	 */
+	public final int length() {
+		return length;
+	}
+	
+	/*
+	 * @return a new String holding the label's text.
+	 */
+	public String text() {
+		return new String(chars, 0, length);
+	}
+	
+	/*
+	 * Set the font the label is drawn with, the font must not be flipped.
+	 */
+	public void setFont(BitmapFont font) {
+		if (font.isFlipped())
+			throw new RuntimeException("A Label cannot be drawn with a flipped BitmapFont.");
+		this.font = font;
+		this.pageStarts = new int[font.getRegions().length + 1];
+		layoutChanged();
+	}
+	
+	/*
+	 * @return the font the label is drawn with.
+	 */
+	public final BitmapFont font() {
+		return font;
+	}
+	
+	/*
+	 * Set the scale of the text, applied on top of the font's own scale.
+	 */
+	public void setScale(float scale) {
+		if (this.scale != scale) {
+			this.scale = scale;
+			layoutChanged();
+		}
+	}
+	
+	/*
+	 * Wrap lines at a space once they would be wider than 'wrapWidth', 0 never wraps.
+	 */
+	public void setWrapWidth(float wrapWidth) {
+		if (this.wrapWidth != wrapWidth) {
+			this.wrapWidth = wrapWidth;
+			layoutChanged();
+		}
+	}
+	
+	/*
+	 * Set how the lines are aligned within the block of text.
+	 */
+	public void setAlignment(Alignment alignment) {
+		if (this.alignment != alignment) {
+			this.alignment = alignment;
+			layoutChanged();
+		}
+	}
+	
+	/*
+	 * Set the center of the block of text to (x, y).
+	 */
+	public void setPosition(float x, float y) {
+		if (this.x != x || this.y != y) {
+			this.x = x;
+			this.y = y;
+			verticesChanged();
+		}
+	}
+	
+	/*
+	 * Set the color of the text.
+	 */
+	public final void setColor(float r, float g, float b, float a) {
+		setPackedColor(Color.toFloatBits(r, g, b, a));
+	}
+	
+	/*
+	 * Set the color of the text to 'color'.
+	 */
+	public final void setColor(Color color) {
+		setPackedColor(color.toFloatBits());
+	}
+	
+	/*
+	 * Set the color of the text to already packed float bits (ABGR).
+	 */
+	public void setPackedColor(float packedColor) {
+		if (this.packedColor != packedColor) {
+			this.packedColor = packedColor;
+			verticesChanged();
+		}
+	}
+	
+	/* @return the x-coordinate of the center of the block of text. */
+	public final float x() {
+		return x;
+	}
+	
+	/* @return the y-coordinate of the center of the block of text. */
+	public final float y() {
+		return y;
+	}
+	
+	/*
+	 * @return the width of the block of text.
+	 */
+	public final float width() {
+		if (layoutDirty)
+			layout();
+		return width;
+	}
+	
+	/*
+	 * @return the height of the block of text, from the top of the first line's capitals
+	 * to the baseline of the last line.
+	 */
+	public final float height() {
+		if (layoutDirty)
+			layout();
+		return height;
+	}
+	
+	@Override
+	public final int revision() {
+		return revision;
+	}
+	
+	@Override
+	public void renderTo(SpriteBatch batch) {
+		if (layoutDirty)
+			layout();
+		if (verticesDirty)
+			writeVertices();
+		
+		// Submit the quads of each page of the font together.
+		for (int page = 0; page != pageStarts.length - 1; page ++) {
+			int start = pageStarts[page], end = pageStarts[page + 1];
+			if (start != end)
+				batch.draw(pageTexture(page), vertices, start, end - start);
+		}
+	}
+	
+	/*
+	 * Lay the glyphs of the text out as quads relative to the top left of the block.
+	 */
+	private void layout() {
+		BitmapFontData data = font.getData();
+		final float scaleX = data.scaleX * scale, scaleY = data.scaleY * scale;
+		final float lineHeight = data.lineHeight * scale;
+		
+		quadCount = 0;
+		width = 0;
+		lineWidths.clear();
+		lineEnds.clear();
+		// The top of the current line's capitals, lines move down the screen.
+		float lineTop = 0;
+		
+		int lineStart = 0;
+		while (lineStart < length || lineEnds.size == 0) {
+			// Find where the line ends, at a newline, the end of the text or a wrap.
+			int lineEnd = findLineEnd(data, lineStart, scaleX);
+			
+			// Lay out the line's glyphs, trailing spaces are left out.
+			int trimmedEnd = lineEnd;
+			while (trimmedEnd > lineStart && chars[trimmedEnd - 1] == ' ')
+				trimmedEnd --;
+			float lineWidth = layoutLine(data, lineStart, trimmedEnd, lineTop + data.ascent * scale, scaleX, scaleY);
+			
+			// Remember the line so that it can be aligned once the block's width is known.
+			lineWidths.add(lineWidth);
+			lineEnds.add(quadCount);
+			width = Math.max(width, lineWidth);
+			
+			lineTop -= lineHeight;
+			// Skip the newline or the space the line was wrapped at.
+			lineStart = lineEnd + 1;
+		}
+		height = data.capHeight * scale + lineHeight * (lineEnds.size - 1);
+		
+		// Align every line within the block.
+		int quad = 0;
+		for (int line = 0; line != lineEnds.size; line ++) {
+			float shift = (width - lineWidths.get(line)) * alignment.factor;
+			for (int end = lineEnds.get(line); quad != end; quad ++)
+				quads[quad * 4] += shift;
+		}
+		
+		layoutDirty = false;
+		verticesDirty = true;
+	}
+	
+	/*
+	 * @return the index of the newline, space or end of text that ends the line starting at 'start'.
+	 */
+	private int findLineEnd(BitmapFontData data, int start, float scaleX) {
+		float penX = 0;
+		int lastSpace = -1;
+		Glyph last = null;
+		for (int i = start; i != length; i ++) {
+			char c = chars[i];
+			if (c == '\n')
+				return i;
+			Glyph glyph = data.getGlyph(c);
+			if (glyph == null)
+				continue;
+			if (last != null)
+				penX += last.getKerning(c) * scaleX;
+			
+			if (c == ' ')
+				lastSpace = i;
+			else if (wrapWidth > 0 && lastSpace != -1 && penX + (glyph.xoffset + glyph.width) * scaleX > wrapWidth)
+				return lastSpace;
+			penX += glyph.xadvance * scaleX;
+			last = glyph;
+		}
+		return length;
+	}
+	
+	/*
+	 * Add a quad for every visible glyph from 'start' to 'end' on the line whose
+	 * glyph offsets are measured from 'originY'.
+	 * @return the width of the line.
+	 */
+	private float layoutLine(BitmapFontData data, int start, int end, float originY, float scaleX, float scaleY) {
+		float penX = 0;
+		Glyph last = null;
+		for (int i = start; i != end; i ++) {
+			char c = chars[i];
+			Glyph glyph = data.getGlyph(c);
+			if (glyph == null)
+				continue;
+			if (last != null)
+				penX += last.getKerning(c) * scaleX;
+			
+			if (glyph.width > 0 && glyph.height > 0) {
+				ensureQuads(quadCount + 1);
+				int index = quadCount * 4;
+				quads[index] = penX + glyph.xoffset * scaleX;
+				quads[index + 1] = originY + glyph.yoffset * scaleY;
+				quads[index + 2] = glyph.width * scaleX;
+				quads[index + 3] = glyph.height * scaleY;
+				glyphs[quadCount ++] = glyph;
+			}
+			penX += glyph.xadvance * scaleX;
+			last = glyph;
+		}
+		return penX;
+	}
+	
+	/*
+	 * Write the laid out quads as vertices at the label's position and color, grouped by page.
+	 */
+	private void writeVertices() {
+		if (vertices.length < quadCount * SpriteVertices.SPRITE_SIZE)
+			vertices = new float[Math.max(vertices.length * 2, quadCount * SpriteVertices.SPRITE_SIZE)];
+		
+		// The quads are relative to the top left of the block.
+		final float left = x - width/2, top = y + height/2;
+		int offset = 0;
+		for (int page = 0; page != pageStarts.length - 1; page ++) {
+			pageStarts[page] = offset;
+			for (int i = 0; i != quadCount; i ++) {
+				Glyph glyph = glyphs[i];
+				if (glyph.page != page)
+					continue;
+				int index = i * 4;
+				// Unflipped fonts keep the bottom of the glyph in v, SpriteVertices expects it in v2.
+				offset = SpriteVertices.write(vertices, offset, glyph.u, glyph.v2, glyph.u2, glyph.v,
+						left + quads[index], top + quads[index + 1], 0, 0, quads[index + 2], quads[index + 3],
+						0, packedColor);
+			}
+		}
+		pageStarts[pageStarts.length - 1] = offset;
+		verticesDirty = false;
+	}
+	
+	/*
+	 * @return the texture of the font's page.
+	 */
+	private Texture pageTexture(int page) {
+		return font.getRegion(page).getTexture();
+	}
+	
+	/*
+	 * Make the pending text the label's text if the two differ.
+	 */
+	private void commitPending(int newLength) {
+		if (newLength == length) {
+			boolean same = true;
+			for (int i = 0; i != length && same; i ++)
+				same = chars[i] == pending[i];
+			if (same)
+				return;
+		}
+		// Swap the buffers so that neither has to be copied or reallocated.
+		char[] previous = chars;
+		chars = pending;
+		pending = previous;
+		length = newLength;
+		layoutChanged();
+	}
+	
+	/*
+	 * Make sure the pending buffer can hold 'capacity' characters.
+	 */
+	private void ensurePending(int capacity) {
+		if (pending.length < capacity)
+			pending = new char[Math.max(pending.length * 2, capacity)];
+	}
+	
+	/*
+	 * Make sure there is room for 'capacity' quads.
+	 */
+	private void ensureQuads(int capacity) {
+		if (glyphs.length < capacity) {
+			Glyph[] largerGlyphs = new Glyph[Math.max(glyphs.length * 2, capacity)];
+			System.arraycopy(glyphs, 0, largerGlyphs, 0, quadCount);
+			glyphs = largerGlyphs;
+			float[] largerQuads = new float[largerGlyphs.length * 4];
+			System.arraycopy(quads, 0, largerQuads, 0, quadCount * 4);
+			quads = largerQuads;
+		}
+	}
+	
+	/* The glyphs have to be laid out again. */
+	private void layoutChanged() {
+		layoutDirty = true;
+		revision ++;
+	}
+	
+	/* The vertices have to be written again. */
+	private void verticesChanged() {
+		verticesDirty = true;
+		revision ++;
+	}
+}
@@ -0,0 +1,20 @@
+package com.jbs.framework.rendering.ui;
+
+/*
+ * Supplies the rows of a ScrollList. Buttons are only created for the rows that are
+ * visible and are reused for other rows as the list scrolls.
+ */
+public interface RowAdapter {
+	
+	/* @return the number of rows in the list. */
+	public int rowCount();
+	
+	/* @return a new Button able to show any row. */
+	public Button createRow();
+	
+	/* Set 'button' up to show the row at 'index'. */
+	public void bindRow(Button button, int index);
+	
+	/* React to the row at 'index' being tapped. */
+	public void rowSelected(int index);
+}
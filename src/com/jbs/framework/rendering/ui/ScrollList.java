@@ -0,0 +1,273 @@
+package com.jbs.framework.rendering.ui;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.IntMap;
+
+/*
+ * A vertically scrolling list of equally tall rows. Only the rows within the list's
+ * bounds have a Button, so the cost of the list depends on its height and not on its
+ * number of rows. Buttons of rows that scroll out of view are reused for the rows
+ * that scroll into view.
+ * Dragging the list scrolls it, tapping a row selects it.
+ */
+public class ScrollList extends Widget {
+	
+	private final RowAdapter adapter;
+	
+	/* The height of every row. */
+	private final float rowHeight;
+	
+	/* The distance a touch has to move before it scrolls instead of pressing a row. */
+	private float dragThreshold = 10;
+	
+	/* The distance the list is scrolled down from its first row. */
+	private float scroll;
+	
+	/* The Button of every visible row, by row index. */
+	private final IntMap<Button> visibleRows = new IntMap<Button>();
+	
+	/* The Buttons not showing a row. */
+	private final ArrayList<Button> freeRows = new ArrayList<Button>();
+	
+	private int
+		/* The first and last visible row, last < first when none are visible. */
+		firstVisible = 0, lastVisible = -1,
+		/* The row the current touch pressed, -1 if none. */
+		pressedRow = -1;
+	
+	private float
+		/* Where the current touch began. */
+		touchStartY,
+		/* The scroll when the current touch began. */
+		scrollAtTouchStart;
+	
+	/* True if the current touch is scrolling the list. */
+	private boolean dragging;
+	
+	/* Scratch used to project the list's bounds into the render target when clipping. */
+	private final Matrix4 combined = new Matrix4();
+	private final Vector3 corner = new Vector3();
+	private final IntBuffer viewport = BufferUtils.newIntBuffer(16);
+	
+	/* The scissor box that was set before the list rendered, restored once it is done. */
+	private final IntBuffer enclosingBox = BufferUtils.newIntBuffer(16);
+	
+	public ScrollList(RowAdapter adapter, float rowHeight) {
+		if (rowHeight <= 0)
+			throw new RuntimeException("Cannot create a ScrollList with a row height of " + rowHeight + ".");
+		this.adapter = adapter;
+		this.rowHeight = rowHeight;
+	}
+	
+	/*
+	 * Show the row at 'index' at the top of the list, or as close as the list can scroll.
+	 */
+	public void scrollToRow(int index) {
+		setScroll(index * rowHeight);
+	}
+	
+	/*
+	 * Scroll the list down from its first row by 'scroll', clamped to the rows it has.
+	 */
+	public void setScroll(float scroll) {
+		float clamped = Math.max(0, Math.min(scroll, maxScroll()));
+		if (clamped != this.scroll) {
+			this.scroll = clamped;
+			invalidate();
+		}
+	}
+	
+	/* @return the distance the list is scrolled down from its first row. */
+	public final float scroll() {
+		return scroll;
+	}
+	
+	/*
+	 * Set the distance a touch has to move before it scrolls the list.
+	 */
+	public void setDragThreshold(float dragThreshold) {
+		this.dragThreshold = dragThreshold;
+	}
+	
+	/*
+	 * Bind every visible row again, needed when the adapter's rows changed.
+	 */
+	public void rowsChanged() {
+		for (IntMap.Values<Button> buttons = visibleRows.values(); buttons.hasNext(); )
+			freeRows.add(buttons.next());
+		visibleRows.clear();
+		firstVisible = 0;
+		lastVisible = -1;
+		pressedRow = -1;
+		// The number of rows may have changed, keep the scroll within them.
+		scroll = Math.max(0, Math.min(scroll, maxScroll()));
+		invalidate();
+	}
+	
+	@Override
+	protected void layout() {
+		// The list may have shrunk or grown since it was scrolled, keep the scroll within its rows.
+		scroll = Math.max(0, Math.min(scroll, maxScroll()));
+		
+		int rowCount = adapter.rowCount();
+		int first = (int) (scroll / rowHeight);
+		int last = Math.min(rowCount - 1, (int) ((scroll + height()) / rowHeight));
+		
+		// Free the rows that scrolled out of view.
+		for (int row = firstVisible; row <= lastVisible; row ++) {
+			if (row < first || row > last) {
+				Button button = visibleRows.remove(row);
+				button.cancel();
+				freeRows.add(button);
+			}
+		}
+		
+		// Bind the rows that scrolled into view and place every visible row.
+		final float top = bottom() + height();
+		for (int row = first; row <= last; row ++) {
+			Button button = visibleRows.get(row);
+			if (button == null) {
+				button = freeRows.isEmpty() ? adapter.createRow() : freeRows.remove(freeRows.size() - 1);
+				adapter.bindRow(button, row);
+				visibleRows.put(row, button);
+			}
+			button.setSize(width() / button.scaleX(), rowHeight / button.scaleY());
+			button.setPosition(centerX(), top - row * rowHeight + scroll - rowHeight/2);
+		}
+		firstVisible = first;
+		lastVisible = last;
+	}
+	
+	@Override
+	protected boolean touchDown(float x, float y) {
+		touchStartY = y;
+		scrollAtTouchStart = scroll;
+		dragging = false;
+		
+		// Press the row under the touch.
+		pressedRow = rowAt(y);
+		Button button = pressedRow == -1 ? null : visibleRows.get(pressedRow);
+		if (button == null)
+			pressedRow = -1;
+		else if (!button.isPressed())
+			button.press();
+		return true;
+	}
+	
+	@Override
+	protected void touchDragged(float x, float y) {
+		if (!dragging && Math.abs(y - touchStartY) > dragThreshold) {
+			// The touch became a scroll, the row is no longer pressed.
+			dragging = true;
+			cancelPressedRow();
+		}
+		if (dragging)
+			// Dragging upwards reveals the rows further down.
+			setScroll(scrollAtTouchStart + (y - touchStartY));
+	}
+	
+	@Override
+	protected void touchUp(float x, float y) {
+		if (pressedRow != -1) {
+			Button button = visibleRows.get(pressedRow);
+			int row = pressedRow;
+			pressedRow = -1;
+			if (button != null && button.isPressed()) {
+				button.release();
+				adapter.rowSelected(row);
+			}
+		}
+		dragging = false;
+	}
+	
+	@Override
+	public void renderTo(SpriteBatch batch) {
+		// Keep the rows that are partly scrolled out of view within the list, and within
+		// any clip the list is rendered inside of.
+		batch.flush();
+		// GLCommon has no glIsEnabled, but the capability can be read like any other state.
+		viewport.clear();
+		Gdx.gl.glGetIntegerv(GL20.GL_SCISSOR_TEST, viewport);
+		boolean enclosed = viewport.get(0) != 0;
+		enclosingBox.clear();
+		Gdx.gl.glGetIntegerv(GL20.GL_SCISSOR_BOX, enclosingBox);
+		Gdx.gl.glEnable(GL20.GL_SCISSOR_TEST);
+		scissorToBounds(batch, enclosed);
+		
+		for (int row = firstVisible; row <= lastVisible; row ++)
+			visibleRows.get(row).renderTo(batch);
+		
+		// Put back the clip that was in place before the list.
+		batch.flush();
+		Gdx.gl.glScissor(enclosingBox.get(0), enclosingBox.get(1), enclosingBox.get(2), enclosingBox.get(3));
+		if (!enclosed)
+			Gdx.gl.glDisable(GL20.GL_SCISSOR_TEST);
+	}
+	
+	/*
+	 * Set the scissor to the list's bounds in the pixels of the current render target. The
+	 * bounds are projected with the batch's matrices and mapped through the current viewport,
+	 * so the clip is right whether the list renders to the window or to a FrameBuffer.
+	 * If 'enclosed' the bounds are intersected with the enclosing scissor box.
+	 */
+	private void scissorToBounds(SpriteBatch batch, boolean enclosed) {
+		combined.set(batch.getProjectionMatrix()).mul(batch.getTransformMatrix());
+		viewport.clear();
+		Gdx.gl.glGetIntegerv(GL20.GL_VIEWPORT, viewport);
+		int viewportX = viewport.get(0), viewportY = viewport.get(1);
+		int viewportWidth = viewport.get(2), viewportHeight = viewport.get(3);
+		
+		// Project two opposite corners, the projection may flip either axis.
+		corner.set(left(), bottom(), 0).prj(combined);
+		float x0 = viewportX + (corner.x + 1) / 2 * viewportWidth;
+		float y0 = viewportY + (corner.y + 1) / 2 * viewportHeight;
+		corner.set(left() + width(), bottom() + height(), 0).prj(combined);
+		float x1 = viewportX + (corner.x + 1) / 2 * viewportWidth;
+		float y1 = viewportY + (corner.y + 1) / 2 * viewportHeight;
+		
+		int left = Math.round(Math.min(x0, x1)), bottom = Math.round(Math.min(y0, y1));
+		int right = Math.round(Math.max(x0, x1)), top = Math.round(Math.max(y0, y1));
+		if (enclosed) {
+			left = Math.max(left, enclosingBox.get(0));
+			bottom = Math.max(bottom, enclosingBox.get(1));
+			right = Math.min(right, enclosingBox.get(0) + enclosingBox.get(2));
+			top = Math.min(top, enclosingBox.get(1) + enclosingBox.get(3));
+		}
+		Gdx.gl.glScissor(left, bottom, Math.max(0, right - left), Math.max(0, top - bottom));
+	}
+	
+	/* @return the number of Buttons the list has created. */
+	public final int createdRows() {
+		return visibleRows.size + freeRows.size();
+	}
+	
+	/* @return the row at the height 'y', or -1 if there is none. */
+	private int rowAt(float y) {
+		float fromTop = bottom() + height() - y + scroll;
+		int row = (int) Math.floor(fromTop / rowHeight);
+		return row >= 0 && row < adapter.rowCount() ? row : -1;
+	}
+	
+	/* Release the pressed row without selecting it. */
+	private void cancelPressedRow() {
+		if (pressedRow == -1)
+			return;
+		Button button = visibleRows.get(pressedRow);
+		if (button != null)
+			button.cancel();
+		pressedRow = -1;
+	}
+	
+	/* @return the furthest the list can scroll. */
+	private float maxScroll() {
+		return Math.max(0, adapter.rowCount() * rowHeight - height());
+	}
+}
@@ -0,0 +1,24 @@
+package com.jbs.framework.rendering.ui;
+
+/*
+ * A container that gives every child its whole area, children are stacked on top of
+ * each other in the order they were added.
+ */
+public class StackContainer extends Container {
+	
+	@Override
+	protected void layout() {
+		for (int i = 0, size = childCount(); i != size; i ++)
+			child(i).setBounds(left(), bottom(), width(), height());
+	}
+	
+	@Override
+	public float prefWidth() {
+		return maxChildPrefWidth();
+	}
+	
+	@Override
+	public float prefHeight() {
+		return maxChildPrefHeight();
+	}
+}
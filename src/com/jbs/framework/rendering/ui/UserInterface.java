@@ -0,0 +1,114 @@
+package com.jbs.framework.rendering.ui;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.jbs.framework.io.InputProxy;
+import com.jbs.framework.rendering.Screen;
+import com.jbs.framework.util.RenderableUpdatable;
+
+/*
+ * The root of a retained user interface, covering the whole virtual screen.
+ * Updating it lays out whatever was invalidated and dispatches the input in a single
+ * pass: the tree is hit tested once when a touch begins, and the widget that accepts
+ * the touch receives its movement and its end.
+ */
+public class UserInterface extends RenderableUpdatable {
+	
+	/*
+	 * The container at the top of the tree, the only widget without a parent.
+	 */
+	static final class Root extends StackContainer {
+		
+		final UserInterface userInterface;
+		
+		Root(UserInterface userInterface) {
+			this.userInterface = userInterface;
+		}
+	}
+	
+	private final Screen screen;
+	
+	private final Root root = new Root(this);
+	
+	/* The widget that accepted the current touch, null if none did. */
+	private Widget touchFocus;
+	
+	/* True if the input was touched during the last update. */
+	private boolean wasTouched;
+	
+	/*
+	 * Create a user interface that covers the virtual screen of 'screen'.
+	 */
+	public UserInterface(Screen screen) {
+		this.screen = screen;
+	}
+	
+	/*
+	 * Add a widget that covers the whole screen, on top of those already added.
+	 */
+	public void add(Widget widget) {
+		root.add(widget);
+	}
+	
+	/*
+	 * Remove a widget added to the user interface.
+	 */
+	public void remove(Widget widget) {
+		root.remove(widget);
+	}
+	
+	/* @return the screen the user interface covers. */
+	public final Screen screen() {
+		return screen;
+	}
+	
+	@Override
+	public void updateWith(InputProxy input) {
+		validate();
+		
+		boolean touched = input.isTouched();
+		float x = input.getPreciseX(0), y = input.getPreciseY(0);
+		
+		// A widget that left the tree while it was touched loses the touch.
+		if (touchFocus != null && !isAttached(touchFocus))
+			touchFocus = null;
+		
+		if (touched && !wasTouched) {
+			// Offer the touch to the widget under it, then to its containers.
+			for (Widget widget = root.hit(x, y); widget != null; widget = widget.parent) {
+				if (widget.touchDown(x, y)) {
+					touchFocus = widget;
+					break;
+				}
+			}
+		} else if (touched) {
+			if (touchFocus != null)
+				touchFocus.touchDragged(x, y);
+		} else if (wasTouched && touchFocus != null) {
+			touchFocus.touchUp(x, y);
+			touchFocus = null;
+		}
+		wasTouched = touched;
+	}
+	
+	@Override
+	public void renderTo(SpriteBatch batch) {
+		// The input may have changed the layout since the update.
+		validate();
+		root.renderTo(batch);
+	}
+	
+	/*
+	 * Fit the root to the virtual screen and lay out everything that was invalidated.
+	 */
+	private void validate() {
+		root.setBounds(0, 0, screen.virtualWidth(), screen.virtualHeight());
+		root.validate();
+	}
+	
+	/* @return true if 'widget' is still part of the tree. */
+	private boolean isAttached(Widget widget) {
+		while (widget.parent != null)
+			widget = widget.parent;
+		return widget == root;
+	}
+}
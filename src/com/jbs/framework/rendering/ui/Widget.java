@@ -0,0 +1,196 @@
+package com.jbs.framework.rendering.ui;
+
+import com.jbs.framework.rendering.Renderable;
+
+/*
+ * A node of a retained user interface. Containers decide the bounds of their children,
+ * and a widget only lays itself out again when it was invalidated or its bounds changed,
+ * so a change only costs the subtree it happened in.
+ * Touches are delivered by the UserInterface, which hit tests the tree once per touch.
+ */
+public abstract class Widget implements Renderable {
+	
+	/* The container holding the widget, null for the root. */
+	Widget parent;
+	
+	private float
+		/* The bottom left corner of the widget. */
+		left, bottom,
+		/* The size the widget's container gave it. */
+		width, height;
+	
+	private boolean
+		/* True if the widget has to lay itself out again. */
+		layoutDirty = true,
+		/* True if a widget below this one has to lay itself out again. */
+		childLayoutDirty = true,
+		visible = true,
+		/* True if the widget accepts touches. */
+		touchable = true;
+	
+	/*
+	 * Set the rectangle the widget occupies, it is laid out again only if it changed.
+	 */
+	public final void setBounds(float left, float bottom, float width, float height) {
+		if (this.left == left && this.bottom == bottom && this.width == width && this.height == height)
+			return;
+		this.left = left;
+		this.bottom = bottom;
+		this.width = width;
+		this.height = height;
+		invalidate();
+	}
+	
+	/*
+	 * Lay the widget out again before it is next updated or rendered.
+	 */
+	public final void invalidate() {
+		layoutDirty = true;
+		// Lead the validation down to this widget, stopping where the path is already marked.
+		for (Widget ancestor = parent; ancestor != null && !ancestor.childLayoutDirty; ancestor = ancestor.parent)
+			ancestor.childLayoutDirty = true;
+	}
+	
+	/*
+	 * Lay the widget and every container above it out again, needed when the widget's
+	 * preferred size changed.
+	 */
+	public final void invalidateHierarchy() {
+		for (Widget widget = this; widget != null; widget = widget.parent)
+			widget.invalidate();
+	}
+	
+	/*
+	 * Lay out the widget if it was invalidated, then every child below it that was.
+	 */
+	final void validate() {
+		if (layoutDirty) {
+			layoutDirty = false;
+			layout();
+		}
+		if (childLayoutDirty) {
+			childLayoutDirty = false;
+			validateChildren();
+		}
+	}
+	
+	/*
+	 * Position the widget's contents within its bounds.
+	 */
+	protected void layout() { }
+	
+	/*
+	 * Validate each of the widget's children.
+	 */
+	void validateChildren() { }
+	
+	/*
+	 * @return the deepest visible widget at (x, y) that accepts touches, or null.
+	 */
+	Widget hit(float x, float y) {
+		return touchable && visible && contains(x, y) ? this : null;
+	}
+	
+	/*
+	 * React to a touch beginning at (x, y).
+	 * @return true to receive the rest of the touch, false to pass it to the container.
+	 */
+	protected boolean touchDown(float x, float y) {
+		return false;
+	}
+	
+	/* React to the touch the widget accepted moving to (x, y). */
+	protected void touchDragged(float x, float y) { }
+	
+	/* React to the touch the widget accepted ending at (x, y). */
+	protected void touchUp(float x, float y) { }
+	
+	/*
+	 * @return the width the widget would like to have, 0 if it has no preference.
+	 */
+	public float prefWidth() {
+		return 0;
+	}
+	
+	/*
+	 * @return the height the widget would like to have, 0 if it has no preference.
+	 */
+	public float prefHeight() {
+		return 0;
+	}
+	
+	/*
+	 * @return true if (x, y) lies within the widget's bounds.
+	 */
+	public final boolean contains(float x, float y) {
+		return x >= left && x <= left + width && y >= bottom && y <= bottom + height;
+	}
+	
+	/* @return the x-coordinate of the widget's left edge. */
+	public final float left() {
+		return left;
+	}
+	
+	/* @return the y-coordinate of the widget's bottom edge. */
+	public final float bottom() {
+		return bottom;
+	}
+	
+	/* @return the width the widget's container gave it. */
+	public final float width() {
+		return width;
+	}
+	
+	/* @return the height the widget's container gave it. */
+	public final float height() {
+		return height;
+	}
+	
+	/* @return the x-coordinate of the widget's center. */
+	public final float centerX() {
+		return left + width/2;
+	}
+	
+	/* @return the y-coordinate of the widget's center. */
+	public final float centerY() {
+		return bottom + height/2;
+	}
+	
+	/* @return the container holding the widget, null if it has none. */
+	public final Widget parent() {
+		return parent;
+	}
+	
+	/*
+	 * @return the UserInterface the widget is part of, null if it is not part of one.
+	 */
+	public final UserInterface userInterface() {
+		Widget root = this;
+		while (root.parent != null)
+			root = root.parent;
+		return root instanceof UserInterface.Root ? ((UserInterface.Root) root).userInterface : null;
+	}
+	
+	/*
+	 * Show or hide the widget, a hidden widget keeps its space but is neither
+	 * rendered nor touched.
+	 */
+	public void setVisible(boolean visible) {
+		this.visible = visible;
+	}
+	
+	public final boolean isVisible() {
+		return visible;
+	}
+	
+	/*
+	 * Set whether the widget accepts touches, touches on it otherwise go to its container.
+	 */
+	public void setTouchable(boolean touchable) {
+		this.touchable = touchable;
+	}
+	
+	public final boolean isTouchable() {
+		return touchable;
+	}
+}
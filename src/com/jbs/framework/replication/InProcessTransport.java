@@ -0,0 +1,35 @@
+package com.jbs.framework.replication;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/*
+ * A ReplicationTransport within one process, for testing replication without a network
+ * and for local multiplayer. The sender and receiver may be on different threads.
+ */
+public class InProcessTransport implements ReplicationTransport {
+	
+	private final ConcurrentLinkedQueue<byte[]> packets = new ConcurrentLinkedQueue<byte[]>();
+	
+	/* The number of bytes sent so far. */
+	private volatile long bytesSent;
+	
+	@Override
+	public void send(ByteBuffer packet) {
+		byte[] bytes = new byte[packet.remaining()];
+		packet.get(bytes);
+		bytesSent += bytes.length;
+		packets.add(bytes);
+	}
+	
+	@Override
+	public ByteBuffer receive() {
+		byte[] bytes = packets.poll();
+		return bytes == null ? null : ByteBuffer.wrap(bytes);
+	}
+	
+	/* @return the number of bytes sent so far. */
+	public final long bytesSent() {
+		return bytesSent;
+	}
+}
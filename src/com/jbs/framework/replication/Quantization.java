@@ -0,0 +1,32 @@
+package com.jbs.framework.replication;
+
+/*
+ * Converts replicated values to and from the integers sent in packets.
+ */
+final class Quantization {
+	
+	/* The number of steps in a full turn, rotations are sent in 16 bits. */
+	static final int ANGLE_STEPS = 1 << 16;
+	
+	private Quantization() { }
+	
+	/* @return 'value' rounded to 1 / 'precision' units. */
+	static int position(float value, float precision) {
+		return Math.round(value * precision);
+	}
+	
+	/* @return the position of the quantized 'value'. */
+	static float position(int value, float precision) {
+		return value / precision;
+	}
+	
+	/* @return 'degrees' wrapped to a full turn and rounded to 16 bits. */
+	static int angle(float degrees) {
+		return Math.round(degrees * (ANGLE_STEPS / 360f)) & (ANGLE_STEPS - 1);
+	}
+	
+	/* @return the angle in degrees of the quantized 'value'. */
+	static float angle(int value) {
+		return value * (360f / ANGLE_STEPS);
+	}
+}
@@ -0,0 +1,20 @@
+package com.jbs.framework.replication;
+
+import com.jbs.framework.rendering.Animation;
+import com.jbs.framework.rendering.Graphic;
+
+/*
+ * Creates the local copies of replicated objects as the ReplicaReceiver learns about
+ * them, and is told when they are forgotten.
+ */
+public interface ReplicaFactory {
+	
+	/* @return a new Graphic to show the replicated object 'id'. */
+	public Graphic createGraphic(int id);
+	
+	/* @return the animation of the replicated object 'id', or null if it has none. */
+	public Animation animationOf(int id, Graphic graphic);
+	
+	/* React to the replicated object 'id' being forgotten, it is no longer rendered. */
+	public void destroyed(int id, Graphic graphic);
+}
@@ -0,0 +1,198 @@
+package com.jbs.framework.replication;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntMap;
+import com.jbs.framework.io.InputProxy;
+import com.jbs.framework.rendering.Animation;
+import com.jbs.framework.rendering.Graphic;
+import com.jbs.framework.util.RenderableUpdatable;
+import com.jbs.framework.util.interpolation.LinearInterpolation;
+
+/*
+ * Receives the packets of a Replicator and keeps local copies of the replicated objects.
+ * Packets arrive once per fixed step, so the copies are interpolated from the state of
+ * the previous packet to that of the latest one over the length of a step, which keeps
+ * them moving smoothly at any frame rate at the cost of one step of delay.
+ */
+public class ReplicaReceiver extends RenderableUpdatable {
+	
+	/*
+	 * The local copy of a replicated object.
+	 */
+	private static final class Replica {
+		
+		final Graphic graphic;
+		
+		/* May be null. */
+		final Animation animation;
+		
+		/* The quantized fields of the latest packet. */
+		int x, y, rotation;
+		
+		/* The position of the previous and of the latest packet. */
+		final Vector2 from = new Vector2(), to = new Vector2();
+		
+		/* The rotation of the previous and of the latest packet. */
+		float fromRotation, toRotation;
+		
+		Replica(Graphic graphic, Animation animation) {
+			this.graphic = graphic;
+			this.animation = animation;
+		}
+	}
+	
+	private final ReplicationTransport transport;
+	
+	private final ReplicaFactory factory;
+	
+	/* The number of quantization steps per virtual unit. */
+	private final float precision;
+	
+	/* The time in milliseconds between two packets. */
+	private final float stepTime;
+	
+	private final IntMap<Replica> replicas = new IntMap<Replica>();
+	
+	/* The replicas in the order they were created, for rendering and interpolating. */
+	private final ArrayList<Replica> replicaList = new ArrayList<Replica>();
+	
+	/* The time in milliseconds when the latest packet was read. */
+	private long packetTime;
+	
+	/* The position being interpolated, reused every frame. */
+	private final Vector2 interpolated = new Vector2();
+	
+	/*
+	 * Create a receiver of packets sent every 'stepTime' milliseconds, with positions
+	 * rounded to 1 / 'precision' virtual units like the sending Replicator.
+	 */
+	public ReplicaReceiver(ReplicationTransport transport, ReplicaFactory factory, float precision, float stepTime) {
+		this.transport = transport;
+		this.factory = factory;
+		this.precision = precision;
+		this.stepTime = stepTime;
+	}
+	
+	/*
+	 * Read the packets that arrived and move the replicas to their interpolated state.
+	 */
+	@Override
+	public void updateWith(InputProxy input) {
+		ByteBuffer packet;
+		while ((packet = transport.receive()) != null)
+			read(packet);
+		interpolate();
+	}
+	
+	@Override
+	public void renderTo(SpriteBatch batch) {
+		for (int i = 0, size = replicaList.size(); i != size; i ++)
+			replicaList.get(i).graphic.renderTo(batch);
+	}
+	
+	/* @return the local copy of the replicated object 'id', or null if it is not known. */
+	public final Graphic graphic(int id) {
+		Replica replica = replicas.get(id);
+		return replica == null ? null : replica.graphic;
+	}
+	
+	/* @return the number of replicated objects known. */
+	public final int size() {
+		return replicaList.size();
+	}
+	
+	/*
+	 * Apply one packet, the replicas start moving from where the previous packet put them.
+	 */
+	private void read(ByteBuffer packet) {
+		// Every replica begins a new step, unchanged ones hold still.
+		for (int i = 0, size = replicaList.size(); i != size; i ++) {
+			Replica replica = replicaList.get(i);
+			replica.from.set(replica.to);
+			replica.fromRotation = replica.toRotation;
+		}
+		packetTime = System.currentTimeMillis();
+		
+		Varints.read(packet);
+		int records = packet.getInt();
+		for (int i = 0; i != records; i ++) {
+			int id = Varints.read(packet);
+			int flags = packet.get();
+			
+			if ((flags & Replicator.REMOVED) != 0) {
+				Replica replica = replicas.remove(id);
+				if (replica != null) {
+					replicaList.remove(replica);
+					factory.destroyed(id, replica.graphic);
+				}
+				continue;
+			}
+			
+			Replica replica;
+			if ((flags & Replicator.CREATED) != 0) {
+				// The object is new or came back into range, replace any stale copy.
+				Replica stale = replicas.remove(id);
+				if (stale != null) {
+					replicaList.remove(stale);
+					factory.destroyed(id, stale.graphic);
+				}
+				Graphic graphic = factory.createGraphic(id);
+				replica = new Replica(graphic, factory.animationOf(id, graphic));
+				replicas.put(id, replica);
+				replicaList.add(replica);
+			} else {
+				replica = replicas.get(id);
+				if (replica == null)
+					throw new RuntimeException("A replication packet updates " + id + ", which is not known.");
+			}
+			
+			if ((flags & Replicator.POSITION_X) != 0)
+				replica.x += Varints.readSigned(packet);
+			if ((flags & Replicator.POSITION_Y) != 0)
+				replica.y += Varints.readSigned(packet);
+			if ((flags & Replicator.ROTATION) != 0)
+				replica.rotation = (replica.rotation + Varints.readSigned(packet)) & (Quantization.ANGLE_STEPS - 1);
+			if ((flags & Replicator.ANIMATION) != 0) {
+				int playhead = Varints.readSigned(packet);
+				boolean animating = packet.get() != 0;
+				float framesPerSecond = packet.getFloat();
+				if (replica.animation != null) {
+					replica.animation.setSpeed(framesPerSecond);
+					replica.animation.seek(playhead, animating);
+				}
+			}
+			
+			replica.to.set(Quantization.position(replica.x, precision), Quantization.position(replica.y, precision));
+			replica.toRotation = Quantization.angle(replica.rotation);
+			// A new replica has nowhere to come from.
+			if ((flags & Replicator.CREATED) != 0) {
+				replica.from.set(replica.to);
+				replica.fromRotation = replica.toRotation;
+			}
+		}
+	}
+	
+	/*
+	 * Move every replica between the previous and the latest packet.
+	 */
+	private void interpolate() {
+		float normal = Math.min((System.currentTimeMillis() - packetTime) / stepTime, 1);
+		for (int i = 0, size = replicaList.size(); i != size; i ++) {
+			Replica replica = replicaList.get(i);
+			LinearInterpolation.interpolate(normal, replica.from, replica.to, interpolated);
+			replica.graphic.setPosition(interpolated.x, interpolated.y);
+			
+			// Turn the short way around the circle.
+			float turn = replica.toRotation - replica.fromRotation;
+			if (turn > 180)
+				turn -= 360;
+			else if (turn < -180)
+				turn += 360;
+			replica.graphic.setRotation(replica.fromRotation + turn * normal);
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.jbs.framework.replication;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Carries replication packets from a Replicator to a ReplicaReceiver. Packets are
+ * delta compressed against the previous packet, so the transport must deliver every
+ * packet once and in order, like a TCP connection or an in-process queue.
+ */
+public interface ReplicationTransport {
+	
+	/* Send the bytes from the packet's position to its limit. */
+	public void send(ByteBuffer packet);
+	
+	/*
+	 * @return the next packet that arrived, from its position to its limit, or null if
+	 * none has. The buffer may be reused by the next call.
+	 */
+	public ByteBuffer receive();
+}
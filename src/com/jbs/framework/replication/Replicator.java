@@ -0,0 +1,283 @@
+package com.jbs.framework.replication;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.jbs.framework.rendering.Animation;
+import com.jbs.framework.rendering.Graphic;
+
+/*
+ * Replicates the positions, rotations and animation playheads of Graphics to one peer.
+ * Every fixed step update() writes a packet holding only what changed since the
+ * previous packet: positions and rotations are quantized to integers and sent as
+ * variable length deltas, and an animation's playhead is only sent when it drifts
+ * from where the peer expects it to be. Objects further from the viewer than the
+ * interest radius are removed from the peer until they come back in range.
+ * Create one Replicator per peer, each keeps what its peer knows.
+ */
+public class Replicator {
+	
+	/* Bits of a record's flags, telling which fields follow. */
+	static final int
+		POSITION_X = 1,
+		POSITION_Y = 2,
+		ROTATION = 4,
+		ANIMATION = 8,
+		/* The peer does not know the object yet, its deltas are from zero. */
+		CREATED = 16,
+		/* The peer should forget the object, nothing follows. */
+		REMOVED = 32;
+	
+	/* The most bytes one record can take. */
+	private static final int MAX_RECORD_SIZE = 5 + 1 + 5 + 5 + 5 + 5 + 1 + 4;
+	
+	/* The difference in milliseconds between an animation's playhead and where the peer
+	 * expects it to be, past which the playhead is sent again. */
+	private static final double PLAYHEAD_TOLERANCE = 10;
+	
+	/*
+	 * A replicated object and what the peer knows about it.
+	 */
+	private static final class Entry {
+		
+		final int id;
+		
+		final Graphic graphic;
+		
+		/* May be null. */
+		final Animation animation;
+		
+		/* True if the peer knows the object. */
+		boolean known;
+		
+		/* The graphic's revision when its fields were last compared. */
+		int revision;
+		
+		/* The quantized fields the peer has. */
+		int x, y, rotation;
+		
+		/* The playhead the peer was last sent, and when. */
+		double playhead;
+		long playheadTime;
+		boolean animating;
+		float framesPerSecond;
+		
+		Entry(int id, Graphic graphic, Animation animation) {
+			this.id = id;
+			this.graphic = graphic;
+			this.animation = animation;
+		}
+	}
+	
+	private final ReplicationTransport transport;
+	
+	/* The number of quantization steps per virtual unit. */
+	private final float precision;
+	
+	private final ArrayList<Entry> entries = new ArrayList<Entry>();
+	
+	private final IntMap<Entry> entriesById = new IntMap<Entry>();
+	
+	/* The IDs of untracked objects the peer still has to be told to forget. */
+	private final IntArray removed = new IntArray();
+	
+	/* The packet being written, grown to fit every object. */
+	private ByteBuffer packet = ByteBuffer.allocate(1024);
+	
+	/* The maximum distance from the viewer of objects the peer is told about. */
+	private float interestRadius = Float.MAX_VALUE;
+	
+	/* The number of packets written. */
+	private int step;
+	
+	private long
+		/* The number of bytes sent. */
+		bytesSent,
+		/* The number of object records sent. */
+		recordsSent;
+	
+	/*
+	 * Create a Replicator sending through 'transport', with positions rounded to
+	 * 1 / 'precision' virtual units. The receiver must use the same precision.
+	 */
+	public Replicator(ReplicationTransport transport, float precision) {
+		if (precision <= 0)
+			throw new RuntimeException("Cannot replicate with a precision of " + precision + ".");
+		this.transport = transport;
+		this.precision = precision;
+	}
+	
+	/*
+	 * Replicate 'graphic' and optionally its animation, which may be null, as 'id'.
+	 */
+	public void track(int id, Graphic graphic, Animation animation) {
+		if (id < 0 || entriesById.containsKey(id))
+			throw new RuntimeException("Cannot replicate an object as " + id + ", the ID is invalid or in use.");
+		Entry entry = new Entry(id, graphic, animation);
+		entries.add(entry);
+		entriesById.put(id, entry);
+	}
+	
+	/*
+	 * Stop replicating the object 'id', the peer forgets it with the next packet.
+	 */
+	public void untrack(int id) {
+		Entry entry = entriesById.remove(id);
+		if (entry == null)
+			throw new RuntimeException("Cannot stop replicating " + id + ", it is not replicated.");
+		entries.remove(entry);
+		if (entry.known)
+			removed.add(id);
+	}
+	
+	/*
+	 * Only tell the peer about objects within 'radius' of the viewer.
+	 */
+	public void setInterestRadius(float radius) {
+		this.interestRadius = radius;
+	}
+	
+	/*
+	 * Write and send the packet of one fixed step. Objects are of interest if they lie
+	 * within the interest radius of (viewerX, viewerY), usually the peer's camera.
+	 * @return the size of the packet in bytes.
+	 */
+	public int update(float viewerX, float viewerY) {
+		ensureCapacity(16 + (entries.size() + removed.size) * MAX_RECORD_SIZE);
+		packet.clear();
+		Varints.write(packet, step ++);
+		// The number of records is only known at the end.
+		int countPosition = packet.position();
+		packet.putInt(0);
+		int records = 0;
+		
+		for (int i = 0; i != removed.size; i ++) {
+			Varints.write(packet, removed.get(i));
+			packet.put((byte) REMOVED);
+			records ++;
+		}
+		removed.clear();
+		
+		final long now = System.currentTimeMillis();
+		final double radiusSquared = (double) interestRadius * interestRadius;
+		for (int i = 0, size = entries.size(); i != size; i ++) {
+			Entry entry = entries.get(i);
+			double dx = entry.graphic.x() - viewerX, dy = entry.graphic.y() - viewerY;
+			boolean interesting = dx * dx + dy * dy <= radiusSquared;
+			
+			if (!interesting) {
+				// Tell the peer to forget objects that left its area of interest.
+				if (entry.known) {
+					entry.known = false;
+					Varints.write(packet, entry.id);
+					packet.put((byte) REMOVED);
+					records ++;
+				}
+			} else if (writeRecord(entry, now)) {
+				records ++;
+			}
+		}
+		
+		packet.putInt(countPosition, records);
+		packet.flip();
+		int size = packet.remaining();
+		transport.send(packet);
+		bytesSent += size;
+		recordsSent += records;
+		return size;
+	}
+	
+	/*
+	 * Write the fields of the entry that differ from what the peer has.
+	 * @return true if a record was written.
+	 */
+	private boolean writeRecord(Entry entry, long now) {
+		Graphic graphic = entry.graphic;
+		int flags = 0;
+		if (!entry.known) {
+			// The peer has nothing, every field is sent as a delta from zero.
+			flags = CREATED | POSITION_X | POSITION_Y | ROTATION | (entry.animation != null ? ANIMATION : 0);
+			entry.x = entry.y = entry.rotation = 0;
+		} else {
+			// The transform is only compared when the graphic reports a change.
+			if (graphic.revision() != entry.revision) {
+				if (Quantization.position(graphic.x(), precision) != entry.x)
+					flags |= POSITION_X;
+				if (Quantization.position(graphic.y(), precision) != entry.y)
+					flags |= POSITION_Y;
+				if (Quantization.angle(graphic.rotation()) != entry.rotation)
+					flags |= ROTATION;
+			}
+			if (entry.animation != null && playheadDrifted(entry, now))
+				flags |= ANIMATION;
+		}
+		entry.revision = graphic.revision();
+		if (flags == 0)
+			return false;
+		
+		Varints.write(packet, entry.id);
+		packet.put((byte) flags);
+		if ((flags & POSITION_X) != 0) {
+			int x = Quantization.position(graphic.x(), precision);
+			Varints.writeSigned(packet, x - entry.x);
+			entry.x = x;
+		}
+		if ((flags & POSITION_Y) != 0) {
+			int y = Quantization.position(graphic.y(), precision);
+			Varints.writeSigned(packet, y - entry.y);
+			entry.y = y;
+		}
+		if ((flags & ROTATION) != 0) {
+			int rotation = Quantization.angle(graphic.rotation());
+			// Take the short way around the circle.
+			Varints.writeSigned(packet, (short) (rotation - entry.rotation));
+			entry.rotation = rotation;
+		}
+		if ((flags & ANIMATION) != 0) {
+			Animation animation = entry.animation;
+			entry.playhead = animation.playedTime();
+			entry.playheadTime = now;
+			entry.animating = animation.isAnimating();
+			entry.framesPerSecond = animation.framesPerSecond();
+			Varints.writeSigned(packet, (int) Math.round(entry.playhead));
+			packet.put((byte) (entry.animating ? 1 : 0));
+			packet.putFloat(entry.framesPerSecond);
+		}
+		entry.known = true;
+		return true;
+	}
+	
+	/*
+	 * @return true if the animation's playhead is no longer where the peer expects it.
+	 */
+	private boolean playheadDrifted(Entry entry, long now) {
+		Animation animation = entry.animation;
+		if (animation.isAnimating() != entry.animating || animation.framesPerSecond() != entry.framesPerSecond)
+			return true;
+		double expected = entry.playhead + (entry.animating ? now - entry.playheadTime : 0);
+		return Math.abs(animation.playedTime() - expected) > PLAYHEAD_TOLERANCE;
+	}
+	
+	/* Make sure the packet can hold 'capacity' bytes. */
+	private void ensureCapacity(int capacity) {
+		if (packet.capacity() < capacity)
+			packet = ByteBuffer.allocate(Math.max(capacity, packet.capacity() * 2));
+	}
+	
+	/* @return the number of packets sent. */
+	public final int packetsSent() {
+		return step;
+	}
+	
+	/* @return the number of bytes sent. */
+	public final long bytesSent() {
+		return bytesSent;
+	}
+	
+	/* @return the number of object records sent. */
+	public final long recordsSent() {
+		return recordsSent;
+	}
+}
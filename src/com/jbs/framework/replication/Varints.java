@@ -0,0 +1,45 @@
+package com.jbs.framework.replication;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Variable length integers, seven bits per byte. Small deltas take a single byte,
+ * which is most of what a replication packet holds.
+ */
+final class Varints {
+	
+	private Varints() { }
+	
+	/* Write 'value' as an unsigned variable length integer. */
+	static void write(ByteBuffer out, int value) {
+		while ((value & ~0x7f) != 0) {
+			out.put((byte) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte) value);
+	}
+	
+	/* @return the next unsigned variable length integer. */
+	static int read(ByteBuffer in) {
+		int value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = in.get();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+			if (shift > 28)
+				throw new RuntimeException("Malformed variable length integer in a replication packet.");
+		}
+	}
+	
+	/* Write a signed value, small negative values take as little room as small positive ones. */
+	static void writeSigned(ByteBuffer out, int value) {
+		write(out, (value << 1) ^ (value >> 31));
+	}
+	
+	/* @return the next signed variable length integer. */
+	static int readSigned(ByteBuffer in) {
+		int value = read(in);
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,79 @@
+package com.jbs.framework.util;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Pool;
+
+/*
+ * Framework-wide pools of the temporary Objects used on hot paths. Everything
+ * obtained from the Temporaries must be freed back to them once it is no longer
+ * needed. The pools are not thread safe and should only be used from the thread
+ * that updates and renders the Application.
+ */
+public final class Temporaries {
+
+	private static final Pool<Vector2>
+		/* The pool of temporary Vector2s. */
+		vectors = new Pool<Vector2>() {
+			@Override
+			protected Vector2 newObject() {
+				return new Vector2();
+			}
+		};
+
+	private static final Pool<Color>
+		/* The pool of temporary Colors. */
+		colors = new Pool<Color>() {
+			@Override
+			protected Color newObject() {
+				return new Color();
+			}
+		};
+
+	private Temporaries() { }
+
+	/* @return a pooled Vector2 set to (x, y). */
+	public static Vector2 vector(float x, float y) {
+		return vectors.obtain().set(x, y);
+	}
+
+	/* @return a pooled Vector2 set to (0, 0). */
+	public static Vector2 vector() {
+		return vector(0, 0);
+	}
+
+	/* @return a pooled Color set to (r, g, b, a). */
+	public static Color color(float r, float g, float b, float a) {
+		return colors.obtain().set(r, g, b, a);
+	}
+
+	/* @return a pooled Color set to 'color'. */
+	public static Color color(Color color) {
+		return colors.obtain().set(color);
+	}
+
+	/* Return the Vector2 to the pool, it must not be used afterwards. */
+	public static void free(Vector2 vec) {
+		vectors.free(vec);
+	}
+
+	/* Return the Color to the pool, it must not be used afterwards. */
+	public static void free(Color color) {
+		colors.free(color);
+	}
+
+	/* Fill the pools so that the first frames do not allocate. */
+	public static void preallocate(int vectorCount, int colorCount) {
+		Vector2[] vecs = new Vector2[vectorCount];
+		for (int i = 0; i != vectorCount; i ++)
+			vecs[i] = vector();
+		for (int i = 0; i != vectorCount; i ++)
+			free(vecs[i]);
+
+		Color[] cols = new Color[colorCount];
+		for (int i = 0; i != colorCount; i ++)
+			cols[i] = color(1, 1, 1, 1);
+		for (int i = 0; i != colorCount; i ++)
+			free(cols[i]);
+	}
+}
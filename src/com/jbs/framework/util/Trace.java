@@ -0,0 +1,201 @@
+package com.jbs.framework.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.badlogic.gdx.files.FileHandle;
+
+/*
+ * Low-overhead tracing of spans, instants and counters, dumped on demand in the Chrome
+ * trace-event format (load the file in chrome://tracing or Perfetto).
+ * Each thread records into its own preallocated ring buffer, so recording takes no lock
+ * and allocates nothing after the thread's first event. Names are registered once with
+ * name() and recorded as integers. While tracing is disabled every call returns after
+ * reading a single static field, so the calls can stay in production builds.
+ * 
+ * A span is recorded once it ends:
+ * 		long start = Trace.begin();
+ * 		...
+ * 		Trace.end(Trace.UPDATE, start);
+ */
+public final class Trace {
+	
+	/* The number of events each thread keeps before overwriting the oldest. */
+	private static final int EVENTS_PER_THREAD = 1 << 16;
+	
+	/* The registered names, indexed by their ID. */
+	private static final ArrayList<String> names = new ArrayList<String>();
+	
+	/* The framework's own spans. */
+	public static final int
+		UPDATE = name("update"),
+		RENDER = name("render"),
+		SET_STATE = name("setState"),
+		COMMANDS = name("commands"),
+		ASSET_LOAD = name("assetLoad"),
+		ROLLBACK = name("rollback");
+	
+	/* True while events are being recorded. Not volatile, other threads notice soon enough. */
+	private static boolean enabled;
+	
+	/* The time the trace's timestamps are measured from. */
+	private static final long origin = System.nanoTime();
+	
+	/* The buffer of every thread that recorded an event. */
+	private static final CopyOnWriteArrayList<TraceBuffer> buffers = new CopyOnWriteArrayList<TraceBuffer>();
+	
+	private static final ThreadLocal<TraceBuffer> threadBuffer = new ThreadLocal<TraceBuffer>() {
+		@Override
+		protected TraceBuffer initialValue() {
+			TraceBuffer buffer = new TraceBuffer(Thread.currentThread(), EVENTS_PER_THREAD);
+			buffers.add(buffer);
+			return buffer;
+		}
+	};
+	
+	private Trace() { }
+	
+	/*
+	 * Register a name for events, done once, for example in a static final field.
+	 * @return the ID to record events with.
+	 */
+	public static synchronized int name(String name) {
+		int id = names.indexOf(name);
+		if (id != -1)
+			return id;
+		names.add(name);
+		return names.size() - 1;
+	}
+	
+	/* Start or stop recording events. */
+	public static void setEnabled(boolean flag) {
+		enabled = flag;
+	}
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/*
+	 * @return the start time to pass to end(), 0 while tracing is disabled.
+	 */
+	public static long begin() {
+		return enabled ? System.nanoTime() : 0;
+	}
+	
+	/*
+	 * Record a span named 'name' from 'start', returned by begin(), until now.
+	 */
+	public static void end(int name, long start) {
+		if (enabled && start != 0) {
+			long now = System.nanoTime();
+			threadBuffer.get().record(TraceBuffer.SPAN, name, start, now - start);
+		}
+	}
+	
+	/* Record that 'name' happened now. */
+	public static void instant(int name) {
+		if (enabled)
+			threadBuffer.get().record(TraceBuffer.INSTANT, name, System.nanoTime(), 0);
+	}
+	
+	/* Record the value of the counter 'name', like a queue's size or a pool's free objects. */
+	public static void counter(int name, long value) {
+		if (enabled)
+			threadBuffer.get().record(TraceBuffer.COUNTER, name, System.nanoTime(), value);
+	}
+	
+	/* Forget every recorded event. */
+	public static void clear() {
+		for (TraceBuffer buffer : buffers)
+			buffer.clear();
+	}
+	
+	/*
+	 * Write every recorded event to 'file' in the Chrome trace-event format.
+	 * Best done while tracing is disabled, events recorded during the dump may be torn.
+	 */
+	public static void dump(FileHandle file) {
+		Writer out = file.writer(false, "UTF-8");
+		try {
+			writeChromeTrace(out);
+		} catch (IOException exception) {
+			throw new RuntimeException("Could not write the trace to " + file.path() + ".", exception);
+		} finally {
+			try {
+				out.close();
+			} catch (IOException exception) { }
+		}
+	}
+	
+	/*
+	 * Write every recorded event to 'out' in the Chrome trace-event format.
+	 */
+	public static void writeChromeTrace(Writer out) throws IOException {
+		String[] nameTable;
+		synchronized (Trace.class) {
+			nameTable = names.toArray(new String[names.size()]);
+		}
+		
+		out.write("{\"traceEvents\":[");
+		boolean first = true;
+		for (TraceBuffer buffer : buffers) {
+			// Name the thread's row.
+			first = separate(out, first);
+			out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + buffer.threadId
+					+ ",\"args\":{\"name\":\"" + escape(buffer.threadName) + "\"}}");
+			
+			for (int i = 0, size = buffer.size(); i != size; i ++) {
+				int index = buffer.index(i);
+				int name = buffer.name(index);
+				first = separate(out, first);
+				out.write("{\"name\":\"" + escape(name < nameTable.length ? nameTable[name] : "?")
+						+ "\",\"pid\":1,\"tid\":" + buffer.threadId + ",\"ts\":" + micros(buffer.time(index) - origin));
+				switch (buffer.kind(index)) {
+				case TraceBuffer.SPAN:
+					out.write(",\"ph\":\"X\",\"dur\":" + micros(buffer.value(index)) + "}");
+					break;
+				case TraceBuffer.INSTANT:
+					out.write(",\"ph\":\"i\",\"s\":\"t\"}");
+					break;
+				default:
+					out.write(",\"ph\":\"C\",\"args\":{\"value\":" + buffer.value(index) + "}}");
+				}
+			}
+		}
+		out.write("]}");
+		out.flush();
+	}
+	
+	/* Write a comma before every event but the first. @return false. */
+	private static boolean separate(Writer out, boolean first) throws IOException {
+		if (!first)
+			out.write(",\n");
+		return false;
+	}
+	
+	/* @return 'nanos' in microseconds, the unit of the trace-event format. */
+	private static String micros(long nanos) {
+		nanos = Math.max(nanos, 0);
+		// Pad the fraction by hand, String.format would use the default locale's digits.
+		long fraction = nanos % 1000;
+		return (nanos / 1000) + (fraction < 10 ? ".00" : fraction < 100 ? ".0" : ".") + fraction;
+	}
+	
+	/* @return 'text' escaped for a JSON string. */
+	private static String escape(String text) {
+		StringBuilder escaped = new StringBuilder(text.length());
+		for (int i = 0; i != text.length(); i ++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\')
+				escaped.append('\\').append(c);
+			else if (c < 0x20)
+				escaped.append(String.format("\\u%04x", (int) c));
+			else
+				escaped.append(c);
+		}
+		return escaped.toString();
+	}
+}
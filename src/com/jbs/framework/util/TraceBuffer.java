@@ -0,0 +1,82 @@
+package com.jbs.framework.util;
+
+/*
+ * The events recorded by one thread, kept in preallocated arrays used as a ring.
+ * Once the ring is full the oldest events are overwritten. Only the owning thread
+ * writes to the buffer.
+ */
+final class TraceBuffer {
+	
+	/* The kinds of events. */
+	static final byte SPAN = 0, INSTANT = 1, COUNTER = 2;
+	
+	final long threadId;
+	
+	final String threadName;
+	
+	private final byte[] kinds;
+	
+	private final int[] names;
+	
+	private final long[]
+		/* The time in nanoseconds of every event, the start of a span. */
+		times,
+		/* The duration in nanoseconds of a span, the value of a counter. */
+		values;
+	
+	/* The number of events recorded since the buffer was created or cleared. */
+	private volatile long recorded;
+	
+	TraceBuffer(Thread thread, int capacity) {
+		this.threadId = thread.getId();
+		this.threadName = thread.getName();
+		this.kinds = new byte[capacity];
+		this.names = new int[capacity];
+		this.times = new long[capacity];
+		this.values = new long[capacity];
+	}
+	
+	/* Record an event, overwriting the oldest if the ring is full. */
+	void record(byte kind, int name, long time, long value) {
+		long count = recorded;
+		int index = (int) (count % kinds.length);
+		kinds[index] = kind;
+		names[index] = name;
+		times[index] = time;
+		values[index] = value;
+		recorded = count + 1;
+	}
+	
+	/* @return the number of events still held by the ring. */
+	int size() {
+		return (int) Math.min(recorded, kinds.length);
+	}
+	
+	/* @return the ring index of the i'th oldest event still held. */
+	int index(int i) {
+		long count = recorded;
+		long first = Math.max(0, count - kinds.length);
+		return (int) ((first + i) % kinds.length);
+	}
+	
+	byte kind(int index) {
+		return kinds[index];
+	}
+	
+	int name(int index) {
+		return names[index];
+	}
+	
+	long time(int index) {
+		return times[index];
+	}
+	
+	long value(int index) {
+		return values[index];
+	}
+	
+	/* Forget every event. */
+	void clear() {
+		recorded = 0;
+	}
+}
@@ -0,0 +1,126 @@
+package com.jbs.framework.util.fixed;
+
+/*
+ * Deterministic 16.16 fixed-point arithmetic on ints. Every operation is integer
+ * arithmetic, so a simulation written with it produces bit-identical results on every
+ * device and VM, unlike float math whose results may depend on the JIT and the CPU.
+ * Only converting to float, for rendering, leaves the deterministic domain.
+ */
+public final class Fixed {
+	
+	/* The number of fractional bits. */
+	public static final int FRACTION_BITS = 16;
+	
+	public static final int
+		ONE = 1 << FRACTION_BITS,
+		HALF = ONE / 2,
+		/* The largest and smallest values, about +-32768. */
+		MAX_VALUE = Integer.MAX_VALUE,
+		MIN_VALUE = Integer.MIN_VALUE;
+	
+	/* The number of entries of the sine table over a full turn, a power of two. */
+	private static final int SINE_STEPS = 4096;
+	
+	/* The sine over a full turn and one more entry, so neighbours can always be interpolated.
+	 * StrictMath gives the same values on every VM, so the table is identical everywhere. */
+	private static final int[] SINE = new int[SINE_STEPS + 1];
+	
+	static {
+		for (int i = 0; i <= SINE_STEPS; i ++)
+			SINE[i] = (int) StrictMath.round(StrictMath.sin(i * 2 * StrictMath.PI / SINE_STEPS) * ONE);
+	}
+	
+	private Fixed() { }
+	
+	/* @return the fixed-point value of 'value'. */
+	public static int fromInt(int value) {
+		return value << FRACTION_BITS;
+	}
+	
+	/*
+	 * @return the fixed-point value nearest to 'value'. Only for constants and input,
+	 * since the rounding of a computed float may differ between devices.
+	 */
+	public static int fromFloat(float value) {
+		return Math.round(value * ONE);
+	}
+	
+	/* @return 'value' as a float, for rendering. */
+	public static float toFloat(int value) {
+		return value / (float) ONE;
+	}
+	
+	/* @return 'value' rounded down to an int. */
+	public static int toInt(int value) {
+		return value >> FRACTION_BITS;
+	}
+	
+	/* @return a * b. */
+	public static int mul(int a, int b) {
+		return (int) (((long) a * b) >> FRACTION_BITS);
+	}
+	
+	/* @return a / b. */
+	public static int div(int a, int b) {
+		if (b == 0)
+			throw new RuntimeException("Fixed-point division by zero.");
+		return (int) (((long) a << FRACTION_BITS) / b);
+	}
+	
+	/* @return the square root of 'value', which must not be negative. */
+	public static int sqrt(int value) {
+		if (value < 0)
+			throw new RuntimeException("Cannot take the square root of " + toFloat(value) + ".");
+		// The root of the value shifted by the fraction bits keeps the fraction bits.
+		return (int) sqrtLong((long) value << FRACTION_BITS);
+	}
+	
+	/*
+	 * @return the integer square root of a non-negative long, rounded down.
+	 */
+	static long sqrtLong(long value) {
+		if (value < 0)
+			throw new RuntimeException("Cannot take the square root of a value out of fixed-point range.");
+		long root = 0;
+		long bit = 1L << 62;
+		while (bit > value)
+			bit >>= 2;
+		// Find the root one bit at a time, from the highest.
+		while (bit != 0) {
+			if (value >= root + bit) {
+				value -= root + bit;
+				root = (root >> 1) + bit;
+			} else {
+				root >>= 1;
+			}
+			bit >>= 2;
+		}
+		return root;
+	}
+	
+	/* @return the sine of the fixed-point angle 'degrees'. */
+	public static int sinDeg(int degrees) {
+		// The position in the table, with 16 bits of fraction between two entries.
+		long position = ((long) degrees * SINE_STEPS) / 360;
+		position &= ((long) SINE_STEPS << FRACTION_BITS) - 1;
+		int index = (int) (position >> FRACTION_BITS);
+		int fraction = (int) (position & (ONE - 1));
+		int low = SINE[index];
+		return low + (int) (((long) (SINE[index + 1] - low) * fraction) >> FRACTION_BITS);
+	}
+	
+	/* @return the cosine of the fixed-point angle 'degrees'. */
+	public static int cosDeg(int degrees) {
+		return sinDeg(degrees + fromInt(90));
+	}
+	
+	/* @return the value between a and b at the fixed-point 'normal', a at 0 and b at ONE. */
+	public static int lerp(int a, int b, int normal) {
+		return a + mul(b - a, normal);
+	}
+	
+	/* @return 'value' limited to [min, max]. */
+	public static int clamp(int value, int min, int max) {
+		return value < min ? min : (value > max ? max : value);
+	}
+}
@@ -0,0 +1,116 @@
+package com.jbs.framework.util.fixed;
+
+import java.nio.ByteBuffer;
+
+import com.jbs.framework.io.Snapshottable;
+
+/*
+ * The deterministic counterpart of Interpolation. Instead of reading the wall clock the
+ * normal advances by a fixed-point step each time step() is called, normally once per
+ * simulation tick, so every client computes the same normal on the same tick.
+ */
+public abstract class FixedInterpolation<Type> implements Snapshottable {
+	
+	private boolean
+		/* True if the normal should loop. */
+		shouldLoop = false;
+	
+	private int
+		/* The number of steps taken since the Interpolation started. */
+		steps,
+		/* The fixed-point amount the normal advances per step, used when stepsPerCycle is zero. */
+		speed,
+		/* The number of steps the normal takes to reach one, zero if it advances by 'speed'. */
+		stepsPerCycle;
+	
+	private Type[]
+		/* The default Objects to Interpolate. */
+		objectsToInterpolate;
+	
+	public FixedInterpolation(Type[] objs) {
+		setObjectsToInterpolate(objs);
+	}
+	
+	public FixedInterpolation() { }
+	
+	/* Interpolate the Objects at the fixed-point 'normal', writing the result into 'out'. */
+	public abstract Type interpolate(int normal, Type out, Type[] objectsToInterpolate);
+	
+	/* @return the fixed-point normal to use by default. */
+	public final int normal() {
+		if (stepsPerCycle != 0) {
+			// Divide once per call rather than stepping by a truncated speed, so the
+			// normal reaches exactly one after 'stepsPerCycle' steps.
+			long cycleSteps = shouldLoop ? steps % stepsPerCycle : steps;
+			return (int) Math.min(cycleSteps * Fixed.ONE / stepsPerCycle, Fixed.MAX_VALUE);
+		}
+		long normal = (long) steps * speed;
+		if (shouldLoop)
+			return (int) (normal & (Fixed.ONE - 1));
+		return (int) Math.min(normal, Fixed.MAX_VALUE);
+	}
+	
+	/* Advance the normal by one step. */
+	public final void step() {
+		steps ++;
+	}
+	
+	/* Set whether or not to loop the Interpolation's normal. */
+	public final void setLooping(boolean flag) {
+		this.shouldLoop = flag;
+	}
+	
+	/* Set the fixed-point amount the normal advances per step. */
+	public final void setSpeed(int speed) {
+		this.speed = speed;
+		this.stepsPerCycle = 0;
+	}
+	
+	/* Interpolate the default Objects with the default normal, writing the result into 'out'. */
+	public final Type interpolateInto(Type out) {
+		return interpolate(normal(), out, objectsToInterpolate);
+	}
+	
+	/* Set the default Objects to Interpolate. */
+	public final void setObjectsToInterpolate(Type[] objs) {
+		this.objectsToInterpolate = objs;
+	}
+	
+	/* @return the default Objects to Interpolate. */
+	public final Type[] objectsToInterpolate() {
+		return this.objectsToInterpolate;
+	}
+	
+	/* Start the Interpolation so that its normal reaches one after 'stepsPerCycle' steps. */
+	public final void start(int stepsPerCycle) {
+		if (stepsPerCycle <= 0)
+			throw new RuntimeException("Cannot start a FixedInterpolation over " + stepsPerCycle + " steps.");
+		this.steps = 0;
+		this.stepsPerCycle = stepsPerCycle;
+	}
+	
+	/* Reset the Interpolation. */
+	public final void reset() {
+		this.steps = 0;
+	}
+	
+	/*
+	 * Write the Interpolation's progress to 'out'. The Objects to interpolate are not written.
+	 */
+	@Override
+	public void writeSnapshot(ByteBuffer out) {
+		out.putInt(steps);
+		out.putInt(speed);
+		out.putInt(stepsPerCycle);
+		out.put((byte) (shouldLoop ? 1 : 0));
+	}
+	
+	/* Restore the Interpolation's progress written by writeSnapshot(). */
+	@Override
+	public void readSnapshot(ByteBuffer in) {
+		steps = in.getInt();
+		speed = in.getInt();
+		stepsPerCycle = in.getInt();
+		shouldLoop = in.get() != 0;
+	}
+}
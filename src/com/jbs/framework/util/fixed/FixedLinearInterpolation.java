@@ -0,0 +1,24 @@
+package com.jbs.framework.util.fixed;
+
+public class FixedLinearInterpolation extends FixedInterpolation<FixedVector2> {
+	
+	public FixedLinearInterpolation(FixedVector2[] vecs) {
+		super(vecs);
+	}
+	
+	public FixedLinearInterpolation(FixedVector2 vecA, FixedVector2 vecB) {
+		this(new FixedVector2[] { vecA, vecB });
+	}
+	
+	@Override
+	public FixedVector2 interpolate(int normal, FixedVector2 out, FixedVector2[] vecs) {
+		if (vecs.length > 2)
+			throw new RuntimeException("Cannot perform a linear interpolation of more than 2 vectors");
+		return FixedLinearInterpolation.interpolate(normal, vecs[0], vecs[1], out);
+	}
+	
+	/* Interpolate between vecA and vecB, writing the result into 'out' without allocating. */
+	public static FixedVector2 interpolate(int normal, FixedVector2 vecA, FixedVector2 vecB, FixedVector2 out) {
+		return out.set(Fixed.lerp(vecA.x, vecB.x, normal), Fixed.lerp(vecA.y, vecB.y, normal));
+	}
+}
@@ -0,0 +1,89 @@
+package com.jbs.framework.util.fixed;
+
+import java.nio.ByteBuffer;
+
+import com.jbs.framework.io.Snapshottable;
+import com.jbs.framework.rendering.Graphic;
+
+/*
+ * The deterministic position and rotation of a simulated object. The simulation moves
+ * and turns the transform with fixed-point math, then applyTo() copies the result into
+ * the Graphic that shows it. The Graphic's floats are only ever written, never read
+ * back, so rendering cannot leak non-determinism into the simulation.
+ */
+public class FixedTransform implements Snapshottable {
+	
+	private static final int FULL_TURN = Fixed.fromInt(360);
+	
+	private final FixedVector2
+		/* The fixed-point center of the object. */
+		position = new FixedVector2();
+	
+	private int
+		/* The fixed-point rotation in degrees, kept in [0, 360). */
+		rotation;
+	
+	public FixedTransform() { }
+	
+	public FixedTransform(int x, int y, int degrees) {
+		position.set(x, y);
+		setRotation(degrees);
+	}
+	
+	/* @return the fixed-point center, changes to it move the transform. */
+	public final FixedVector2 position() {
+		return position;
+	}
+	
+	public final void setPosition(int x, int y) {
+		position.set(x, y);
+	}
+	
+	public final void translate(int amountX, int amountY) {
+		position.add(amountX, amountY);
+	}
+	
+	/* @return the fixed-point rotation in degrees, in [0, 360). */
+	public final int rotation() {
+		return rotation;
+	}
+	
+	public final void setRotation(int degrees) {
+		rotation = degrees % FULL_TURN;
+		if (rotation < 0)
+			rotation += FULL_TURN;
+	}
+	
+	public final void rotate(int degrees) {
+		setRotation(rotation + degrees);
+	}
+	
+	/* Move the transform by the fixed-point 'distance' in the direction it faces, zero degrees facing +x. */
+	public final void moveForward(int distance) {
+		position.add(Fixed.mul(Fixed.cosDeg(rotation), distance), Fixed.mul(Fixed.sinDeg(rotation), distance));
+	}
+	
+	/* Write the direction the transform faces into 'out' as a unit vector. @return 'out'. */
+	public final FixedVector2 forward(FixedVector2 out) {
+		return out.set(Fixed.cosDeg(rotation), Fixed.sinDeg(rotation));
+	}
+	
+	/* Copy the transform into 'graphic' for rendering. */
+	public void applyTo(Graphic graphic) {
+		graphic.setPosition(Fixed.toFloat(position.x), Fixed.toFloat(position.y));
+		graphic.setRotation(Fixed.toFloat(rotation));
+	}
+	
+	@Override
+	public void writeSnapshot(ByteBuffer out) {
+		out.putInt(position.x);
+		out.putInt(position.y);
+		out.putInt(rotation);
+	}
+	
+	@Override
+	public void readSnapshot(ByteBuffer in) {
+		position.set(in.getInt(), in.getInt());
+		rotation = in.getInt();
+	}
+}
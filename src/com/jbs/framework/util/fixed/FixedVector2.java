@@ -0,0 +1,97 @@
+package com.jbs.framework.util.fixed;
+
+import com.badlogic.gdx.math.Vector2;
+
+/*
+ * A 2D vector of 16.16 fixed-point components, the deterministic counterpart of Vector2.
+ * Like Vector2 every operation changes the vector and returns it, so calls can be chained.
+ */
+public final class FixedVector2 {
+	
+	public int x, y;
+	
+	public FixedVector2() { }
+	
+	public FixedVector2(int x, int y) {
+		this.x = x;
+		this.y = y;
+	}
+	
+	public FixedVector2 set(int x, int y) {
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+	
+	public FixedVector2 set(FixedVector2 other) {
+		return set(other.x, other.y);
+	}
+	
+	public FixedVector2 add(int x, int y) {
+		return set(this.x + x, this.y + y);
+	}
+	
+	public FixedVector2 add(FixedVector2 other) {
+		return add(other.x, other.y);
+	}
+	
+	public FixedVector2 sub(FixedVector2 other) {
+		return set(x - other.x, y - other.y);
+	}
+	
+	/* Multiply both components by the fixed-point 'scalar'. */
+	public FixedVector2 scl(int scalar) {
+		return set(Fixed.mul(x, scalar), Fixed.mul(y, scalar));
+	}
+	
+	/* @return the dot product with 'other' as a fixed-point value. */
+	public int dot(FixedVector2 other) {
+		return (int) (((long) x * other.x + (long) y * other.y) >> Fixed.FRACTION_BITS);
+	}
+	
+	/* @return the length of the vector. */
+	public int len() {
+		// Square in a long so that the length of large vectors does not overflow.
+		long squared = (long) x * x + (long) y * y;
+		return (int) Fixed.sqrtLong(squared);
+	}
+	
+	/* Scale the vector to a length of one, a zero vector is left as it is. */
+	public FixedVector2 nor() {
+		int length = len();
+		if (length == 0)
+			return this;
+		return set(Fixed.div(x, length), Fixed.div(y, length));
+	}
+	
+	/* Rotate the vector counter-clockwise by the fixed-point angle 'degrees'. */
+	public FixedVector2 rotate(int degrees) {
+		int cos = Fixed.cosDeg(degrees), sin = Fixed.sinDeg(degrees);
+		return set(Fixed.mul(x, cos) - Fixed.mul(y, sin), Fixed.mul(x, sin) + Fixed.mul(y, cos));
+	}
+	
+	/* Move the vector towards 'target' by the fixed-point 'normal', reaching it at ONE. */
+	public FixedVector2 lerp(FixedVector2 target, int normal) {
+		return set(Fixed.lerp(x, target.x, normal), Fixed.lerp(y, target.y, normal));
+	}
+	
+	/* Write the vector into 'out' as floats, for rendering. @return 'out'. */
+	public Vector2 toVector2(Vector2 out) {
+		return out.set(Fixed.toFloat(x), Fixed.toFloat(y));
+	}
+	
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof FixedVector2 && ((FixedVector2) other).x == x && ((FixedVector2) other).y == y;
+	}
+	
+	@Override
+	public int hashCode() {
+		return 31 * x + y;
+	}
+	
+	@Override
+	public String toString() {
+		return "(" + Fixed.toFloat(x) + ", " + Fixed.toFloat(y) + ")";
+	}
+}
@@ -1,6 +1,10 @@
 package com.jbs.framework.util.interpolation;
 
-public abstract class Interpolation<Type> {
+import java.nio.ByteBuffer;
+
+import com.jbs.framework.io.Snapshottable;
+
+public abstract class Interpolation<Type> implements Snapshottable {
 	
 	private boolean
 		/* True if the normal should loop. */
@@ -42,10 +46,15 @@ public abstract class Interpolation<Type> {
 	
 	/* Interpolate the specified Objects with the default normal. */
 	public final Type interpolate(Type ... objectsToInterpolate) {
+		return interpolate(currentNormal(), objectsToInterpolate);
+	}
+	
+	/* @return the default normal, wrapped if the Interpolation loops. */
+	protected final float currentNormal() {
 		float normal = normal();
 		if (shouldLoop)
 			normal %= 1;
-		return interpolate(normal, objectsToInterpolate);
+		return normal;
 	}
 	
 	/* Interpolate the default Objects with the default normal. */
@@ -73,4 +82,24 @@ public abstract class Interpolation<Type> {
 	public final void reset() {
 		this.startTime = System.currentTimeMillis();
 	}
+	
+	/*
+	 * Write the Interpolation's progress to 'out', as the time since it started so
+	 * that it continues from the same normal whenever it is restored. The Objects
+	 * to interpolate are not written.
+	 */
+	@Override
+	public void writeSnapshot(ByteBuffer out) {
+		out.putLong(System.currentTimeMillis() - startTime);
+		out.putFloat(speed);
+		out.put((byte) (shouldLoop ? 1 : 0));
+	}
+	
+	/* Restore the Interpolation's progress written by writeSnapshot(). */
+	@Override
+	public void readSnapshot(ByteBuffer in) {
+		startTime = System.currentTimeMillis() - in.getLong();
+		speed = in.getFloat();
+		shouldLoop = in.get() != 0;
+	}
 }
\ No newline at end of file
@@ -16,6 +16,17 @@ public class LinearInterpolation extends Interpolation<Vector2> {
 	}
 	
 	public static Vector2 interpolate(float normal, Vector2 vecA, Vector2 vecB) {
-		return new Vector2(vecA.x + (vecB.x - vecA.x)*normal, vecA.y + (vecB.y - vecA.y)*normal);
+		return interpolate(normal, vecA, vecB, new Vector2());
+	}
+	
+	/* Interpolate between vecA and vecB, writing the result into 'out' without allocating. */
+	public static Vector2 interpolate(float normal, Vector2 vecA, Vector2 vecB, Vector2 out) {
+		return out.set(vecA.x + (vecB.x - vecA.x)*normal, vecA.y + (vecB.y - vecA.y)*normal);
+	}
+	
+	/* Interpolate the default Objects with the default normal, writing the result into 'out'. */
+	public final Vector2 interpolateInto(Vector2 out) {
+		Vector2[] vecs = objectsToInterpolate();
+		return interpolate(currentNormal(), vecs[0], vecs[1], out);
 	}
 }
\ No newline at end of file
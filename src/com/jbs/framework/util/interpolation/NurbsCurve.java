@@ -4,18 +4,42 @@ import com.badlogic.gdx.math.Vector2;
 
 public class NurbsCurve extends Interpolation<Vector2> {
 	
+	/* Reusable working points for the allocation-free evaluation. */
+	private Vector2[] scratch = new Vector2[0];
+	
 	public NurbsCurve(Vector2... vecs) {
 		super(vecs);
 	}
 	
 	@Override
 	public Vector2 interpolate(float normal, Vector2 ... vecs) {
-		while (vecs.length != 1) {
-			Vector2[] array = new Vector2[vecs.length - 1];
-			for (int i = 0; i != vecs.length - 1; i ++)
-				array[i] = LinearInterpolation.interpolate(normal, vecs[i], vecs[i + 1]);
-			vecs = array;
+		return interpolateInto(normal, new Vector2(), vecs);
+	}
+	
+	/* Evaluate the curve through 'vecs' at 'normal', writing the result into 'out' without allocating. */
+	public Vector2 interpolateInto(float normal, Vector2 out, Vector2 ... vecs) {
+		if (vecs.length == 1)
+			return out.set(vecs[0]);
+		
+		// Grow the scratch points if the curve has more control points than before.
+		if (scratch.length < vecs.length - 1) {
+			scratch = new Vector2[vecs.length - 1];
+			for (int i = 0; i != scratch.length; i ++)
+				scratch[i] = new Vector2();
 		}
-		return vecs[0];
+		
+		// Reduce the control points pairwise until only one remains.
+		for (int i = 0; i != vecs.length - 1; i ++)
+			LinearInterpolation.interpolate(normal, vecs[i], vecs[i + 1], scratch[i]);
+		for (int count = vecs.length - 1; count != 1; count --)
+			for (int i = 0; i != count - 1; i ++)
+				LinearInterpolation.interpolate(normal, scratch[i], scratch[i + 1], scratch[i]);
+		
+		return out.set(scratch[0]);
+	}
+	
+	/* Interpolate the default Objects with the default normal, writing the result into 'out'. */
+	public final Vector2 interpolateInto(Vector2 out) {
+		return interpolateInto(currentNormal(), out, objectsToInterpolate());
 	}
-}
\ No newline at end of file
+}